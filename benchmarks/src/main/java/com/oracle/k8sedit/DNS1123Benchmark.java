@@ -0,0 +1,43 @@
+package com.oracle.k8sedit;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.oracle.k8sedit.api.API;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link AbstractCRDRepository#convertStringToDNS1123(String, Class)} for typical and degenerate inputs
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DNS1123Benchmark {
+    @Param({"Custom API 3", "--Sundrio Test.API..v1--", "already-valid-name"})
+    private String input;
+
+    private InMemoryInformers.BenchmarkAPIs repository;
+
+    @Setup
+    public void setUp() {
+        repository = InMemoryInformers.repository(List.of());
+    }
+
+    @Benchmark
+    public String convertStringToDNS1123() {
+        return repository.convertStringToDNS1123(input, API.class);
+    }
+}
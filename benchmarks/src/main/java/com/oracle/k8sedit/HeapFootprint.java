@@ -0,0 +1,57 @@
+package com.oracle.k8sedit;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oracle.k8sedit.api.API;
+import io.fabric8.kubernetes.client.utils.Serialization;
+
+/**
+ * Retained heap of cached {@link API} objects. Deserializes {@code size} objects (10k by default) and compacts them the
+ * way the informer does, so no strings are shared through the constant pool, and reports the heap they keep alive.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.oracle.k8sedit.HeapFootprint 10000
+ * </pre>
+ */
+public final class HeapFootprint {
+    private static final int DEFAULT_SIZE = 10_000;
+
+    private HeapFootprint() {
+    }
+
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        final int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+        final ObjectMapper mapper = Serialization.jsonMapper();
+        final List<byte[]> documents = new ArrayList<>(size);
+        for (final API api : InMemoryInformers.apis(size)) {
+            api.getMetadata().setResourceVersion(Integer.toString(4711 + documents.size()));
+            documents.add(mapper.writeValueAsBytes(api));
+        }
+        // warm up Jackson and the string table before measuring
+        mapper.readValue(documents.get(0), API.class);
+
+        final long before = usedHeap();
+        final List<API> cached = new ArrayList<>(size);
+        for (final byte[] document : documents) {
+            cached.add(ResourceCompactor.compacted(mapper.readValue(document, API.class)));
+        }
+        final long after = usedHeap();
+
+        System.out.printf("%d objects retain %,d bytes, %,d bytes per object%n",
+                          cached.size(), after - before, (after - before) / cached.size());
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
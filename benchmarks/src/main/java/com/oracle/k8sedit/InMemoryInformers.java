@@ -0,0 +1,73 @@
+package com.oracle.k8sedit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.k8sedit.api.API;
+import com.oracle.k8sedit.api.APIList;
+import com.oracle.k8sedit.api.APISpec;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+
+/**
+ * Builds repositories on top of the tests' {@link InMemoryInformer}, populated with synthetic {@link API} objects, so
+ * the read paths can be benchmarked without an apiserver.
+ */
+final class InMemoryInformers {
+    static final int NAMESPACES = 10;
+
+    private InMemoryInformers() {
+    }
+
+    /**
+     * @param size the number of synthetic APIs
+     * @return the APIs, spread evenly over {@link #NAMESPACES} namespaces
+     */
+    static List<API> apis(final int size) {
+        final List<API> apis = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final var metadata = new ObjectMetaBuilder()
+                    .withName("api-" + i)
+                    .withNamespace(namespace(i))
+                    .withResourceVersion(Integer.toString(i + 1))
+                    .withLabels(Map.of("cxif.owner", i % 2 == 0 ? "automation" : "manual"))
+                    .build();
+            apis.add(new API(metadata, new APISpec("api-name-" + (i % 100), "api-id-" + i, "v" + (i % 3))));
+        }
+        return apis;
+    }
+
+    static String namespace(final int i) {
+        return "ns-" + (i % NAMESPACES);
+    }
+
+    /**
+     * @param apis the APIs the informer's indexer is populated with
+     * @return a repository on top of a synced {@link InMemoryInformer}, with the same indexes as {@link APIs}
+     */
+    static BenchmarkAPIs repository(final List<API> apis) {
+        final var informer = new InMemoryInformer<API>();
+        final var handler = new BenchmarkHandler(informer.informer());
+        final var repository = new BenchmarkAPIs(handler);
+        // Deliver the population like an informer's initial list, then let the handler see that it is ready
+        apis.forEach(informer::add);
+        informer.setSynced(true);
+        informer.setWatching(true);
+        handler.checkReadiness();
+        return repository;
+    }
+
+    static final class BenchmarkHandler extends InformerCustomResourceHandler<API, APIList> {
+        BenchmarkHandler(final SharedIndexInformer<API> informer) {
+            super(API.class, informer);
+        }
+    }
+
+    static final class BenchmarkAPIs extends AbstractCRDRepository<APISpec, API, APIList> {
+        BenchmarkAPIs(final BenchmarkHandler handler) {
+            super(API.class, handler);
+            addIndex(APIs.API_ID_INDEX, api -> List.of(api.getSpec().getApiId()));
+        }
+    }
+}
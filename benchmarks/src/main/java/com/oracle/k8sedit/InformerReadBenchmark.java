@@ -0,0 +1,86 @@
+package com.oracle.k8sedit;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.oracle.k8sedit.api.API;
+import io.fabric8.kubernetes.api.model.LabelSelectorBuilder;
+import io.fabric8.kubernetes.api.model.LabelSelector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Read paths of {@link InformerResourceHandler} and {@link AbstractCRDRepository} over an in-memory indexer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InformerReadBenchmark {
+    @Param({"1000", "10000"})
+    private int size;
+
+    private InMemoryInformers.BenchmarkAPIs repository;
+    private InformerResourceHandler<API, ?, ?> handler;
+    private LabelSelector selector;
+    private String name;
+    private String namespace;
+    private String apiId;
+
+    @Setup
+    public void setUp() {
+        repository = InMemoryInformers.repository(InMemoryInformers.apis(size));
+        handler = repository.getResourceHandler();
+        selector = new LabelSelectorBuilder().addToMatchLabels("cxif.owner", "automation").build();
+        final int middle = size / 2;
+        name = "api-" + middle;
+        namespace = InMemoryInformers.namespace(middle);
+        apiId = "api-id-" + middle;
+    }
+
+    @Benchmark
+    public List<API> getResources() {
+        return handler.getResources();
+    }
+
+    @Benchmark
+    public List<API> getResourcesInNamespace() {
+        return handler.getResources(namespace);
+    }
+
+    @Benchmark
+    public API getResourceByName() {
+        return handler.getResourceByName(name, namespace);
+    }
+
+    @Benchmark
+    public int getResourceCount() {
+        return repository.getResourceCount();
+    }
+
+    @Benchmark
+    public List<API> findByIndex() {
+        return repository.findByIndex(APIs.API_ID_INDEX, apiId);
+    }
+
+    @Benchmark
+    public List<API> getResourcesBySelector() {
+        return repository.getResourcesBySelector(selector);
+    }
+
+    @Benchmark
+    public void preCheck() {
+        handler.preCheck();
+    }
+}
@@ -0,0 +1,75 @@
+package com.oracle.k8sedit;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oracle.k8sedit.api.API;
+import com.oracle.k8sedit.api.APISpec;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Jackson (de)serialization of {@link API}, {@link APISpec} and the additional attributes of
+ * {@link ForgivingCustomResource}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    private static final String API_JSON = "{"
+            + "\"apiVersion\":\"test.oracle.com/v1\",\"kind\":\"API\","
+            + "\"metadata\":{\"name\":\"custom-api3sgcj4\",\"namespace\":\"dx-prod\",\"resourceVersion\":\"4711\","
+            + "\"labels\":{\"cxif.owner\":\"automation\"}},"
+            + "\"spec\":{\"api-name\":\"custom-api3\",\"api-id\":\"custom-103\",\"api-version\":\"v1\"}}";
+    private static final String API_WITH_ADDITIONAL_ATTRIBUTES_JSON = API_JSON.substring(0, API_JSON.length() - 1)
+            + ",\"x-routing\":{\"paths\":[\"/a\",\"/b\",\"/c\"],\"timeouts\":{\"connect\":5,\"read\":30}}}";
+
+    private ObjectMapper mapper;
+    private byte[] apiJson;
+    private byte[] apiWithAdditionalAttributesJson;
+    private byte[] specJson;
+    private API api;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = Serialization.jsonMapper();
+        apiJson = API_JSON.getBytes(StandardCharsets.UTF_8);
+        apiWithAdditionalAttributesJson = API_WITH_ADDITIONAL_ATTRIBUTES_JSON.getBytes(StandardCharsets.UTF_8);
+        api = mapper.readValue(apiJson, API.class);
+        specJson = mapper.writeValueAsBytes(api.getSpec());
+    }
+
+    @Benchmark
+    public API deserializeApi() throws IOException {
+        return mapper.readValue(apiJson, API.class);
+    }
+
+    @Benchmark
+    public API deserializeApiWithAdditionalAttributes() throws IOException {
+        return mapper.readValue(apiWithAdditionalAttributesJson, API.class);
+    }
+
+    @Benchmark
+    public APISpec deserializeSpec() throws IOException {
+        return mapper.readValue(specJson, APISpec.class);
+    }
+
+    @Benchmark
+    public byte[] serializeApi() throws IOException {
+        return mapper.writeValueAsBytes(api);
+    }
+}
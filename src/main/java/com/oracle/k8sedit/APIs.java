@@ -2,6 +2,9 @@ package com.oracle.k8sedit;
 
 
 
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import com.oracle.k8sedit.api.API;
@@ -9,6 +12,9 @@ import com.oracle.k8sedit.api.APIList;
 import com.oracle.k8sedit.api.APISpec;
 
 public class APIs extends AbstractCRDRepository<APISpec, API, APIList> {
+    public static final String API_ID_INDEX = "api-id";
+    public static final String API_NAME_INDEX = "api-name";
+    public static final String API_NAME_VERSION_INDEX = "api-name+api-version";
     static final Supplier<APIs> DEFAULT_SUPPLIER = APIs::new;
     private static Supplier<APIs> supplierFunction;
     private static APIs theInstance;
@@ -24,6 +30,39 @@ public class APIs extends AbstractCRDRepository<APISpec, API, APIList> {
 
     private APIs() {
         super(API.class, APIList.class, "API");
+
+        addIndex(API_ID_INDEX, api -> specKeys(api, APISpec::getApiId));
+        addIndex(API_NAME_INDEX, api -> specKeys(api, APISpec::getApiName));
+        addIndex(API_NAME_VERSION_INDEX,
+                 api -> specKeys(api, spec -> nameVersionKey(spec.getApiName(), spec.getApiVersion())));
+    }
+
+    public Optional<API> findByApiId(final String apiId) {
+        return findByIndex(API_ID_INDEX, apiId).stream().findFirst();
+    }
+
+    public List<API> findByApiName(final String apiName) {
+        return findByIndex(API_NAME_INDEX, apiName);
+    }
+
+    public List<API> findByApiNameAndVersion(final String apiName, final String apiVersion) {
+        return findByIndex(API_NAME_VERSION_INDEX, nameVersionKey(apiName, apiVersion));
+    }
+
+    private static String nameVersionKey(final String apiName, final String apiVersion) {
+        if (apiName == null || apiVersion == null) {
+            return null;
+        }
+        return apiName + "+" + apiVersion;
+    }
+
+    private static List<String> specKeys(final API api, final Function<APISpec, String> keyFunction) {
+        final var spec = api.getSpec();
+        if (spec == null) {
+            return List.of();
+        }
+        final var key = keyFunction.apply(spec);
+        return key == null ? List.of() : List.of(key);
     }
 
     public static void setSupplierFunction(Supplier<APIs> supplierFunction) {
@@ -0,0 +1,865 @@
+package com.oracle.k8sedit;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.flogger.FluentLogger;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.LabelSelector;
+import io.fabric8.kubernetes.api.model.ListOptions;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+
+/**
+ * Caches the resources of one kind with informers and serves reads from that cache, with this process' own writes
+ * applied on top. Covers recovery of failed informers, health, metrics and snapshot files for all repositories, typed
+ * ones through {@link AbstractCRDRepository} and generic ones through {@link GenericResourceRepository}.
+ * <p>
+ * The repository composes the reads and delegates the rest: {@link InformerHandlers} holds the informers,
+ * {@link InformerSupervisor} starts and recovers them, {@link StoredState} serves the snapshot file or a resumed watch
+ * while they can't, {@link SnapshotWriter} writes the snapshot file and {@link ResourceWriter} sends the writes.
+ *
+ * @param <T> the binding class of the resource
+ * @param <L> the binding list class of the resource
+ * @param <H> the handler running the informer of a namespace, or of all namespaces
+ */
+public abstract class AbstractResourceRepository<T extends HasMetadata, L extends KubernetesResourceList<T>,
+        H extends InformerResourceHandler<T, L, Resource<T>>> {
+    private static final FluentLogger log = FluentLogger.forEnclosingClass();
+
+    /**
+     * Default number of requests a bulk operation keeps in flight
+     */
+    public static final int DEFAULT_BULK_CONCURRENCY = 16;
+
+    /**
+     * How {@link #updateResourceInNamespace(HasMetadata, String, UpdateMode)} sends the update to the apiserver
+     */
+    public enum UpdateMode {
+        /**
+         * Send the full object with create-or-replace
+         */
+        CREATE_OR_REPLACE,
+        /**
+         * Diff against the cached copy and send only the changed fields as JSON merge patch, skipping the call if
+         * nothing changed
+         */
+        MERGE_PATCH
+    }
+
+    protected final Class<T> resourceClass;
+    private final String kind;
+    private final RepositoryScope scope;
+    private final String name;
+    private final ReadYourWritesOverlay<T> overlay = new ReadYourWritesOverlay<>();
+    /**
+     * Handlers registered through the repository, also notified of the resumed watch's changes
+     */
+    private final List<ResourceEventHandler<T>> eventHandlers = new CopyOnWriteArrayList<>();
+    /**
+     * The only handler registered on the informers, so adding a repository handler doesn't replay the cache to it
+     */
+    private final InformerEventDispatcher<T> dispatcher = new InformerEventDispatcher<>(eventHandlers);
+    private final RepositoryHealth<T> health = new RepositoryHealth<>(this);
+    private final RepositoryMetrics<T> metrics;
+    private final InformerHandlers<T, L, H> handlers;
+    private final InformerSupervisor<T, L, H> supervisor;
+    private final StoredState<T> stored;
+    private final ComposedSnapshots<T> snapshots = new ComposedSnapshots<>();
+    private final ResourceWriter<T, L> writer;
+    private SnapshotWriter<T> snapshotWriter;
+    private final AtomicBoolean syncStarted = new AtomicBoolean();
+
+    /**
+     * Builds a repository caching only the namespaces and resources of the provided scope. Namespace-scoped
+     * repositories run one informer per namespace and merge them behind the read methods.
+     *
+     * @param resourceClass  the binding class of the resource
+     * @param kind           the kind reported in logs, metrics and health checks
+     * @param name           the name of the repository, see {@link #getName()}
+     * @param scope          the part of the cluster to cache
+     * @param handlerFactory creates the handler of a namespace, {@code null} namespace for all of them. Also used to
+     *                       recreate failed informers.
+     */
+    protected AbstractResourceRepository(final Class<T> resourceClass,
+                                         final String kind,
+                                         final String name,
+                                         final RepositoryScope scope,
+                                         final Function<String, H> handlerFactory) {
+        this(resourceClass,
+             kind,
+             name,
+             scope,
+             handlerFactory,
+             handlerFactory,
+             SharedInformerFactoryAndK8sClientSupplier.getInstance().getRecoveryPolicy());
+        final var factoryAndK8sClientSupplier = SharedInformerFactoryAndK8sClientSupplier.getInstance();
+        factoryAndK8sClientSupplier.getSnapshotDirectory()
+                .ifPresent(directory -> enableSnapshots(
+                        new ResourceSnapshotStore<>(directory.resolve(name + ".snapshot"),
+                                                    resourceClass),
+                        factoryAndK8sClientSupplier.getSnapshotInterval()));
+    }
+
+    /**
+     * Builds a repository on top of an existing resource handler, without the shared client and executor. For unit
+     * testing and benchmarks with in-memory informers.
+     *
+     * @param resourceClass   the binding class of the resource
+     * @param resourceHandler the resource handler
+     */
+    protected AbstractResourceRepository(final Class<T> resourceClass, final H resourceHandler) {
+        this(resourceClass,
+             resourceClass.getSimpleName(),
+             resourceClass.getSimpleName() + "-" + RepositoryScope.cluster().getId(),
+             RepositoryScope.cluster(),
+             namespace -> resourceHandler,
+             null,
+             RecoveryPolicy.defaults());
+    }
+
+    private AbstractResourceRepository(final Class<T> resourceClass,
+                                       final String kind,
+                                       final String name,
+                                       final RepositoryScope scope,
+                                       final Function<String, H> createHandler,
+                                       final Function<String, H> handlerFactory,
+                                       final RecoveryPolicy recoveryPolicy) {
+        this.resourceClass = resourceClass;
+        this.kind = kind;
+        this.scope = scope;
+        this.name = name;
+        if (scope.isAllNamespaces()) {
+            handlers = new InformerHandlers<>(createHandler.apply(null), dispatcher);
+        } else {
+            final Map<String, H> byNamespace = new LinkedHashMap<>();
+            scope.getNamespaces().forEach(namespace -> byNamespace.put(namespace, createHandler.apply(namespace)));
+            handlers = new InformerHandlers<>(byNamespace, dispatcher);
+            log.atInfo().log("%s repository scoped to %s", kind, scope);
+        }
+        eventHandlers.add(overlay);
+        metrics = new RepositoryMetrics<>(kind, name, this::cachedResourceCount);
+        overlay.setLagListener(metrics::recordOwnWriteLag);
+        overlay.setCacheLookup(this::cachedResource);
+        addEventHandler(metrics);
+        addEventHandler(health);
+        stored = new StoredState<>(kind, metrics, dispatcher, handlers::isReady);
+        supervisor = new InformerSupervisor<>(kind,
+                                              handlers,
+                                              dispatcher,
+                                              metrics,
+                                              health,
+                                              handlerFactory,
+                                              recoveryPolicy,
+                                              () -> stored.serveLastKnownState(handlers.peekResources(), lastSync()),
+                                              this::recoveryExhausted);
+        writer = new ResourceWriter<>(kind,
+                                      () -> handlers.primary().getResourceClient(),
+                                      overlay,
+                                      metrics,
+                                      (namespace, resourceName) -> getResourceInNamespace(resourceName, namespace)
+                                              .orElse(null));
+    }
+
+    /**
+     * Starts the sync if needed. Doesn't block, the informers complete the returned future once they listed their
+     * resources.
+     *
+     * @return a future completing when all informers synced, or failing after {@code SYNC_WAIT_TIME_SEC}
+     */
+    public CompletableFuture<Void> startSync() {
+        startSyncIfNeeded();
+
+        return CompletableFuture.allOf(handlers.all().stream()
+                                               .map(InformerResourceHandler::whenSynced)
+                                               .toArray(CompletableFuture[]::new))
+                .orTimeout(InformerResourceHandler.SYNC_WAIT_TIME_SEC, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts the informers, or resumes the stored watch, on the first call. Safe to call from concurrent readers, only
+     * one of them starts the sync. The repository only joins the health checks from here on, once it is fully built
+     * and has something to report.
+     */
+    protected void startSyncIfNeeded() {
+        if (syncStarted.get() || !syncStarted.compareAndSet(false, true)) {
+            return;
+        }
+        if (!supervisor.isShutdown()) {
+            RepositoryHealthChecks.register(health);
+        }
+        if (stored.isResumable() && handlers.byNamespace().isEmpty()) {
+            try {
+                SharedInformerFactoryAndK8sClientSupplier.getInstance().getExecutorService().execute(() -> {
+                    if (!stored.resume(handlers.indexFunctions(),
+                                       eventHandlers,
+                                       this::openWatch,
+                                       supervisor::startInformers)) {
+                        supervisor.startInformers();
+                    }
+                });
+            } catch (final RejectedExecutionException e) {
+                log.atWarning().log("Executor saturated, listing %s instead of resuming the stored watch", kind);
+                supervisor.startInformers();
+            }
+        } else {
+            supervisor.startInformers();
+        }
+        log.atInfo().log("%s sync started", kind);
+    }
+
+    private Watch openWatch(final ListOptions options, final Watcher<T> watcher) {
+        FilterWatchListDeletable<T, L> operation = handlers.primary().getResourceClient().inAnyNamespace();
+        if (scope.getLabelSelector() != null) {
+            operation = operation.withLabelSelector(scope.getLabelSelector());
+        }
+        if (!scope.getFields().isEmpty()) {
+            operation = operation.withFields(scope.getFields());
+        }
+        return operation.watch(options, ResourceCompactor.compacting(watcher));
+    }
+
+    /**
+     * Called once the informers failed the recovery policy's attempts in a row. Runs the shared informer failure
+     * action, which exits the process by default.
+     */
+    protected void recoveryExhausted() {
+        InformerResourceHandler.escalateFailure();
+    }
+
+    /**
+     * Recovers the informers that have been without a watch for longer than
+     * {@link InformerResourceHandler#SYNC_WAIT_TIME_SEC}, without waiting for a reader to time out on them. Called
+     * periodically by the health refresh.
+     */
+    void checkInformers() {
+        if (syncStarted.get()) {
+            supervisor.checkInformers();
+        }
+    }
+
+    /**
+     * Stops the informers, the resumed watch and the snapshot writes, and removes the repository from the health
+     * checks. The repository can't serve reads afterwards.
+     */
+    public void shutdown() {
+        if (!supervisor.shutdown()) {
+            return;
+        }
+        stored.stop();
+        if (snapshotWriter != null) {
+            snapshotWriter.stop();
+        }
+        RepositoryHealthChecks.unregister(health);
+        metrics.close();
+        handlers.all().forEach(handler -> handler.getResourceInformer().stop());
+        log.atInfo().log("%s repository shut down", kind);
+    }
+
+    /**
+     * @return whether a failed informer is waiting to be restarted
+     */
+    boolean isRecovering() {
+        return supervisor.isRecovering();
+    }
+
+    /**
+     * Number of cached resources in the namespace for the cache size gauges. Scrapes must not block on an informer
+     * that isn't ready, so this is {@code 0} until there is something to serve.
+     */
+    private int cachedResourceCount(final String namespace) {
+        if (stored.current() == null && !handlers.isReady()) {
+            return 0;
+        }
+        return getSnapshot().getResources(namespace).size();
+    }
+
+    /**
+     * Number of cached resources in all namespaces for the health checks, {@code 0} until there is something to serve
+     */
+    int cachedResourceCount() {
+        if (stored.current() == null && !handlers.isReady()) {
+            return 0;
+        }
+        return getSnapshot().size();
+    }
+
+    /**
+     * Loads the resources of the last snapshot file, to be served as stale data until the informers are ready, and
+     * writes a new snapshot every {@code interval} once they are. Has to be called before the sync is started.
+     *
+     * @param store    the snapshot store
+     * @param interval the time between two snapshot writes
+     */
+    protected void enableSnapshots(final ResourceSnapshotStore<T> store, final Duration interval) {
+        store.read().ifPresent(stored::load);
+        snapshotWriter = new SnapshotWriter<>(kind,
+                                              store,
+                                              () -> stored.isResumed() || handlers.isReady(),
+                                              this::lastSync,
+                                              this::getSnapshot);
+        snapshotWriter.start(interval);
+    }
+
+    /**
+     * @return whether reads are currently served from a snapshot file because the informers aren't ready yet
+     */
+    public boolean isStale() {
+        return stored.isStale();
+    }
+
+    boolean isSyncStarted() {
+        return syncStarted.get();
+    }
+
+    boolean isResumed() {
+        return stored.isResumed();
+    }
+
+    boolean informersRunning() {
+        return handlers.allMatch(handler -> handler.getResourceInformer().isRunning());
+    }
+
+    boolean informersSynced() {
+        return handlers.allMatch(handler -> handler.getResourceInformer().hasSynced());
+    }
+
+    boolean informersWatching() {
+        return handlers.allMatch(handler -> handler.getResourceInformer().isWatching());
+    }
+
+    /**
+     * @return when the data served while {@link #isStale()} was current
+     */
+    Instant getStaleSince() {
+        return stored.getStaleSince();
+    }
+
+    /**
+     * Like {@link #whenReady()}, but completes right away while a stored snapshot can be served
+     *
+     * @return a future completing when the repository can serve reads, possibly stale ones
+     * @see #isStale()
+     */
+    public CompletableFuture<Void> whenReadable() {
+        startSyncIfNeeded();
+        return isStale() ? CompletableFuture.completedFuture(null) : whenReady();
+    }
+
+    /**
+     * Returns a future that completes once the informer has synced and is watching. Doesn't block, so request handlers
+     * can chain on it instead of parking a thread.
+     *
+     * @return a future completing when the repository is ready to serve reads
+     */
+    public CompletableFuture<Void> whenReady() {
+        startSyncIfNeeded();
+        return stored.whenReady(handlers.whenReady());
+    }
+
+    /**
+     * Registers an ADDED/MODIFIED/DELETED event handler on the repository's informer. The handler only receives the
+     * changes made after it was added, the resources already cached aren't replayed to it.
+     *
+     * @param handler the handler instance
+     */
+    public void addEventHandler(final ResourceEventHandler<T> handler) {
+        eventHandlers.add(handler);
+    }
+
+    /**
+     * Stops notifying a handler registered through {@link #addEventHandler(ResourceEventHandler)}
+     *
+     * @param handler the handler instance
+     */
+    public void removeEventHandler(final ResourceEventHandler<T> handler) {
+        eventHandlers.remove(handler);
+    }
+
+    public RepositoryScope getScope() {
+        return scope;
+    }
+
+    /**
+     * @return the kind and the id of the scope, e.g. {@code API-1f3a5c7e9b0d}, unique among the repositories of a process
+     * as long as each kind and scope is only cached once
+     */
+    public String getName() {
+        return name;
+    }
+
+    public Optional<T> getResourceInNamespace(final String resourceName, final String namespace) {
+        final  T resourceByName = overlay.resolve(namespace, resourceName, cachedResource(namespace, resourceName));
+        if (null == resourceByName) {
+            return Optional.empty();
+        } else {
+            return Optional.of(resourceByName);
+        }
+    }
+
+    public List<T> getResourcesInNamespace(final String namespace) {
+        final var stale = stored.current();
+        if (stale != null) {
+            return overlay.resolve(stale.getResources(namespace), namespace);
+        }
+        final var handler = handlers.caching(namespace);
+        return overlay.resolve(handler == null ? List.of() : handler.getResources(namespace), namespace);
+    }
+
+    public List<T> getResourcesInAllNamespaces() {
+        return overlay.resolve(getSnapshot().getResources(), null);
+    }
+
+    /**
+     * Finds resources in all namespaces matching a label selector, evaluated against the informer's label index
+     *
+     * @param selector the label selector, {@code null} matches all resources
+     * @return the matching resources ordered by namespace and name, including this process' own writes the informer
+     * hasn't delivered yet
+     */
+    public List<T> getResourcesBySelector(final LabelSelector selector) {
+        final Predicate<T> matches = resource -> LabelSelectors.matches(selector, resource.getMetadata().getLabels());
+        return overlay.resolve(select(selector, matches), null, matches, this::cachedResource);
+    }
+
+    /**
+     * Reads from a snapshot the caller already holds, so that a response and the snapshot version it reports describe
+     * the same state. A label selector is evaluated against the label index, the matching resources are then taken from
+     * the snapshot.
+     *
+     * @param snapshot  a snapshot returned by {@link #getSnapshot()}
+     * @param namespace the namespace to filter for, {@code null} for all namespaces
+     * @param selector  the label selector, {@code null} matches all resources
+     * @return the resources ordered by namespace and name, including this process' own writes the informer hasn't
+     * delivered yet
+     */
+    List<T> getResources(final ResourceSnapshot<T> snapshot, final String namespace, final LabelSelector selector) {
+        if (LabelSelectors.isEmpty(selector)) {
+            return overlay.resolve(namespace == null ? snapshot.getResources() : snapshot.getResources(namespace),
+                                   namespace);
+        }
+        final Predicate<T> matches = resource -> LabelSelectors.matches(selector, resource.getMetadata().getLabels());
+        final List<T> resources = new ArrayList<>();
+        for (final T candidate : select(selector, matches)) {
+            final var metadata = candidate.getMetadata();
+            if (namespace == null || namespace.equals(metadata.getNamespace())) {
+                snapshot.find(metadata.getNamespace(), metadata.getName()).filter(matches).ifPresent(resources::add);
+            }
+        }
+        return overlay.resolve(Collections.unmodifiableList(resources),
+                               namespace,
+                               matches,
+                               (resourceNamespace, name) -> snapshot.find(resourceNamespace, name).orElse(null));
+    }
+
+    /**
+     * Finds resources through a secondary index declared with {@link #addIndex(String, Function)}
+     *
+     * @param indexName the name of the index
+     * @param key       the index key
+     * @return the matching resources ordered by namespace and name, including this process' own writes the informer
+     * hasn't delivered yet. Empty if none matched.
+     */
+    public List<T> findByIndex(final String indexName, final String key) {
+        final var indexFunction = handlers.indexFunction(indexName);
+        if (indexFunction == null) {
+            return handlers.collect(handler -> handler.getResourcesByIndex(indexName, key));
+        }
+        final Predicate<T> matches = resource -> indexFunction.apply(resource).contains(key);
+        final var watch = stored.watch();
+        final List<T> resources;
+        if (watch != null) {
+            resources = ResourceSnapshot.sortedCopy(watch.byIndex(indexName, key));
+        } else {
+            final var stale = stored.current();
+            resources = stale != null
+                    ? scan(stale, matches)
+                    : handlers.collect(handler -> handler.getResourcesByIndex(indexName, key));
+        }
+        return overlay.resolve(resources, null, matches, this::cachedResource);
+    }
+
+    /**
+     * Declares a named secondary index that the informer keeps current. Has to be called before the sync is started,
+     * typically from the constructor of the concrete repository.
+     *
+     * @param indexName     the name of the index
+     * @param indexFunction derives the index keys of a resource
+     */
+    protected void addIndex(final String indexName, final Function<T, List<String>> indexFunction) {
+        if (syncStarted.get()) {
+            throw new IllegalStateException(String.format("Cannot add index %s to %s after the sync was started",
+                                                          indexName, kind));
+        }
+        handlers.addIndex(indexName, indexFunction);
+    }
+
+    /**
+     * @return a counter increased whenever this process' own writes change what reads return, on top of the snapshot
+     */
+    long getOverlayVersion() {
+        return overlay.getVersion();
+    }
+
+    /**
+     * @return the number of resources reads return, counting this process' own writes the informer hasn't delivered
+     * yet. Doesn't resolve the list.
+     */
+    public int getResourceCount() {
+        return getSnapshot().size() + overlay.getCountDelta();
+    }
+
+    /**
+     * Returns the latest immutable, versioned snapshot of the cached resources. Cheap to call repeatedly; the informers'
+     * events keep their snapshots current. Versions are counted by the repository, so they keep
+     * increasing when an informer is recreated or the stored snapshot is replaced by the informers.
+     *
+     * @return the {@link ResourceSnapshot}
+     */
+    public ResourceSnapshot<T> getSnapshot() {
+        final var stale = stored.current();
+        return snapshots.of(stale != null ? List.of(stale) : handlers.snapshots());
+    }
+
+    /**
+     * Returns the resource version of the last sync. For namespace-scoped repositories, the most recent version
+     * among the namespace informers.
+     *
+     * @return the resource version, {@code null} before the first sync
+     */
+    public String lastSync() {
+        final var storedVersion = stored.lastSync();
+        return storedVersion != null ? storedVersion : handlers.lastSync();
+    }
+
+    public boolean isHealthy() {
+        if (stored.isResumed()) {
+            return true;
+        }
+        return handlers.allMatch(handler -> {
+            final var resourceInformer = handler.getResourceInformer();
+            return resourceInformer.isRunning() && resourceInformer.hasSynced() && resourceInformer.isWatching();
+        });
+    }
+
+    public boolean isReady() {
+        return isHealthy();
+    }
+
+    /**
+     * @return the kind of the cached resources
+     */
+    public String getSimpleResourceName() {
+        return kind;
+    }
+
+
+
+    public T createResourceInNamespace(final T resource, final String namespace) {
+        return writer.run("create", resource, namespace, writer::create);
+    }
+
+    /**
+     * Creates the resources in the namespace, keeping up to {@link #DEFAULT_BULK_CONCURRENCY} requests in flight
+     *
+     * @param resources the resources to create
+     * @param namespace the target namespace
+     * @return one result per resource, in the order of the provided collection
+     */
+    public List<ResourceOperationResult<T>> createResourcesInNamespace(final Collection<T> resources,
+                                                                       final String namespace) {
+        return createResourcesInNamespace(resources, namespace, DEFAULT_BULK_CONCURRENCY);
+    }
+
+    /**
+     * Creates the resources in the namespace with bounded concurrency. Failures are reported per item instead of
+     * aborting the whole batch.
+     *
+     * @param resources      the resources to create
+     * @param namespace      the target namespace
+     * @param maxConcurrency the maximum number of requests in flight
+     * @return one result per resource, in the order of the provided collection
+     */
+    public List<ResourceOperationResult<T>> createResourcesInNamespace(final Collection<T> resources,
+                                                                       final String namespace,
+                                                                       final int maxConcurrency) {
+        return writer.runBulk(resources, namespace, maxConcurrency, writer::create);
+    }
+
+    /**
+     * Same as {@link #createResourcesInNamespace(Collection, String, int)}, without blocking the caller
+     *
+     * @return a future completing with one result per resource, in the order of the provided collection
+     */
+    public CompletableFuture<List<ResourceOperationResult<T>>> createResourcesInNamespaceAsync(
+            final Collection<T> resources, final String namespace, final int maxConcurrency) {
+        return writer.runBulkAsync(resources, namespace, maxConcurrency, writer::create);
+    }
+
+    public T updateResourceInNamespace(final T resource, final String namespace) {
+        return writer.run("update", resource, namespace, writer::update);
+    }
+
+    /**
+     * Updates the resource in the namespace using the provided {@link UpdateMode}
+     *
+     * @param resource  the desired resource
+     * @param namespace the target namespace
+     * @param mode      how to send the update
+     * @return the resource as stored by the apiserver, or the cached copy if a patch was not needed
+     */
+    public T updateResourceInNamespace(final T resource, final String namespace, final UpdateMode mode) {
+        if (mode == UpdateMode.CREATE_OR_REPLACE) {
+            return updateResourceInNamespace(resource, namespace);
+        }
+        return writer.run("patch", resource, namespace, writer::patch);
+    }
+
+    /**
+     * Creates or replaces the resources in the namespace, keeping up to {@link #DEFAULT_BULK_CONCURRENCY} requests in
+     * flight
+     *
+     * @param resources the resources to update
+     * @param namespace the target namespace
+     * @return one result per resource, in the order of the provided collection
+     */
+    public List<ResourceOperationResult<T>> updateResourcesInNamespace(final Collection<T> resources,
+                                                                       final String namespace) {
+        return updateResourcesInNamespace(resources, namespace, DEFAULT_BULK_CONCURRENCY);
+    }
+
+    /**
+     * Creates or replaces the resources in the namespace with bounded concurrency. Failures are reported per item
+     * instead of aborting the whole batch.
+     *
+     * @param resources      the resources to update
+     * @param namespace      the target namespace
+     * @param maxConcurrency the maximum number of requests in flight
+     * @return one result per resource, in the order of the provided collection
+     */
+    public List<ResourceOperationResult<T>> updateResourcesInNamespace(final Collection<T> resources,
+                                                                       final String namespace,
+                                                                       final int maxConcurrency) {
+        return writer.runBulk(resources, namespace, maxConcurrency, writer::update);
+    }
+
+    /**
+     * Same as {@link #updateResourcesInNamespace(Collection, String, int)}, without blocking the caller
+     *
+     * @return a future completing with one result per resource, in the order of the provided collection
+     */
+    public CompletableFuture<List<ResourceOperationResult<T>>> updateResourcesInNamespaceAsync(
+            final Collection<T> resources, final String namespace, final int maxConcurrency) {
+        return writer.runBulkAsync(resources, namespace, maxConcurrency, writer::update);
+    }
+
+    /**
+     * Sends the changed fields of the resources as JSON merge patches with bounded concurrency, see
+     * {@link UpdateMode#MERGE_PATCH}. Failures are reported per item instead of aborting the whole batch.
+     *
+     * @param resources      the desired resources
+     * @param namespace      the target namespace
+     * @param maxConcurrency the maximum number of requests in flight
+     * @return one result per resource, in the order of the provided collection
+     */
+    public List<ResourceOperationResult<T>> patchResourcesInNamespace(final Collection<T> resources,
+                                                                      final String namespace,
+                                                                      final int maxConcurrency) {
+        return writer.runBulk(resources, namespace, maxConcurrency, writer::patch);
+    }
+
+    /**
+     * Same as {@link #patchResourcesInNamespace(Collection, String, int)}, without blocking the caller
+     *
+     * @return a future completing with one result per resource, in the order of the provided collection
+     */
+    public CompletableFuture<List<ResourceOperationResult<T>>> patchResourcesInNamespaceAsync(
+            final Collection<T> resources, final String namespace, final int maxConcurrency) {
+        return writer.runBulkAsync(resources, namespace, maxConcurrency, writer::patch);
+    }
+
+    /**
+     * Sends merge patches computed beforehand with bounded concurrency, without diffing against the cache again. Each
+     * patch has to carry the resourceVersion it was computed against, so it fails with a conflict if the resource
+     * changed since. Failures are reported per item instead of aborting the whole batch.
+     *
+     * @param resources      the resources the patches were computed for
+     * @param patches        the patches by resource name
+     * @param namespace      the target namespace
+     * @param maxConcurrency the maximum number of requests in flight
+     * @return one result per resource, in the order of the provided collection
+     */
+    List<ResourceOperationResult<T>> sendPatchesInNamespace(final Collection<T> resources,
+                                                            final Map<String, ObjectNode> patches,
+                                                            final String namespace,
+                                                            final int maxConcurrency) {
+        return writer.runBulk(resources, namespace, maxConcurrency, (resource, ns) -> {
+            final var name = getMetadata(resource).getName();
+            return writer.sendPatch(name, patches.get(name), ns);
+        });
+    }
+
+    /**
+     * Deletes the resources in the namespace with bounded concurrency. Resources that are already gone count as
+     * deleted.
+     *
+     * @param resources      the resources to delete
+     * @param namespace      the namespace of the resources
+     * @param maxConcurrency the maximum number of requests in flight
+     * @return one result per resource, in the order of the provided collection
+     */
+    public List<ResourceOperationResult<T>> deleteResourcesInNamespace(final Collection<T> resources,
+                                                                       final String namespace,
+                                                                       final int maxConcurrency) {
+        return writer.runBulk(resources, namespace, maxConcurrency, writer::deleted);
+    }
+
+    /**
+     * Same as {@link #deleteResourcesInNamespace(Collection, String, int)}, without blocking the caller
+     *
+     * @return a future completing with one result per resource, in the order of the provided collection
+     */
+    public CompletableFuture<List<ResourceOperationResult<T>>> deleteResourcesInNamespaceAsync(
+            final Collection<T> resources, final String namespace, final int maxConcurrency) {
+        return writer.runBulkAsync(resources, namespace, maxConcurrency, writer::deleted);
+    }
+
+    /**
+     * Replace the resource in the  namespace
+     *
+     * @param resource
+     * @return
+     */
+    public T replaceResourceInNamespace(final T resource, final String namespace) {
+        return writer.run("replace", resource, namespace, writer::replace);
+    }
+
+    /**
+     * Delete the resource in the  namespace
+     *
+     * @param name
+     * @return
+     */
+    public boolean deleteResourceInNamespace(final String name, final String namespace ) {
+
+        startSyncIfNeeded();
+        final var resource = getResourceInNamespace(name, namespace);
+        if (resource.isEmpty()) {
+            return false;
+        } else {
+            return deleteResourceInNamespace(resource.get(),namespace);
+        }
+    }
+
+    /**
+     * Delete the resource in the  namespace
+     *
+     * @param resource resource to be Delete
+     * @return
+     */
+    public boolean deleteResourceInNamespace(final T resource, final String namespace) {
+        return writer.run("delete", resource, namespace, writer::delete);
+    }
+
+    public ObjectMeta getMetadata(final T resource) {
+        return ResourceWriter.metadata(resource);
+    }
+
+    public String convertStringToDNS1123(final String str, final Class<T> clazz) {
+        return DNS1123NameGenerator.forSubdomains().generate(str, clazz);
+    }
+
+    /**
+     * Converts the string into a DNS-1123 name that isn't used by a resource in the namespace yet, according to the
+     * informer cache. Collisions are resolved with numeric suffixes.
+     *
+     * @param str       the string to convert
+     * @param namespace the namespace the resource will be created in
+     * @return the unique name
+     */
+    public String generateUniqueName(final String str, final String namespace) {
+        return DNS1123NameGenerator.forSubdomains()
+                .generateUnique(str, resourceClass, name -> getResourceInNamespace(name, namespace).isPresent());
+    }
+
+    /**
+     * Batch variant of {@link #generateUniqueName(String, String)}, names are also unique within the batch
+     *
+     * @param strings   the strings to convert
+     * @param namespace the namespace the resources will be created in
+     * @return the unique names, in the order of the provided strings
+     */
+    public List<String> generateUniqueNames(final Collection<String> strings, final String namespace) {
+        return DNS1123NameGenerator.forSubdomains()
+                .generateUnique(strings, resourceClass, name -> getResourceInNamespace(name, namespace).isPresent());
+    }
+
+    // For unit testing
+    public void setResourceHandler(H resourceHandler) {
+        handlers.reset(resourceHandler);
+    }
+
+    // For benchmarks
+    H getResourceHandler() {
+        return handlers.primary();
+    }
+
+    /**
+     * @return the cached copy of a resource, without the overlay
+     */
+    private T cachedResource(final String namespace, final String name) {
+        final var stale = stored.current();
+        if (stale != null) {
+            return stale.find(namespace, name).orElse(null);
+        }
+        return handlers.cached(namespace, name);
+    }
+
+    /**
+     * Looks up a label selector in the label index, or scans the stored snapshot while it is served
+     *
+     * @return the matching resources ordered by namespace and name, without this process' own writes
+     */
+    private List<T> select(final LabelSelector selector, final Predicate<T> matches) {
+        final var watch = stored.watch();
+        if (watch != null) {
+            return ResourceSnapshot.sortedCopy(watch.select(selector));
+        }
+        final var stale = stored.current();
+        return stale != null
+                ? scan(stale, matches)
+                : handlers.collect(handler -> handler.getResourcesBySelector(selector));
+    }
+
+    private List<T> scan(final ResourceSnapshot<T> snapshot, final Predicate<T> filter) {
+        final List<T> resources = new ArrayList<>();
+        for (final T resource : snapshot.getResources()) {
+            if (filter.test(resource)) {
+                resources.add(resource);
+            }
+        }
+        return Collections.unmodifiableList(resources);
+    }
+}
@@ -0,0 +1,144 @@
+package com.oracle.k8sedit;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * The changes needed to bring a namespace to a desired set of resources, as computed by {@link DesiredStateDiff}. A
+ * plan that hasn't been executed is the result of a dry run.
+ *
+ * @param <T> the binding class of the resource
+ */
+public final class ApplyPlan<T extends HasMetadata> {
+    public enum Action {
+        CREATE,
+        UPDATE,
+        DELETE,
+        UNCHANGED
+    }
+
+    /**
+     * A single resource of the plan
+     *
+     * @param <T> the binding class of the resource
+     */
+    public static final class Item<T extends HasMetadata> {
+        private final Action action;
+        private final T desired;
+        private final T cached;
+        private final ObjectNode patch;
+
+        Item(final Action action, final T desired, final T cached, final ObjectNode patch) {
+            this.action = action;
+            this.desired = desired;
+            this.cached = cached;
+            this.patch = patch;
+        }
+
+        public Action getAction() {
+            return action;
+        }
+
+        public String getName() {
+            return (desired != null ? desired : cached).getMetadata().getName();
+        }
+
+        /**
+         * @return the desired resource, {@code null} for deletes
+         */
+        public T getDesired() {
+            return desired;
+        }
+
+        /**
+         * @return the resource in the cache, {@code null} for creates
+         */
+        public T getCached() {
+            return cached;
+        }
+
+        /**
+         * @return the merge patch of an update, without the resourceVersion it is sent with
+         */
+        public Optional<ObjectNode> getPatch() {
+            return Optional.ofNullable(patch);
+        }
+
+        @Override
+        public String toString() {
+            return action + " " + getName() + (patch != null ? " " + patch : "");
+        }
+    }
+
+    private final String namespace;
+    private final List<Item<T>> items;
+    private final List<ResourceOperationResult<T>> results;
+
+    ApplyPlan(final String namespace, final List<Item<T>> items, final List<ResourceOperationResult<T>> results) {
+        this.namespace = namespace;
+        this.items = List.copyOf(items);
+        this.results = results;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * @return all items, desired resources in the order they were provided followed by the deletes
+     */
+    public List<Item<T>> getItems() {
+        return items;
+    }
+
+    /**
+     * @param action the action
+     * @return the items with the action
+     */
+    public List<Item<T>> getItems(final Action action) {
+        return items.stream().filter(item -> item.action == action).collect(Collectors.toList());
+    }
+
+    /**
+     * @return whether executing the plan would send any request
+     */
+    public boolean hasChanges() {
+        return items.stream().anyMatch(item -> item.action != Action.UNCHANGED);
+    }
+
+    /**
+     * @return whether the plan was executed, {@code false} for dry runs
+     */
+    public boolean isExecuted() {
+        return results != null;
+    }
+
+    /**
+     * @return the results of the creates, updates and deletes in that order, empty for dry runs
+     */
+    public List<ResourceOperationResult<T>> getResults() {
+        return results == null ? List.of() : results;
+    }
+
+    ApplyPlan<T> executed(final List<ResourceOperationResult<T>> results) {
+        return new ApplyPlan<>(namespace, items, List.copyOf(results));
+    }
+
+    @Override
+    public String toString() {
+        return "ApplyPlan{" +
+               "namespace=" + namespace +
+               ", create=" + getItems(Action.CREATE).size() +
+               ", update=" + getItems(Action.UPDATE).size() +
+               ", delete=" + getItems(Action.DELETE).size() +
+               ", unchanged=" + getItems(Action.UNCHANGED).size() +
+               (results != null
+                ? ", failed=" + results.stream().filter(result -> !result.isSuccess()).count()
+                : ", dryRun") +
+               '}';
+    }
+}
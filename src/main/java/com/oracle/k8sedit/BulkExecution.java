@@ -0,0 +1,105 @@
+package com.oracle.k8sedit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+
+/**
+ * Runs an operation per resource over an executor, keeping up to a fixed number of them in flight. Every finished
+ * operation submits the next one, so neither the submitting thread nor the executor's threads wait for a free slot.
+ *
+ * @param <T> the binding class of the resource
+ */
+final class BulkExecution<T> {
+    private final List<T> resources;
+    private final String namespace;
+    private final BiFunction<T, String, T> operation;
+    private final Executor executor;
+    private final AtomicReferenceArray<ResourceOperationResult<T>> results;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger remaining;
+    private final CompletableFuture<List<ResourceOperationResult<T>>> done = new CompletableFuture<>();
+
+    private BulkExecution(final Collection<T> resources,
+                          final String namespace,
+                          final BiFunction<T, String, T> operation,
+                          final Executor executor) {
+        this.resources = new ArrayList<>(resources);
+        this.namespace = namespace;
+        this.operation = operation;
+        this.executor = executor;
+        this.results = new AtomicReferenceArray<>(this.resources.size());
+        this.remaining = new AtomicInteger(this.resources.size());
+    }
+
+    /**
+     * Starts the operations and returns right away. Resources the executor rejects fail with the
+     * {@link RejectedExecutionException}.
+     *
+     * @param resources      the resources to run the operation on
+     * @param namespace      the namespace passed to the operation
+     * @param maxConcurrency the maximum number of operations in flight
+     * @param operation      the operation, returning the resource as stored by the apiserver
+     * @param executor       runs the operations
+     * @return a future completing with one result per resource, in the order of the provided collection
+     */
+    static <T> CompletableFuture<List<ResourceOperationResult<T>>> run(final Collection<T> resources,
+                                                                        final String namespace,
+                                                                        final int maxConcurrency,
+                                                                        final BiFunction<T, String, T> operation,
+                                                                        final Executor executor) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1, was " + maxConcurrency);
+        }
+        final var execution = new BulkExecution<>(resources, namespace, operation, executor);
+        if (execution.resources.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        for (int i = 0; i < Math.min(maxConcurrency, execution.resources.size()); i++) {
+            execution.submitNext();
+        }
+        return execution.done;
+    }
+
+    private void submitNext() {
+        int index;
+        while ((index = next.getAndIncrement()) < resources.size()) {
+            final int current = index;
+            try {
+                executor.execute(() -> runAt(current));
+                return;
+            } catch (final RejectedExecutionException e) {
+                complete(current, ResourceOperationResult.failure(resources.get(current), e));
+            }
+        }
+    }
+
+    private void runAt(final int index) {
+        final var resource = resources.get(index);
+        ResourceOperationResult<T> result;
+        try {
+            result = ResourceOperationResult.success(resource, operation.apply(resource, namespace));
+        } catch (final Exception e) {
+            result = ResourceOperationResult.failure(resource, e);
+        }
+        complete(index, result);
+        submitNext();
+    }
+
+    private void complete(final int index, final ResourceOperationResult<T> result) {
+        results.set(index, result);
+        if (remaining.decrementAndGet() == 0) {
+            final List<ResourceOperationResult<T>> ordered = new ArrayList<>(results.length());
+            for (int i = 0; i < results.length(); i++) {
+                ordered.add(results.get(i));
+            }
+            done.complete(ordered);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.oracle.k8sedit;
+
+import io.fabric8.kubernetes.client.KubernetesClientException;
+
+import java.net.HttpURLConnection;
+
+/**
+ * Thrown by reads of an informer cache that hasn't listed its resources yet. Reads don't wait for the informer;
+ * callers that want to wait chain on {@code whenReady()} or {@code whenReadable()} instead.
+ */
+public class CacheNotReadyException extends KubernetesClientException {
+    public CacheNotReadyException(final String message) {
+        super(message, HttpURLConnection.HTTP_UNAVAILABLE, null);
+    }
+}
@@ -0,0 +1,69 @@
+package com.oracle.k8sedit;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds the snapshots a repository returns from those of its informers, or of its stored state. Rebuilds only when a
+ * source changed, and numbers the snapshots itself: versions of the sources restart with a recreated informer or the
+ * stored snapshot, so their own versions could stand for two different states.
+ *
+ * @param <T> the binding class of the resource
+ */
+final class ComposedSnapshots<T extends HasMetadata> {
+    private final AtomicLong version = new AtomicLong();
+    /**
+     * The snapshot last returned by {@link #of(List)}, with the snapshots it was built from
+     */
+    private volatile Composed<T> last;
+
+    /**
+     * @param sources the current snapshots of the informers, or the stored snapshot
+     * @return the snapshot last returned if it was built from the same sources, a new one otherwise
+     */
+    ResourceSnapshot<T> of(final List<ResourceSnapshot<T>> sources) {
+        final var composed = last;
+        if (composed != null && composed.isBuiltFrom(sources)) {
+            return composed.snapshot;
+        }
+        final long next = version.incrementAndGet();
+        final ResourceSnapshot<T> snapshot;
+        if (sources.size() == 1) {
+            snapshot = sources.get(0).withVersion(next);
+        } else {
+            final List<T> resources = new ArrayList<>();
+            sources.forEach(source -> resources.addAll(source.getResources()));
+            snapshot = ResourceSnapshot.of(next, resources);
+        }
+        last = new Composed<>(sources, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * A snapshot returned by the repository and the snapshots of the informers or stored state it was built from
+     */
+    private static final class Composed<T extends HasMetadata> {
+        private final List<ResourceSnapshot<T>> sources;
+        private final ResourceSnapshot<T> snapshot;
+
+        private Composed(final List<ResourceSnapshot<T>> sources, final ResourceSnapshot<T> snapshot) {
+            this.sources = sources;
+            this.snapshot = snapshot;
+        }
+
+        private boolean isBuiltFrom(final List<ResourceSnapshot<T>> current) {
+            if (current.size() != sources.size()) {
+                return false;
+            }
+            for (int i = 0; i < current.size(); i++) {
+                if (current.get(i) != sources.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.oracle.k8sedit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Generates Kubernetes resource names following RFC 1123 from arbitrary strings. Lower cases the input, turns spaces
+ * into dashes, drops all other invalid characters and collapses repeated separators in a single pass. Names that would
+ * start or end with a separator get the short type of the resource class (its upper case letters, e.g. {@code api} for
+ * {@code API}) as prefix or suffix. Strings that already are valid names are returned as is, without allocating.
+ */
+public final class DNS1123NameGenerator {
+    /**
+     * Maximum length of a DNS-1123 subdomain, the name format of most resources including custom resources
+     */
+    public static final int MAX_SUBDOMAIN_LENGTH = 253;
+
+    /**
+     * Maximum length of a DNS-1123 label, the name format of namespaces, services and label values
+     */
+    public static final int MAX_LABEL_LENGTH = 63;
+
+    private static final int MAX_UNIQUE_ATTEMPTS = 1000;
+
+    private static final DNS1123NameGenerator SUBDOMAINS = new DNS1123NameGenerator(MAX_SUBDOMAIN_LENGTH, true);
+    private static final DNS1123NameGenerator LABELS = new DNS1123NameGenerator(MAX_LABEL_LENGTH, false);
+
+    private static final ClassValue<String> SHORT_TYPES = new ClassValue<>() {
+        @Override
+        protected String computeValue(final Class<?> type) {
+            final String name = type.getName();
+            final StringBuilder builder = new StringBuilder();
+
+            for (int i = 0; i < name.length(); i++) {
+                final char c = name.charAt(i);
+                if (Character.isAlphabetic(c) && Character.isUpperCase(c)) {
+                    builder.append(Character.toLowerCase(c));
+                }
+            }
+            return builder.toString();
+        }
+    };
+
+    private final int maxLength;
+    private final boolean dotsAllowed;
+
+    private DNS1123NameGenerator(final int maxLength, final boolean dotsAllowed) {
+        this.maxLength = maxLength;
+        this.dotsAllowed = dotsAllowed;
+    }
+
+    /**
+     * @return a generator for DNS-1123 subdomains (up to 253 characters, dots allowed)
+     */
+    public static DNS1123NameGenerator forSubdomains() {
+        return SUBDOMAINS;
+    }
+
+    /**
+     * @return a generator for DNS-1123 labels (up to 63 characters, dots are turned into dashes)
+     */
+    public static DNS1123NameGenerator forLabels() {
+        return LABELS;
+    }
+
+    /**
+     * Converts the string into a valid name
+     *
+     * @param str   the string to convert
+     * @param clazz the resource class, its short type fills in for missing leading or trailing characters
+     * @return the name
+     */
+    public String generate(final String str, final Class<?> clazz) {
+        if (isValid(str)) {
+            return str;
+        }
+
+        final String shortType = SHORT_TYPES.get(clazz);
+        final StringBuilder builder = new StringBuilder(Math.min(str.length() + shortType.length(), maxLength));
+        var lastWasSeparator = false;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            } else if (c > 0x7f) {
+                c = Character.toLowerCase(c);
+            } else if (c == ' ') {
+                c = '-';
+            }
+
+            if (isAlphanumeric(c)) {
+                builder.append(c);
+                lastWasSeparator = false;
+            } else if (isSeparator(c)) {
+                if (builder.length() == 0) {
+                    builder.append(shortType);
+                }
+                if (!lastWasSeparator) {
+                    builder.append(dotsAllowed ? c : '-');
+                }
+                lastWasSeparator = true;
+            }
+            // all other characters are dropped without ending a run of separators
+        }
+
+        if (builder.length() == 0) {
+            return shortType;
+        }
+        if (lastWasSeparator) {
+            builder.append(shortType);
+        }
+        return truncate(builder, maxLength);
+    }
+
+    /**
+     * Converts a batch of strings into names. Strings converting to the same name get numeric suffixes, so the result
+     * contains no duplicates.
+     *
+     * @param strings the strings to convert
+     * @param clazz   the resource class
+     * @return the names, in the order of the provided strings
+     */
+    public List<String> generate(final Collection<String> strings, final Class<?> clazz) {
+        return generateUnique(strings, clazz, name -> false);
+    }
+
+    /**
+     * Converts the string into a name that isn't taken yet. On collision {@code -2}, {@code -3}, ... is appended,
+     * shortening the name if needed to stay within the length limit.
+     *
+     * @param str     the string to convert
+     * @param clazz   the resource class
+     * @param isTaken tells whether a name is already in use, typically backed by the informer cache
+     * @return the unique name
+     * @throws IllegalStateException if no free name was found
+     */
+    public String generateUnique(final String str, final Class<?> clazz, final Predicate<String> isTaken) {
+        final var name = generate(str, clazz);
+        if (!isTaken.test(name)) {
+            return name;
+        }
+        for (int attempt = 2; attempt <= MAX_UNIQUE_ATTEMPTS; attempt++) {
+            final var suffix = "-" + attempt;
+            final var candidate = truncate(new StringBuilder(name), maxLength - suffix.length()) + suffix;
+            if (!isTaken.test(candidate)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException(String.format("No unique name found for %s after %d attempts",
+                                                      name, MAX_UNIQUE_ATTEMPTS));
+    }
+
+    /**
+     * Batch variant of {@link #generateUnique(String, Class, Predicate)}. The names are unique against the predicate and
+     * within the batch.
+     *
+     * @param strings the strings to convert
+     * @param clazz   the resource class
+     * @param isTaken tells whether a name is already in use
+     * @return the unique names, in the order of the provided strings
+     */
+    public List<String> generateUnique(final Collection<String> strings,
+                                       final Class<?> clazz,
+                                       final Predicate<String> isTaken) {
+        final Set<String> claimed = new HashSet<>();
+        final List<String> names = new ArrayList<>(strings.size());
+        for (final var str : strings) {
+            final var name = generateUnique(str, clazz, candidate -> claimed.contains(candidate) || isTaken.test(candidate));
+            claimed.add(name);
+            names.add(name);
+        }
+        return names;
+    }
+
+    private boolean isValid(final String str) {
+        final int length = str.length();
+        if (length == 0 || length > maxLength
+            || !isAlphanumeric(str.charAt(0)) || !isAlphanumeric(str.charAt(length - 1))) {
+            return false;
+        }
+        var lastWasSeparator = false;
+        for (int i = 1; i < length - 1; i++) {
+            final char c = str.charAt(i);
+            if (isAlphanumeric(c)) {
+                lastWasSeparator = false;
+            } else if (isSeparator(c) && !lastWasSeparator && (dotsAllowed || c == '-')) {
+                lastWasSeparator = true;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cuts the name to the maximum length without leaving a separator at the end
+     */
+    private static String truncate(final StringBuilder builder, final int length) {
+        if (builder.length() > length) {
+            builder.setLength(length);
+        }
+        while (builder.length() > 1 && isSeparator(builder.charAt(builder.length() - 1))) {
+            builder.setLength(builder.length() - 1);
+        }
+        return builder.toString();
+    }
+
+    private static boolean isAlphanumeric(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isSeparator(final char c) {
+        return (c == '-' || c == '.');
+    }
+}
@@ -0,0 +1,240 @@
+package com.oracle.k8sedit;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.flogger.FluentLogger;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.LabelSelector;
+import io.fabric8.kubernetes.client.CustomResource;
+import io.fabric8.kubernetes.client.CustomResourceList;
+import io.fabric8.kubernetes.client.utils.Serialization;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Compares a desired set of resources against the informer cache of a repository and only sends what changed. Only the
+ * fields the desired resources set are compared and patched, see
+ * {@link MergePatches#diffSetFields(io.fabric8.kubernetes.api.model.HasMetadata,
+ * io.fabric8.kubernetes.api.model.HasMetadata)}, so fields added by the apiserver or controllers are left alone.
+ * Resources whose {@link MergePatches#contentHash(io.fabric8.kubernetes.api.model.HasMetadata)} is equal aren't diffed
+ * at all. Hashes of cached resources are kept per resource version for the resources the last plan of their namespace
+ * saw, so repeated syncs of a mostly unchanged set only hash the desired resources.
+ *
+ * @param <S> the spec class of the resource
+ * @param <T> the binding class of the resource
+ * @param <L> the binding list class of the resource
+ */
+public class DesiredStateDiff<S, T extends CustomResource<S, Void>, L extends CustomResourceList<T>> {
+    private static final FluentLogger log = FluentLogger.forEnclosingClass();
+
+    /**
+     * Whether {@link #apply(Collection, String, LabelSelector, Mode)} sends the plan to the apiserver
+     */
+    public enum Mode {
+        /**
+         * Only compute the plan
+         */
+        DRY_RUN,
+        /**
+         * Compute the plan and execute it
+         */
+        EXECUTE
+    }
+
+    private final AbstractCRDRepository<S, T, L> repository;
+    /**
+     * Hashes of cached resources by namespace and name
+     */
+    private final Map<String, Map<String, CachedHash>> cachedHashes = new ConcurrentHashMap<>();
+
+    /**
+     * @param repository the repository whose cache holds the current state
+     */
+    public DesiredStateDiff(final AbstractCRDRepository<S, T, L> repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Hash of a cached resource at a resource version
+     */
+    private static final class CachedHash {
+        private final String resourceVersion;
+        private final String hash;
+
+        private CachedHash(final String resourceVersion, final String hash) {
+            this.resourceVersion = resourceVersion;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Computes the plan and, in {@link Mode#EXECUTE}, executes it with up to
+     * {@link AbstractCRDRepository#DEFAULT_BULK_CONCURRENCY} requests in flight
+     *
+     * @param desired       the desired resources of the namespace
+     * @param namespace     the namespace
+     * @param pruneSelector selects the cached resources that are deleted when they aren't desired, {@code null} to
+     *                      never delete
+     * @param mode          whether to execute the plan
+     * @return the plan, with the results of its requests if it was executed
+     */
+    public ApplyPlan<T> apply(final Collection<T> desired,
+                              final String namespace,
+                              final LabelSelector pruneSelector,
+                              final Mode mode) {
+        final var plan = plan(desired, namespace, pruneSelector);
+        return mode == Mode.EXECUTE ? execute(plan, AbstractCRDRepository.DEFAULT_BULK_CONCURRENCY) : plan;
+    }
+
+    /**
+     * Compares the desired resources against the cache without sending anything
+     *
+     * @param desired       the desired resources of the namespace, left unchanged. The plan holds copies of them in
+     *                      {@code namespace}.
+     * @param namespace     the namespace
+     * @param pruneSelector selects the cached resources that are deleted when they aren't desired, {@code null} to
+     *                      never delete
+     * @return the plan
+     * @throws IllegalArgumentException if a desired resource has no name or a name is desired twice
+     */
+    public ApplyPlan<T> plan(final Collection<T> desired, final String namespace, final LabelSelector pruneSelector) {
+        final Map<String, T> cached = new LinkedHashMap<>();
+        repository.getResourcesInNamespace(namespace)
+                .forEach(resource -> cached.put(resource.getMetadata().getName(), resource));
+
+        final List<ApplyPlan.Item<T>> items = new ArrayList<>(desired.size());
+        final Set<String> desiredNames = new HashSet<>();
+        final var knownHashes = cachedHashes.getOrDefault(namespace, Map.of());
+        final Map<String, CachedHash> hashes = new HashMap<>();
+        for (final T resource : desired) {
+            final var name = repository.getMetadata(resource).getName();
+            if (name == null) {
+                throw new IllegalArgumentException(String.format("Desired %s resources need a name",
+                                                                 repository.getSimpleResourceName()));
+            }
+            if (!desiredNames.add(name)) {
+                throw new IllegalArgumentException(String.format("%s %s/%s is desired more than once",
+                                                                 repository.getSimpleResourceName(), namespace, name));
+            }
+            items.add(compare(inNamespace(resource, namespace), cached.get(name), knownHashes, hashes));
+        }
+        // Only keeps the hashes of resources that are still cached
+        cachedHashes.put(namespace, hashes);
+        if (pruneSelector != null) {
+            cached.values()
+                    .stream()
+                    .filter(resource -> !desiredNames.contains(resource.getMetadata().getName()))
+                    .filter(resource -> LabelSelectors.matches(pruneSelector, resource.getMetadata().getLabels()))
+                    .forEach(resource -> items.add(new ApplyPlan.Item<>(ApplyPlan.Action.DELETE, null, resource, null)));
+        }
+
+        final var plan = new ApplyPlan<>(namespace, items, null);
+        log.atInfo().log("Planned %s sync: %s", repository.getSimpleResourceName(), plan);
+        return plan;
+    }
+
+    /**
+     * @return a copy of the resource in the namespace, so the plan neither changes nor depends on the caller's object
+     */
+    @SuppressWarnings("unchecked")
+    private T inNamespace(final T resource, final String namespace) {
+        final var mapper = Serialization.jsonMapper();
+        final T copy;
+        try {
+            copy = (T) mapper.readValue(mapper.writeValueAsBytes(resource), resource.getClass());
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        repository.getMetadata(copy).setNamespace(namespace);
+        return copy;
+    }
+
+    private ApplyPlan.Item<T> compare(final T desired,
+                                      final T cached,
+                                      final Map<String, CachedHash> knownHashes,
+                                      final Map<String, CachedHash> hashes) {
+        if (cached == null) {
+            return new ApplyPlan.Item<>(ApplyPlan.Action.CREATE, desired, null, null);
+        }
+        if (hash(cached, knownHashes, hashes).equals(MergePatches.contentHash(desired))) {
+            return new ApplyPlan.Item<>(ApplyPlan.Action.UNCHANGED, desired, cached, null);
+        }
+        // Also empty when the cached resource only has fields the desired one doesn't set
+        final var patch = MergePatches.diffSetFields(cached, desired);
+        final var action = patch.size() == 0 ? ApplyPlan.Action.UNCHANGED : ApplyPlan.Action.UPDATE;
+        return new ApplyPlan.Item<>(action, desired, cached, patch.size() == 0 ? null : patch);
+    }
+
+    private static String hash(final HasMetadata cached,
+                               final Map<String, CachedHash> knownHashes,
+                               final Map<String, CachedHash> hashes) {
+        final var metadata = cached.getMetadata();
+        final var resourceVersion = metadata.getResourceVersion();
+        if (resourceVersion == null) {
+            return MergePatches.contentHash(cached);
+        }
+        final var known = knownHashes.get(metadata.getName());
+        final var current = known != null && known.resourceVersion.equals(resourceVersion)
+                ? known
+                : new CachedHash(resourceVersion, MergePatches.contentHash(cached));
+        hashes.put(metadata.getName(), current);
+        return current.hash;
+    }
+
+    /**
+     * Sends the creates, merge patches and deletes of the plan, each with bounded concurrency. Updates send the patches
+     * of the plan as they are, carrying the resourceVersion of the cached copy they were computed against, so they
+     * fail with a conflict instead of overwriting changes made since the plan.
+     *
+     * @param plan           the plan
+     * @param maxConcurrency the maximum number of requests in flight
+     * @return the plan with the results of its requests
+     */
+    public ApplyPlan<T> execute(final ApplyPlan<T> plan, final int maxConcurrency) {
+        final var namespace = plan.getNamespace();
+        final List<ResourceOperationResult<T>> results = new ArrayList<>();
+        results.addAll(repository.createResourcesInNamespace(desired(plan, ApplyPlan.Action.CREATE),
+                                                             namespace,
+                                                             maxConcurrency));
+        results.addAll(repository.sendPatchesInNamespace(desired(plan, ApplyPlan.Action.UPDATE),
+                                                         patches(plan),
+                                                         namespace,
+                                                         maxConcurrency));
+        results.addAll(repository.deleteResourcesInNamespace(plan.getItems(ApplyPlan.Action.DELETE)
+                                                                     .stream()
+                                                                     .map(ApplyPlan.Item::getCached)
+                                                                     .collect(Collectors.toList()),
+                                                             namespace,
+                                                             maxConcurrency));
+        final var executed = plan.executed(results);
+        log.atInfo().log("Executed %s sync: %s", repository.getSimpleResourceName(), executed);
+        return executed;
+    }
+
+    private List<T> desired(final ApplyPlan<T> plan, final ApplyPlan.Action action) {
+        return plan.getItems(action).stream().map(ApplyPlan.Item::getDesired).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the patches of the updates by resource name, with the resourceVersion of the planned cached copy
+     */
+    static <T extends HasMetadata> Map<String, ObjectNode> patches(final ApplyPlan<T> plan) {
+        final Map<String, ObjectNode> patches = new LinkedHashMap<>();
+        for (final var item : plan.getItems(ApplyPlan.Action.UPDATE)) {
+            final var patch = item.getPatch().orElseThrow().deepCopy();
+            patch.with("metadata").put("resourceVersion", item.getCached().getMetadata().getResourceVersion());
+            patches.put(item.getName(), patch);
+        }
+        return patches;
+    }
+}
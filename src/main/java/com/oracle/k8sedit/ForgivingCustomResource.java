@@ -2,27 +2,76 @@ package com.oracle.k8sedit;
 
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import io.fabric8.kubernetes.client.CustomResource;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
 public abstract class ForgivingCustomResource<T, R> extends CustomResource<T, R> {
+    private static final String API_VERSION = "apiVersion";
+    private static final String KIND = "kind";
+
     /**
-     * container for all attributes that are not either part of the existing definition or one of the subclasses
+     * container for all attributes that are not either part of the existing definition or one of the subclasses. Shares
+     * the empty map until the first attribute is added, as most resources have none. Deserialized attributes are kept
+     * as {@link RawJsonValue} and only parsed when read.
      */
-    private final Map<String, Object> additionalAttributes = new HashMap<>();
+    private Map<String, Object> additionalAttributes = Map.of();
 
-    @JsonAnySetter
     public void addAdditionalAttribute(final String jsonKey,
                                        final Object node) {
+        if (additionalAttributes.isEmpty()) {
+            additionalAttributes = new HashMap<>(4);
+        }
         additionalAttributes.put(jsonKey, node);
     }
 
-    @JsonAnyGetter
+    /**
+     * Collects unknown attributes during deserialization without building an object graph for them. The apiVersion
+     * and kind are read-only properties of {@link CustomResource}, derived from the annotations of the subclass, so
+     * they end up here as well and are skipped; keeping them would write them twice.
+     */
+    @JsonAnySetter
+    @JsonDeserialize(using = RawJsonValue.Deserializer.class)
+    private void addRawAdditionalAttribute(final String jsonKey, final RawJsonValue value) {
+        if (!API_VERSION.equals(jsonKey) && !KIND.equals(jsonKey)) {
+            addAdditionalAttribute(jsonKey, value);
+        }
+    }
+
+    /**
+     * @param key the attribute name
+     * @return the attribute value as maps, lists and scalars, {@code null} if the resource has no such attribute
+     */
     public Object getAdditionalAttribute(final String key) {
-        return additionalAttributes.get(key);
+        final var value = additionalAttributes.get(key);
+        return value instanceof RawJsonValue ? ((RawJsonValue) value).getValue() : value;
+    }
+
+    /**
+     * Writes the additional attributes back on serialization, deserialized ones verbatim
+     *
+     * @return the additional attributes, keyed by attribute name
+     */
+    @JsonAnyGetter
+    public Map<String, Object> getAdditionalAttributes() {
+        return Collections.unmodifiableMap(additionalAttributes);
+    }
+
+    /**
+     * The apiVersion is the same for every resource of a kind, so all deserialized resources share one instance
+     */
+    @Override
+    public void setApiVersion(final String apiVersion) {
+        super.setApiVersion(ResourceCompactor.intern(apiVersion));
+    }
+
+    @Override
+    public void setKind(final String kind) {
+        super.setKind(ResourceCompactor.intern(kind));
     }
 
     @Override
@@ -44,11 +93,34 @@ public abstract class ForgivingCustomResource<T, R> extends CustomResource<T, R>
             return false;
         }
         ForgivingCustomResource<?, ?> that = (ForgivingCustomResource<?, ?>) o;
-        return additionalAttributes.equals(that.additionalAttributes);
+        if (!additionalAttributes.keySet().equals(that.additionalAttributes.keySet())) {
+            return false;
+        }
+        for (final var attribute : additionalAttributes.entrySet()) {
+            if (!attributeEquals(attribute.getValue(), that.additionalAttributes.get(attribute.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Raw values are compared as such, which skips parsing identical ones; a raw value equals the maps, lists and
+     * scalars it parses to.
+     */
+    private static boolean attributeEquals(final Object value, final Object other) {
+        if (value instanceof RawJsonValue && other instanceof RawJsonValue) {
+            return value.equals(other);
+        }
+        return Objects.equals(value instanceof RawJsonValue ? ((RawJsonValue) value).getValue() : value,
+                              other instanceof RawJsonValue ? ((RawJsonValue) other).getValue() : other);
     }
 
+    /**
+     * Only hashes the attribute names, so hashing doesn't parse raw values
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), additionalAttributes);
+        return Objects.hash(super.hashCode(), additionalAttributes.keySet());
     }
 }
@@ -0,0 +1,94 @@
+package com.oracle.k8sedit;
+
+import com.google.common.flogger.FluentLogger;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResourceList;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.dsl.base.ResourceDefinitionContext;
+
+/**
+ * Repository for resources without binding classes, cached as {@link GenericKubernetesResource}s within the default
+ * {@link RepositoryScope}. Recovers, reports health and metrics and writes snapshot files like the typed repositories.
+ * Obtained from the {@link RepositoryRegistry}.
+ */
+public class GenericResourceRepository extends AbstractResourceRepository<GenericKubernetesResource,
+        GenericKubernetesResourceList, InformerResourceHandler<GenericKubernetesResource, GenericKubernetesResourceList,
+        Resource<GenericKubernetesResource>>> {
+    private static final FluentLogger log = FluentLogger.forEnclosingClass();
+
+    private final ResourceDefinitionContext context;
+
+    GenericResourceRepository(final ResourceDefinitionContext context) {
+        this(context, scopeOf(context, SharedInformerFactoryAndK8sClientSupplier.getInstance().getRepositoryScope()));
+    }
+
+    private GenericResourceRepository(final ResourceDefinitionContext context, final RepositoryScope scope) {
+        super(GenericKubernetesResource.class,
+              context.getKind(),
+              name(context, scope),
+              scope,
+              namespace -> createHandler(context, namespace, scope));
+        this.context = context;
+    }
+
+    /**
+     * Cluster-scoped kinds are cached as a whole, only the selectors of a namespace-scoped default scope apply to them
+     */
+    private static RepositoryScope scopeOf(final ResourceDefinitionContext context, final RepositoryScope scope) {
+        if (context.isNamespaceScoped() || scope.isAllNamespaces()) {
+            return scope;
+        }
+        return RepositoryScope.cluster().withLabelSelector(scope.getLabelSelector()).withFields(scope.getFields());
+    }
+
+    /**
+     * Kinds are only unique within their group and version, so the name carries all of them the way kubectl spells
+     * them, e.g. {@code deployments.v1.apps-1f3a5c7e9b0d}
+     */
+    private static String name(final ResourceDefinitionContext context, final RepositoryScope scope) {
+        final var group = context.getGroup();
+        return context.getPlural() + "." + context.getVersion()
+               + (group == null || group.isEmpty() ? "" : "." + group) + "-" + scope.getId();
+    }
+
+    private static InformerResourceHandler<GenericKubernetesResource, GenericKubernetesResourceList,
+            Resource<GenericKubernetesResource>> createHandler(final ResourceDefinitionContext context,
+                                                               final String namespace,
+                                                               final RepositoryScope scope) {
+        final var supplier = SharedInformerFactoryAndK8sClientSupplier.getInstance();
+        final KubernetesClient k8sClient = supplier.getK8sClient();
+        final InformerResourceHandler<GenericKubernetesResource, GenericKubernetesResourceList,
+                Resource<GenericKubernetesResource>> handler =
+                new InformerResourceHandler<>(GenericKubernetesResource.class,
+                                              PagingListerWatcher.informer(context.getKind(),
+                                                                           GenericKubernetesResource.class,
+                                                                           k8sClient.genericKubernetesResources(context),
+                                                                           namespace,
+                                                                           scope,
+                                                                           supplier.getListPageSize(),
+                                                                           supplier.getInformerExecutor()));
+        handler.resourceClientSupplier = () -> k8sClient.genericKubernetesResources(context);
+        return handler;
+    }
+
+    /**
+     * @return the group, version and kind of the cached resources
+     */
+    public ResourceDefinitionContext getContext() {
+        return context;
+    }
+
+    public String getKind() {
+        return context.getKind();
+    }
+
+    /**
+     * A kind loaded on demand must not take the process down. The repository keeps serving the last known state as
+     * stale, and the health checks report it, until the registry shuts it down.
+     */
+    @Override
+    protected void recoveryExhausted() {
+        log.atSevere().log("Giving up on the %s informers, serving the last known state", getName());
+    }
+}
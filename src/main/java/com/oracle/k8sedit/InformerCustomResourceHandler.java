@@ -4,6 +4,7 @@ import io.fabric8.kubernetes.client.CustomResource;
 import io.fabric8.kubernetes.client.CustomResourceList;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
 import io.fabric8.kubernetes.internal.KubernetesDeserializer;
 
 import java.util.List;
@@ -30,14 +31,73 @@ public class InformerCustomResourceHandler<
                                          final String kind,
                                          final Class<T> crdClass,
                                          final Class<L> listClass) {
-        super(crdClass,
-              sharedInformerFactory -> sharedInformerFactory.sharedIndexInformerFor(crdClass, INFORMER_RE_SYNC_PERIOD_MILLIS));
+        this(k8sClient, kind, crdClass, listClass, 0);
+    }
+
+    /**
+     * Builds a new {@link InformerResourceHandler} whose informer lists resources in pages. The initial list and every
+     * relist are fetched with {@code limit}/{@code continue}, so no single response holds the whole collection.
+     *
+     * @param k8sClient    the {@link KubernetesClient} to use
+     * @param kind         the custom resource's kind
+     * @param crdClass     the binding class of the custom resource
+     * @param listClass    the binding list class of the custom resource
+     * @param listPageSize the number of objects per list page, {@code 0} to list everything in one response
+     */
+    public InformerCustomResourceHandler(final KubernetesClient k8sClient,
+                                         final String kind,
+                                         final Class<T> crdClass,
+                                         final Class<L> listClass,
+                                         final long listPageSize) {
+        this(k8sClient, kind, crdClass, listClass, listPageSize, null, RepositoryScope.cluster());
+    }
+
+    /**
+     * Builds a new {@link InformerResourceHandler} whose informer only watches one namespace and/or the resources
+     * matching the label and field selectors of a {@link RepositoryScope}.
+     *
+     * @param k8sClient    the {@link KubernetesClient} to use
+     * @param kind         the custom resource's kind
+     * @param crdClass     the binding class of the custom resource
+     * @param listClass    the binding list class of the custom resource
+     * @param listPageSize the number of objects per list page, {@code 0} to list everything in one response
+     * @param namespace    the namespace to watch, {@code null} for all namespaces
+     * @param scope        the scope providing the label and field selectors
+     */
+    public InformerCustomResourceHandler(final KubernetesClient k8sClient,
+                                         final String kind,
+                                         final Class<T> crdClass,
+                                         final Class<L> listClass,
+                                         final long listPageSize,
+                                         final String namespace,
+                                         final RepositoryScope scope) {
+        // Built directly rather than through fabric8's SharedInformerFactory, which can't count list pages or restart
+        // an informer. Events are delivered on the shared executor, in order per informer.
+        super(crdClass, PagingListerWatcher.informer(kind,
+                                                     crdClass,
+                                                     k8sClient.resources(crdClass, listClass),
+                                                     namespace,
+                                                     scope,
+                                                     listPageSize,
+                                                     SharedInformerFactoryAndK8sClientSupplier.getInstance()
+                                                             .getInformerExecutor()));
 
         KubernetesDeserializer.registerCustomKind(kind, crdClass);
 
         resourceClientSupplier = () -> k8sClient.resources(crdClass, listClass);
     }
 
+    /**
+     * Builds a handler on top of an already created informer, without a resource client. For unit testing and
+     * benchmarks with in-memory informers.
+     *
+     * @param crdClass the binding class of the custom resource
+     * @param informer the informer backing the handler
+     */
+    protected InformerCustomResourceHandler(final Class<T> crdClass, final SharedIndexInformer<T> informer) {
+        super(crdClass, informer);
+    }
+
     /**
      * Returns all resources of the resource handler's managed type
      *
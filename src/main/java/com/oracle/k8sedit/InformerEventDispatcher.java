@@ -0,0 +1,122 @@
+package com.oracle.k8sedit;
+
+import com.google.common.flogger.FluentLogger;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Forwards the events of one informer to the handlers registered on a repository. It is the only handler the
+ * repository registers on the informer, before the informer is started, so handlers added to the repository later on
+ * receive the changes from then on instead of a replay of the whole cache. A failing handler doesn't keep the others
+ * from being notified.
+ * <p>
+ * When informers list again while the handlers already know an earlier state, e.g. after a resumed watch is gone, the
+ * dispatcher reconciles the list with that state: resources the handlers know unchanged aren't sent again, changed
+ * ones are sent as updates and the ones missing from the list as deletes.
+ *
+ * @param <T> the binding class of the resource
+ */
+class InformerEventDispatcher<T extends HasMetadata> implements ResourceEventHandler<T> {
+    private static final FluentLogger log = FluentLogger.forEnclosingClass();
+
+    private final List<ResourceEventHandler<T>> handlers;
+    /**
+     * Resources the handlers know that the informers haven't listed yet, by cache key
+     */
+    private final Map<String, T> unconfirmed = new ConcurrentHashMap<>();
+
+    /**
+     * @param handlers the handlers of the repository, changes to the list apply to the next event
+     */
+    InformerEventDispatcher(final List<ResourceEventHandler<T>> handlers) {
+        this.handlers = handlers;
+    }
+
+    /**
+     * Compares the next events of the informers with the state the handlers already know, until
+     * {@link #settle(Predicate)} found each of the resources listed or gone
+     *
+     * @param known the resources the handlers were notified of
+     */
+    void reconcileWith(final Collection<T> known) {
+        known.forEach(resource -> unconfirmed.put(Cache.metaNamespaceKeyFunc(resource), resource));
+    }
+
+    /**
+     * Sends deletes for the known resources the informers won't deliver. Called whenever an informer has listed.
+     *
+     * @param listable whether an informer may still deliver the resource, because it hasn't listed yet or has it cached
+     */
+    void settle(final Predicate<T> listable) {
+        unconfirmed.forEach((key, resource) -> {
+            if (!listable.test(resource) && unconfirmed.remove(key, resource)) {
+                dispatchDelete(resource, true);
+            }
+        });
+    }
+
+    /**
+     * @return the number of known resources the informers haven't confirmed yet
+     */
+    int getUnconfirmedCount() {
+        return unconfirmed.size();
+    }
+
+    @Override
+    public void onAdd(final T obj) {
+        final var known = unconfirmed.isEmpty() ? null : unconfirmed.remove(Cache.metaNamespaceKeyFunc(obj));
+        if (known != null) {
+            if (!Objects.equals(known.getMetadata().getResourceVersion(), obj.getMetadata().getResourceVersion())) {
+                onUpdate(known, obj);
+            }
+            return;
+        }
+        for (final var handler : handlers) {
+            try {
+                handler.onAdd(obj);
+            } catch (final RuntimeException e) {
+                log.atWarning().withCause(e).log("Event handler %s failed on ADDED", handler);
+            }
+        }
+    }
+
+    @Override
+    public void onUpdate(final T oldObj, final T newObj) {
+        if (!unconfirmed.isEmpty()) {
+            unconfirmed.remove(Cache.metaNamespaceKeyFunc(newObj));
+        }
+        for (final var handler : handlers) {
+            try {
+                handler.onUpdate(oldObj, newObj);
+            } catch (final RuntimeException e) {
+                log.atWarning().withCause(e).log("Event handler %s failed on MODIFIED", handler);
+            }
+        }
+    }
+
+    @Override
+    public void onDelete(final T obj, final boolean deletedFinalStateUnknown) {
+        if (!unconfirmed.isEmpty()) {
+            unconfirmed.remove(Cache.metaNamespaceKeyFunc(obj));
+        }
+        dispatchDelete(obj, deletedFinalStateUnknown);
+    }
+
+    private void dispatchDelete(final T obj, final boolean deletedFinalStateUnknown) {
+        for (final var handler : handlers) {
+            try {
+                handler.onDelete(obj, deletedFinalStateUnknown);
+            } catch (final RuntimeException e) {
+                log.atWarning().withCause(e).log("Event handler %s failed on DELETED", handler);
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.oracle.k8sedit;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The handlers running the informers of a repository: one covering all namespaces, or one per namespace of a
+ * namespace-scoped repository. Each handler carries the repository's indexes and its {@link InformerEventDispatcher},
+ * replacements of failed handlers included.
+ *
+ * @param <T> the binding class of the resource
+ * @param <L> the binding list class of the resource
+ * @param <H> the handler running the informer of a namespace, or of all namespaces
+ */
+final class InformerHandlers<T extends HasMetadata, L extends KubernetesResourceList<T>,
+        H extends InformerResourceHandler<T, L, Resource<T>>> {
+    private final InformerEventDispatcher<T> dispatcher;
+    private final Map<String, Function<T, List<String>>> indexFunctions = new LinkedHashMap<>();
+    /**
+     * The handler covering all namespaces, or the first namespace's handler of a namespace-scoped repository
+     */
+    private volatile H primary;
+    /**
+     * Handlers of a namespace-scoped repository by namespace, empty if {@link #primary} covers all namespaces
+     */
+    private volatile Map<String, H> byNamespace;
+
+    /**
+     * @param handler    the handler covering all namespaces
+     * @param dispatcher the only event handler registered on the informers
+     */
+    InformerHandlers(final H handler, final InformerEventDispatcher<T> dispatcher) {
+        this.dispatcher = dispatcher;
+        this.primary = handler;
+        this.byNamespace = Map.of();
+        handler.addEventHandler(dispatcher);
+    }
+
+    /**
+     * @param handlers   the handlers of a namespace-scoped repository by namespace, at least one
+     * @param dispatcher the only event handler registered on the informers
+     */
+    InformerHandlers(final Map<String, H> handlers, final InformerEventDispatcher<T> dispatcher) {
+        this.dispatcher = dispatcher;
+        this.primary = handlers.values().iterator().next();
+        this.byNamespace = Collections.unmodifiableMap(new LinkedHashMap<>(handlers));
+        handlers.values().forEach(handler -> handler.addEventHandler(dispatcher));
+    }
+
+    /**
+     * @return the handler covering all namespaces, or the first namespace's handler
+     */
+    H primary() {
+        return primary;
+    }
+
+    /**
+     * @return the handlers of a namespace-scoped repository by namespace, empty if one handler covers all namespaces
+     */
+    Map<String, H> byNamespace() {
+        return byNamespace;
+    }
+
+    Collection<H> all() {
+        final var handlers = byNamespace;
+        return handlers.isEmpty() ? List.of(primary) : handlers.values();
+    }
+
+    /**
+     * @param namespace the namespace
+     * @return the handler caching the namespace, {@code null} if the namespace is outside of the repository's scope
+     */
+    H caching(final String namespace) {
+        final var handlers = byNamespace;
+        if (handlers.isEmpty()) {
+            return primary;
+        }
+        return namespace == null ? null : handlers.get(namespace);
+    }
+
+    /**
+     * @param namespace the namespace of a namespace-scoped repository's handler, {@code null} for the handler
+     *                  covering all namespaces
+     * @return the handler currently in place
+     */
+    H current(final String namespace) {
+        return namespace == null ? primary : byNamespace.get(namespace);
+    }
+
+    /**
+     * Declares an index on all handlers, and on the replacements created later
+     */
+    void addIndex(final String indexName, final Function<T, List<String>> indexFunction) {
+        all().forEach(handler -> handler.addIndexers(Map.of(indexName, indexFunction)));
+        indexFunctions.put(indexName, indexFunction);
+    }
+
+    Function<T, List<String>> indexFunction(final String indexName) {
+        return indexFunctions.get(indexName);
+    }
+
+    /**
+     * @return the index functions declared through {@link #addIndex(String, Function)}, by index name
+     */
+    Map<String, Function<T, List<String>>> indexFunctions() {
+        return Collections.unmodifiableMap(indexFunctions);
+    }
+
+    /**
+     * Gives a newly created handler the indexes and the dispatcher of the ones it replaces
+     */
+    void prepare(final H replacement) {
+        if (!indexFunctions.isEmpty()) {
+            replacement.addIndexers(new LinkedHashMap<>(indexFunctions));
+        }
+        replacement.addEventHandler(dispatcher);
+    }
+
+    /**
+     * Puts a prepared replacement in place of a failed handler
+     *
+     * @param namespace   the namespace of the failed handler, {@code null} for the handler covering all namespaces
+     * @param failed      the failed handler
+     * @param replacement the replacement
+     */
+    void replace(final String namespace, final H failed, final H replacement) {
+        if (namespace == null) {
+            primary = replacement;
+            return;
+        }
+        final Map<String, H> handlers = new LinkedHashMap<>(byNamespace);
+        handlers.put(namespace, replacement);
+        byNamespace = Collections.unmodifiableMap(handlers);
+        if (primary == failed) {
+            primary = replacement;
+        }
+    }
+
+    // For unit testing
+    void reset(final H handler) {
+        primary = handler;
+        byNamespace = Map.of();
+        handler.addEventHandler(dispatcher);
+    }
+
+    boolean allMatch(final Predicate<H> condition) {
+        return all().stream().allMatch(condition);
+    }
+
+    boolean isReady() {
+        return allMatch(InformerResourceHandler::isReady);
+    }
+
+    CompletableFuture<Void> whenReady() {
+        final var handlers = byNamespace;
+        if (handlers.isEmpty()) {
+            return primary.whenReady();
+        }
+        return CompletableFuture.allOf(handlers.values()
+                                               .stream()
+                                               .map(InformerResourceHandler::whenReady)
+                                               .toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * @return the current snapshots of all handlers
+     */
+    List<ResourceSnapshot<T>> snapshots() {
+        final var handlers = byNamespace;
+        if (handlers.isEmpty()) {
+            return List.of(primary.getSnapshot());
+        }
+        final List<ResourceSnapshot<T>> snapshots = new ArrayList<>(handlers.size());
+        handlers.values().forEach(handler -> snapshots.add(handler.getSnapshot()));
+        return snapshots;
+    }
+
+    /**
+     * @return what all handlers cached, without waiting for them to be ready
+     */
+    List<T> peekResources() {
+        final List<T> resources = new ArrayList<>();
+        all().forEach(handler -> resources.addAll(handler.peekSnapshot().getResources()));
+        return resources;
+    }
+
+    /**
+     * @return the resource version of the last sync, for namespace-scoped repositories the most recent one among the
+     * namespace informers. {@code null} before the first sync.
+     */
+    String lastSync() {
+        final var handlers = byNamespace;
+        if (handlers.isEmpty()) {
+            return primary.getResourceInformer().lastSyncResourceVersion();
+        }
+        // Resource versions are numeric in practice, so comparing by length first orders them without parsing
+        return handlers.values()
+                .stream()
+                .map(handler -> handler.getResourceInformer().lastSyncResourceVersion())
+                .filter(Objects::nonNull)
+                .max(Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()))
+                .orElse(null);
+    }
+
+    /**
+     * @return the cached copy of a resource, {@code null} if it isn't cached or outside of the scope
+     */
+    T cached(final String namespace, final String name) {
+        final var handler = caching(namespace);
+        return handler == null ? null : handler.getResourceByName(name, namespace);
+    }
+
+    /**
+     * @return whether the informer responsible for the resource hasn't listed yet or has it cached, so its event may
+     * still arrive
+     */
+    boolean isListable(final T resource) {
+        final var handler = caching(resource.getMetadata().getNamespace());
+        if (handler == null) {
+            return false;
+        }
+        final var informer = handler.getResourceInformer();
+        return !informer.hasSynced() || informer.getIndexer().getByKey(Cache.metaNamespaceKeyFunc(resource)) != null;
+    }
+
+    /**
+     * Runs an index lookup on all handlers
+     *
+     * @return the resources found, ordered by namespace and name like snapshots
+     */
+    List<T> collect(final Function<H, List<T>> lookup) {
+        final var handlers = byNamespace;
+        if (handlers.isEmpty()) {
+            return ResourceSnapshot.sortedCopy(lookup.apply(primary));
+        }
+        final List<T> resources = new ArrayList<>();
+        handlers.values().forEach(handler -> resources.addAll(lookup.apply(handler)));
+        return ResourceSnapshot.sortedCopy(resources);
+    }
+}
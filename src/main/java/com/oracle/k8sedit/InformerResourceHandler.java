@@ -3,20 +3,24 @@ package com.oracle.k8sedit;
 import com.google.common.flogger.FluentLogger;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.LabelSelector;
 import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.dsl.Resource;
 import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
 import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
-import io.fabric8.kubernetes.client.informers.SharedInformerEventListener;
-import io.fabric8.kubernetes.client.informers.SharedInformerFactory;
 import io.fabric8.kubernetes.client.informers.cache.Lister;
+import io.helidon.metrics.api.RegistryFactory;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.Timer;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -30,42 +34,46 @@ import java.util.function.Supplier;
  */
 public class InformerResourceHandler<T extends HasMetadata, L extends KubernetesResourceList<T>, R extends Resource<T>> {
     protected static final long SYNC_WAIT_TIME_SEC = 15;
-    protected static final long SYNC_POLLING_MILLIS = 100;
-    private static final ExecutorService SHARED_THREAD_POOL_EXECUTOR = Executors.newCachedThreadPool();
     private static final FluentLogger log = FluentLogger.forEnclosingClass();
     private static Executor timeoutExecutor = CompletableFuture.delayedExecutor(SYNC_WAIT_TIME_SEC, TimeUnit.SECONDS);
-    private static final Executor NEXT_TICK_EXECUTOR = CompletableFuture.delayedExecutor(SYNC_POLLING_MILLIS,
-                                                                                         TimeUnit.MILLISECONDS,
-                                                                                         SHARED_THREAD_POOL_EXECUTOR);
 
     /**
-     * Action to be performed if the informer fails to sync or fails to establish watch
+     * Action to be performed if the informer fails to sync or fails to establish watch, and the handler has no failure
+     * action of its own or that action gave up recovering
      */
     private static Runnable informerFailureAction = new DefaultInformerFailureAction();
 
-    protected static SharedInformerFactory sharedInformerFactory;
     protected Supplier<MixedOperation<T, L, R>> resourceClientSupplier = null;
 
     protected static final long INFORMER_RE_SYNC_PERIOD_MILLIS = 60 * 60 * 1000L;
 
     private final Class<T> clazz;
     protected final SharedIndexInformer<T> resourceInformer;
+    private final ResourceSnapshotCache<T> snapshotCache;
+    private final CompletableFuture<Void> synced = new CompletableFuture<>();
+    /**
+     * Replaced by a pending future, together with {@link #ready}, when the informer loses its watch
+     */
+    private volatile CompletableFuture<Void> watching = new CompletableFuture<>();
+    private volatile CompletableFuture<Void> ready = CompletableFuture.allOf(synced, watching);
+    private volatile long syncStartedNanos;
+    private volatile long watchLostNanos;
+    private volatile Runnable failureAction;
 
     /**
-     * New constructor taking the resource {@link Class} and a {@link Function} to create the {@link SharedIndexInformer}
+     * Constructor taking an already created {@link SharedIndexInformer}, usually from
+     * {@link PagingListerWatcher#informer}, or an in-memory one for unit testing and benchmarks.
      *
-     * @param clazz                 the resource class
-     * @param indexInformerSupplier the {@link Function} that derives a {@link SharedIndexInformer} from a
-     * {@link SharedInformerFactory}.
+     * @param clazz            the resource class
+     * @param resourceInformer the informer backing this handler
      */
-    public InformerResourceHandler(final Class<T> clazz, final Function<SharedInformerFactory,
-            SharedIndexInformer<T>> indexInformerSupplier) {
+    protected InformerResourceHandler(final Class<T> clazz, final SharedIndexInformer<T> resourceInformer) {
         this.clazz = clazz;
-        if (sharedInformerFactory == null) {
-            throw new IllegalStateException(
-                    "SharedInformerFactory is null. Set InformerResourceHandler#sharedInformerFactory before creating handlers");
-        }
-        resourceInformer = indexInformerSupplier.apply(sharedInformerFactory);
+        this.resourceInformer = resourceInformer;
+        resourceInformer.addIndexers(LabelSelectors.indexers());
+        snapshotCache = new ResourceSnapshotCache<>(resourceInformer.getIndexer());
+        resourceInformer.addEventHandler(snapshotCache);
+        resourceInformer.addEventHandler(new ReadinessEventHandler());
     }
 
     /**
@@ -94,43 +102,53 @@ public class InformerResourceHandler<T extends HasMetadata, L extends Kubernetes
     }
 
     /**
-     * Registers an exception handler
+     * Registers named secondary indexes on the informer's indexer. The indexer keeps them current on every
+     * ADDED/MODIFIED/DELETED event, so lookups through {@link #getResourcesByIndex(String, String)} don't need to scan the
+     * cache. Indexes have to be registered before the informer is started.
      *
-     * @param event the exception handler
+     * @param indexers the index functions, keyed by index name
      */
-    public static void addSharedInformerEventListener(final SharedInformerEventListener event) {
-        sharedInformerFactory.addSharedInformerEventListener(event);
+    public void addIndexers(final Map<String, Function<T, List<String>>> indexers) {
+        log.atInfo().log("Adding indexes %s for type %s", indexers.keySet(), clazz.getCanonicalName());
+        resourceInformer.addIndexers(indexers);
     }
 
-    public static void setSharedInformerFactory(final SharedInformerFactory newSharedInformerFactory) {
-        sharedInformerFactory = newSharedInformerFactory;
+    /**
+     * Get the latest immutable snapshot of the cached resources. The snapshot is kept current by the informer's events,
+     * so repeated reads share the same instance until the next change.
+     *
+     * @return the {@link ResourceSnapshot}
+     */
+    public ResourceSnapshot<T> getSnapshot() {
+        preCheck();
+
+        return snapshotCache.get();
+    }
+
+    /**
+     * @return the cached resources as they are, without waiting for the informer to be ready
+     */
+    ResourceSnapshot<T> peekSnapshot() {
+        return snapshotCache.peek();
     }
 
     /**
      * Get all resources of the particular kind in all namespaces
      *
-     * @return the List of resources
+     * @return the unmodifiable List of resources, ordered by namespace and name
      */
     public List<T> getResources() {
-        preCheck();
-
-        final var indexer = resourceInformer.getIndexer();
-        final var lister = new Lister<>(indexer);
-        return lister.list();
+        return getSnapshot().getResources();
     }
 
     /**
      * Get all resources of the particular kind in a specific namespaces
      *
      * @param namespace the namespace to filter for
-     * @return the List of resources
+     * @return the unmodifiable List of resources, ordered by name
      */
     public List<T> getResources(final String namespace) {
-        preCheck();
-
-        final var indexer = resourceInformer.getIndexer();
-        final var lister = new Lister<>(indexer, namespace);
-        return lister.list();
+        return getSnapshot().getResources(namespace);
     }
 
     /**
@@ -162,6 +180,32 @@ public class InformerResourceHandler<T extends HasMetadata, L extends Kubernetes
         return lister.get(name);
     }
 
+    /**
+     * Get all resources stored under the key of a secondary index registered through {@link #addIndexers(Map)}
+     *
+     * @param indexName the name of the index
+     * @param indexKey  the key to look up in the index
+     * @return the List of resources, empty if none matched
+     */
+    public List<T> getResourcesByIndex(final String indexName, final String indexKey) {
+        preCheck();
+
+        return resourceInformer.getIndexer().byIndex(indexName, indexKey);
+    }
+
+    /**
+     * Get all resources matching a label selector. Equality, {@code In}, {@code NotIn}, {@code Exists} and
+     * {@code DoesNotExist} terms are evaluated against the label index maintained by the informer.
+     *
+     * @param selector the label selector, {@code null} matches all resources
+     * @return the List of resources
+     */
+    public List<T> getResourcesBySelector(final LabelSelector selector) {
+        preCheck();
+
+        return LabelSelectors.select(resourceInformer.getIndexer(), selector);
+    }
+
     /**
      * Returns the {@link SharedIndexInformer}
      *
@@ -172,45 +216,146 @@ public class InformerResourceHandler<T extends HasMetadata, L extends Kubernetes
     }
 
     /**
-     * Returns the {@link SharedInformerFactory}. Mainly to be used to determine whether there are informers registered
+     * Fails reads of a cache that hasn't listed its resources yet, without waiting. A lost watch doesn't fail reads,
+     * the informer reconnects on its own and {@link #checkWatch(Duration)} runs the failure action if it doesn't.
+     *
+     * @throws CacheNotReadyException if the informer hasn't synced yet
+     */
+    void preCheck() {
+        if (synced.isDone()) {
+            return;
+        }
+        checkReadiness();
+        if (!synced.isDone()) {
+            throw new CacheNotReadyException(String.format("The informer for type %s hasn't synced yet",
+                                                           clazz.getSimpleName()));
+        }
+    }
+
+    /**
+     * Returns a future that completes once the informer has synced and established its watch. Doesn't block the caller,
+     * so it is the preferred way to wait for the cache on request threads. If the watch is lost later on, the returned
+     * future stays completed and callers asking again get a pending one.
+     *
+     * @return a future completing when the handler is ready to serve reads
+     */
+    public CompletableFuture<Void> whenReady() {
+        checkReadiness();
+        return ready.copy();
+    }
+
+    /**
+     * Returns a future that completes once the informer has listed its resources, whether or not it is watching.
+     * Doesn't block the caller.
+     *
+     * @return a future completing when the cache can serve reads
+     */
+    public CompletableFuture<Void> whenSynced() {
+        checkReadiness();
+        return synced.copy();
+    }
+
+    /**
+     * @return whether the informer has synced and is currently watching
+     */
+    public boolean isReady() {
+        checkReadiness();
+        return ready.isDone();
+    }
+
+    /**
+     * Completes the readiness futures if the informer state allows it, and resets them if the informer lost its watch
+     * since. Called on every informer event, once the informer's initial list returned and by the periodic health
+     * refresh, which notices a watch re-established without events.
+     */
+    public void checkReadiness() {
+        if (!synced.isDone() && resourceInformer.hasSynced() && synced.complete(null)) {
+            snapshotCache.start();
+            recordInitialList();
+        }
+        final var currentWatching = watching;
+        if (resourceInformer.isWatching()) {
+            if (currentWatching.complete(null) && watchLostNanos != 0) {
+                log.atInfo().log("Watch re-established for type %s after %d ms", clazz.getSimpleName(),
+                                 Duration.ofNanos(System.nanoTime() - watchLostNanos).toMillis());
+                watchLostNanos = 0;
+            }
+        } else if (currentWatching.isDone()) {
+            onWatchLost(currentWatching);
+        }
+    }
+
+    /**
+     * Runs the failure action when the informer hasn't synced within {@code maxWait} of its start, or has been without
+     * a watch for at least {@code maxWait}. Reads don't wait for the informer, so this is checked periodically.
      *
-     * @return the {@link SharedInformerFactory}
+     * @param maxWait how long the informer may take to sync, or be without a watch
      */
-    public SharedInformerFactory getSharedInformerFactory() {
-        return sharedInformerFactory;
+    void checkWatch(final Duration maxWait) {
+        checkReadiness();
+        final long started = syncStartedNanos;
+        if (!synced.isDone() && started != 0 && System.nanoTime() - started >= maxWait.toNanos()) {
+            log.atWarning().log("Informer for type %s hasn't synced within %d ms", clazz.getSimpleName(),
+                                Duration.ofNanos(System.nanoTime() - started).toMillis());
+            onFailure();
+            return;
+        }
+        final long lost = watchLostNanos;
+        if (lost != 0 && System.nanoTime() - lost >= maxWait.toNanos()) {
+            log.atWarning().log("Informer for type %s has been without a watch for %d ms", clazz.getSimpleName(),
+                                Duration.ofNanos(System.nanoTime() - lost).toMillis());
+            onFailure();
+        }
     }
 
-    private void preCheck() {
-        if (!resourceInformer.hasSynced()) {
-            waitForSync();
+    private synchronized void onWatchLost(final CompletableFuture<Void> lost) {
+        if (watching != lost) {
+            return;
         }
+        watchLostNanos = System.nanoTime();
+        watching = new CompletableFuture<>();
+        ready = CompletableFuture.allOf(synced, watching);
+        log.atWarning().log("Informer for type %s lost its watch", clazz.getSimpleName());
+    }
 
-        if (!resourceInformer.isWatching()) {
-            establishWatch();
+    /**
+     * Marks the start of the informer's initial list, so its duration can be reported once the informer has synced
+     */
+    public void markSyncStarted() {
+        syncStartedNanos = System.nanoTime();
+    }
+
+    /**
+     * Records the duration of the initial list in {@code k8s.informer.list.duration}. The pages it took are counted by
+     * the {@link PagingListerWatcher} of the informer.
+     */
+    private void recordInitialList() {
+        if (syncStartedNanos == 0) {
+            return;
         }
+        final var duration = Duration.ofNanos(System.nanoTime() - syncStartedNanos);
+        final var count = resourceInformer.getIndexer().listKeys().size();
+        log.atInfo().log("Initial list for type %s took %d ms for %d objects",
+                         clazz.getSimpleName(), duration.toMillis(), count);
+
+        timer("k8s.informer.list.duration").update(duration);
+    }
+
+    private Timer timer(final String name) {
+        return RegistryFactory.getInstance()
+                .getRegistry(MetricRegistry.Type.APPLICATION)
+                .timer(name, new Tag("kind", clazz.getSimpleName()));
     }
 
     public void waitForSync() {
         final var resourceName = clazz.getName();
 
-        final var timeout = CompletableFuture.runAsync(
-                () -> {
-                    // nothing to be done here
-                }, timeoutExecutor);
-        try {
-            while (!resourceInformer.hasSynced()) {
-                if (timeout.isDone()) {
-                    throw new KubernetesClientException(String.format("Waited too long for %s informer to synchronize.",
-                                                                      resourceName));
-                }
-                final var tick = CompletableFuture.runAsync(() -> {
-                }, NEXT_TICK_EXECUTOR);
-                tick.join();
-            }
+        try (var ignored = timer("k8s.informer.sync.wait").time()) {
+            await(synced, String.format("Waited too long for %s informer to synchronize.", resourceName));
             log.atInfo().log(String.format("Sync for type %s completed", resourceName));
         } catch (final KubernetesClientException e) {
             log.atSevere().withCause(e).log(String.format("Could not sync the informer for type %s", resourceName));
-            informerFailureAction.run();
+            onFailure();
             throw e;
         }
     }
@@ -218,25 +363,41 @@ public class InformerResourceHandler<T extends HasMetadata, L extends Kubernetes
     public void establishWatch() {
         final var resourceName = clazz.getName();
 
+        try (var ignored = timer("k8s.informer.watch.wait").time()) {
+            await(watching, String.format("Waited too long for %s informer to establish watch.", resourceName));
+            log.atInfo().log(String.format("Watch established for type %s.", resourceName));
+        } catch (final KubernetesClientException e) {
+            log.atSevere().withCause(e).log(String.format("Could not establish watch for informer of type %s", resourceName));
+            onFailure();
+            throw e;
+        }
+    }
+
+    /**
+     * Blocks until the condition completes or the timeout of {@link #timeoutExecutor} passes. The condition is only
+     * completed by the informer's events, the end of its initial list and the periodic health refresh, the caller
+     * doesn't poll. Only for callers that have to block, reads never wait.
+     */
+    private void await(final CompletableFuture<Void> condition, final String timeoutMessage) {
+        checkReadiness();
+        if (condition.isDone()) {
+            return;
+        }
+
         final var timeout = CompletableFuture.runAsync(
                 () -> {
                     // nothing to be done here
                 }, timeoutExecutor);
         try {
-            while (!resourceInformer.isWatching()) {
-                if (timeout.isDone()) {
-                    throw new KubernetesClientException(String.format("Waited too long for %s informer to establish watch.",
-                                                                      resourceName));
-                }
-                final var tick = CompletableFuture.runAsync(() -> {
-                }, NEXT_TICK_EXECUTOR);
-                tick.join();
-            }
-            log.atInfo().log(String.format("Watch established for type %s.", resourceName));
-        } catch (final KubernetesClientException e) {
-            log.atSevere().withCause(e).log(String.format("Could not establish watch for informer of type %s", resourceName));
-            informerFailureAction.run();
-            throw e;
+            CompletableFuture.anyOf(condition, timeout).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KubernetesClientException(timeoutMessage);
+        } catch (final ExecutionException e) {
+            // the condition never fails, only the timeout might
+        }
+        if (!condition.isDone()) {
+            throw new KubernetesClientException(timeoutMessage);
         }
     }
 
@@ -256,4 +417,45 @@ public class InformerResourceHandler<T extends HasMetadata, L extends Kubernetes
     public static void setInformerFailureAction(Runnable informerFailureAction) {
         InformerResourceHandler.informerFailureAction = informerFailureAction;
     }
+
+    /**
+     * Runs the shared informer failure action, for recovery strategies that ran out of attempts
+     */
+    static void escalateFailure() {
+        informerFailureAction.run();
+    }
+
+    /**
+     * Replaces the shared informer failure action for this handler, e.g. to recreate its informer instead of exiting
+     *
+     * @param failureAction action to be performed if this handler's informer fails to sync or to establish watch
+     */
+    public void setFailureAction(final Runnable failureAction) {
+        this.failureAction = failureAction;
+    }
+
+    private void onFailure() {
+        final var action = failureAction;
+        (action == null ? informerFailureAction : action).run();
+    }
+
+    /**
+     * Re-evaluates readiness on every informer event, so readiness completes as soon as the first objects arrive
+     */
+    private class ReadinessEventHandler implements ResourceEventHandler<T> {
+        @Override
+        public void onAdd(final T obj) {
+            checkReadiness();
+        }
+
+        @Override
+        public void onUpdate(final T oldObj, final T newObj) {
+            checkReadiness();
+        }
+
+        @Override
+        public void onDelete(final T obj, final boolean deletedFinalStateUnknown) {
+            checkReadiness();
+        }
+    }
 }
@@ -0,0 +1,261 @@
+package com.oracle.k8sedit;
+
+import com.google.common.flogger.FluentLogger;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.client.dsl.Resource;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Starts the informers of a repository and replaces the ones that fail, following the {@link RecoveryPolicy}
+ *
+ * @param <T> the binding class of the resource
+ * @param <L> the binding list class of the resource
+ * @param <H> the handler running the informer of a namespace, or of all namespaces
+ */
+final class InformerSupervisor<T extends HasMetadata, L extends KubernetesResourceList<T>,
+        H extends InformerResourceHandler<T, L, Resource<T>>> {
+    private static final FluentLogger log = FluentLogger.forEnclosingClass();
+
+    /**
+     * Single daemon thread delaying and running the informer restarts of all repositories. Kept off the shared executor
+     * on purpose: recovery has to go on while the executor is saturated, a restart only creates the replacement and
+     * submits its start.
+     */
+    private static final ScheduledExecutorService RECOVERY_SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final var thread = new Thread(runnable, "informer-recovery");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final String kind;
+    private final InformerHandlers<T, L, H> handlers;
+    private final InformerEventDispatcher<T> dispatcher;
+    private final RepositoryMetrics<T> metrics;
+    private final RepositoryHealth<T> health;
+    /**
+     * Creates the handler of a namespace, {@code null} namespace for all of them. Failed informers can only be
+     * recreated if it is set.
+     */
+    private final Function<String, H> handlerFactory;
+    private final RecoveryPolicy recoveryPolicy;
+    private final Runnable onFailure;
+    private final Runnable onExhausted;
+    private final AtomicInteger recoveryAttempts = new AtomicInteger();
+    private final Set<H> recovering = Collections.newSetFromMap(new IdentityHashMap<>());
+    private volatile boolean shutdown;
+
+    /**
+     * @param kind           the kind reported in logs
+     * @param handlers       the handlers to start and supervise
+     * @param dispatcher     the dispatcher registered on the handlers
+     * @param metrics        the repository's metrics
+     * @param health         the repository's health
+     * @param handlerFactory recreates failed handlers, {@code null} to only report failures
+     * @param recoveryPolicy the recovery policy
+     * @param onFailure      called when an informer failed, before it is stopped
+     * @param onExhausted    called once the recovery policy's attempts are used up
+     */
+    InformerSupervisor(final String kind,
+                       final InformerHandlers<T, L, H> handlers,
+                       final InformerEventDispatcher<T> dispatcher,
+                       final RepositoryMetrics<T> metrics,
+                       final RepositoryHealth<T> health,
+                       final Function<String, H> handlerFactory,
+                       final RecoveryPolicy recoveryPolicy,
+                       final Runnable onFailure,
+                       final Runnable onExhausted) {
+        this.kind = kind;
+        this.handlers = handlers;
+        this.dispatcher = dispatcher;
+        this.metrics = metrics;
+        this.health = health;
+        this.handlerFactory = handlerFactory;
+        this.recoveryPolicy = recoveryPolicy;
+        this.onFailure = onFailure;
+        this.onExhausted = onExhausted;
+        if (handlerFactory != null) {
+            if (handlers.byNamespace().isEmpty()) {
+                supervise(null, handlers.primary());
+            } else {
+                handlers.byNamespace().forEach(this::supervise);
+            }
+        }
+    }
+
+    void startInformers() {
+        metrics.count(RepositoryMetrics.RELISTS);
+        health.relisted();
+        handlers.all().forEach(this::startInformer);
+    }
+
+    /**
+     * Runs the informer on the shared executor. If the executor rejects it, the sync counts as started anyway, so the
+     * health checks recover the informer once its sync is overdue.
+     */
+    private void startInformer(final H handler) {
+        final var informer = handler.getResourceInformer();
+        try {
+            SharedInformerFactoryAndK8sClientSupplier.getInstance().getExecutorService().execute(() -> {
+                try {
+                    handler.markSyncStarted();
+                    informer.run();
+                    handler.checkReadiness();
+                    dispatcher.settle(handlers::isListable);
+                } catch (Throwable t) {
+                    final var msg = String.format("Error starting informer for %s", kind);
+                    log.atSevere().withCause(t).log(msg);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            log.atWarning().log("Executor saturated, could not start the %s informer", kind);
+            handler.markSyncStarted();
+        }
+    }
+
+    /**
+     * Routes the failures of the handler's informer to {@link #recover(String, InformerResourceHandler)}
+     * instead of the shared failure action
+     */
+    private void supervise(final String namespace, final H handler) {
+        handler.setFailureAction(() -> recover(namespace, handler));
+    }
+
+    /**
+     * Stops the failed informer and schedules its replacement after a jittered backoff, serving the last known cache
+     * as stale in the meantime. Runs {@code onExhausted} once the recovery policy's attempts are used up. Each failed
+     * handler is only recovered once, however many waiting readers saw it fail.
+     */
+    private void recover(final String namespace, final H failed) {
+        synchronized (recovering) {
+            if (shutdown || handlers.current(namespace) != failed || !recovering.add(failed)) {
+                return;
+            }
+        }
+        final int attempt = recoveryAttempts.incrementAndGet();
+        if (attempt > recoveryPolicy.getMaxAttempts()) {
+            log.atSevere().log("%s informer%s failed %d restarts in a row, giving up",
+                               kind, inNamespace(namespace), attempt - 1);
+            synchronized (recovering) {
+                recovering.remove(failed);
+            }
+            onExhausted.run();
+            return;
+        }
+        onFailure.run();
+        failed.getResourceInformer().stop();
+        final long delay = recoveryPolicy.backoffMillis(attempt);
+        log.atWarning().log("Restarting %s informer%s in %d ms, attempt %d of %d",
+                            kind, inNamespace(namespace), delay, attempt,
+                            recoveryPolicy.getMaxAttempts());
+        RECOVERY_SCHEDULER.schedule(() -> restart(namespace, failed), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Recovers the informers that have been without a watch for longer than
+     * {@link InformerResourceHandler#SYNC_WAIT_TIME_SEC}, without waiting for a reader to time out on them
+     */
+    void checkInformers() {
+        if (shutdown) {
+            return;
+        }
+        if (handlerFactory == null) {
+            handlers.all().forEach(InformerResourceHandler::checkReadiness);
+            return;
+        }
+        final var maxWatchLoss = Duration.ofSeconds(InformerResourceHandler.SYNC_WAIT_TIME_SEC);
+        handlers.all().forEach(handler -> handler.checkWatch(maxWatchLoss));
+    }
+
+    /**
+     * Replaces the failed handler with a new one carrying the repository's indexes and event handlers, and starts it.
+     * The handlers were notified of what the failed informer cached, so the replacement's list is reconciled with it:
+     * unchanged resources aren't sent again and the ones gone in the meantime are sent as deletes. A replacement that
+     * isn't ready in time is recovered in turn; one that is resets the recovery attempts.
+     */
+    private void restart(final String namespace, final H failed) {
+        final H replacement;
+        try {
+            replacement = handlerFactory.apply(namespace);
+            handlers.prepare(replacement);
+            supervise(namespace, replacement);
+        } catch (final RuntimeException e) {
+            log.atWarning().withCause(e).log("Could not recreate %s informer%s",
+                                             kind, inNamespace(namespace));
+            synchronized (recovering) {
+                recovering.remove(failed);
+            }
+            recover(namespace, failed);
+            return;
+        }
+
+        synchronized (recovering) {
+            if (shutdown) {
+                recovering.remove(failed);
+                return;
+            }
+            handlers.replace(namespace, failed, replacement);
+            recovering.remove(failed);
+        }
+        metrics.count(RepositoryMetrics.RESTARTS);
+        metrics.count(RepositoryMetrics.RELISTS);
+        health.relisted();
+        dispatcher.reconcileWith(failed.peekSnapshot().getResources());
+        startInformer(replacement);
+
+        replacement.whenReady()
+                .orTimeout(InformerResourceHandler.SYNC_WAIT_TIME_SEC, TimeUnit.SECONDS)
+                .whenComplete((ignored, t) -> {
+                    if (t == null) {
+                        recoveryAttempts.set(0);
+                        log.atInfo().log("%s informer%s recovered",
+                                         kind, inNamespace(namespace));
+                    } else {
+                        recover(namespace, replacement);
+                    }
+                });
+    }
+
+    /**
+     * Stops recovering failed informers, the informers themselves are stopped by the repository
+     *
+     * @return {@code false} if the supervisor was already shut down
+     */
+    boolean shutdown() {
+        synchronized (recovering) {
+            if (shutdown) {
+                return false;
+            }
+            shutdown = true;
+        }
+        return true;
+    }
+
+    boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * @return whether a failed informer is waiting to be restarted
+     */
+    boolean isRecovering() {
+        synchronized (recovering) {
+            return !recovering.isEmpty();
+        }
+    }
+
+    private static String inNamespace(final String namespace) {
+        return namespace == null ? "" : " in namespace " + namespace;
+    }
+}
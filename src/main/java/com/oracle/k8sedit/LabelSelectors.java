@@ -0,0 +1,321 @@
+package com.oracle.k8sedit;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.LabelSelector;
+import io.fabric8.kubernetes.api.model.LabelSelectorBuilder;
+import io.fabric8.kubernetes.api.model.LabelSelectorRequirement;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import io.fabric8.kubernetes.client.informers.cache.Indexer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted label index on top of the informer's {@link Indexer}. Two indexes are maintained by the informer on every
+ * ADDED/MODIFIED/DELETED event: one from {@code key=value} to resource keys and one from the label key alone to resource
+ * keys. Label selectors are then evaluated as set operations on resource keys instead of scanning every cached object.
+ */
+public final class LabelSelectors {
+    /**
+     * Index from {@code key=value} to the keys of the resources carrying that label
+     */
+    public static final String LABEL_INDEX = "label";
+
+    /**
+     * Index from a label key to the keys of the resources carrying that label with any value
+     */
+    public static final String LABEL_KEY_INDEX = "label-key";
+
+    private static final String OPERATOR_IN = "In";
+    private static final String OPERATOR_NOT_IN = "NotIn";
+    private static final String OPERATOR_EXISTS = "Exists";
+    private static final String OPERATOR_DOES_NOT_EXIST = "DoesNotExist";
+
+    private static final Pattern SET_TERM = Pattern.compile("^(\\S+)\\s+(in|notin)\\s*\\((.*)\\)$");
+
+    /**
+     * Cannot be instantiated.
+     */
+    private LabelSelectors() {
+    }
+
+    /**
+     * Returns the index functions backing the label index, to be registered on the informer before it is started
+     *
+     * @param <T> the binding class of the resource
+     * @return the index functions keyed by index name
+     */
+    public static <T extends HasMetadata> Map<String, Function<T, List<String>>> indexers() {
+        return Map.of(LABEL_INDEX, LabelSelectors::labelEntries,
+                      LABEL_KEY_INDEX, LabelSelectors::labelKeys);
+    }
+
+    /**
+     * Evaluates a label selector against the label index of the provided indexer
+     *
+     * @param indexer  the indexer carrying the indexes from {@link #indexers()}
+     * @param selector the selector, {@code null} or an empty selector matches everything
+     * @param <T>      the binding class of the resource
+     * @return the matching resources
+     * @throws IllegalArgumentException if the selector contains an unknown operator
+     */
+    public static <T extends HasMetadata> List<T> select(final Indexer<T> indexer, final LabelSelector selector) {
+        final var keys = selectKeys(indexer, selector);
+        final var result = new ArrayList<T>(keys.size());
+        for (final var key : keys) {
+            final var resource = indexer.getByKey(key);
+            // the resource might have been deleted since the keys were collected
+            if (resource != null) {
+                result.add(resource);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parses a label selector in the string form used by {@code kubectl -l} and the apiserver's {@code labelSelector}
+     * parameter: {@code key=value}, {@code key==value}, {@code key!=value}, {@code key in (a,b)},
+     * {@code key notin (a,b)}, {@code key} and {@code !key}, separated by commas.
+     *
+     * @param selector the selector string, {@code null} or blank for a selector matching everything
+     * @return the parsed selector
+     * @throws IllegalArgumentException if the selector can't be parsed
+     */
+    public static LabelSelector parse(final String selector) {
+        final var builder = new LabelSelectorBuilder();
+        if (selector == null || selector.isBlank()) {
+            return builder.build();
+        }
+
+        for (final var term : splitTerms(selector)) {
+            final var setTerm = SET_TERM.matcher(term);
+            if (setTerm.matches()) {
+                final List<String> values = new ArrayList<>();
+                for (final var value : setTerm.group(3).split(",")) {
+                    values.add(value.trim());
+                }
+                builder.addNewMatchExpression()
+                        .withKey(setTerm.group(1))
+                        .withOperator("in".equals(setTerm.group(2)) ? OPERATOR_IN : OPERATOR_NOT_IN)
+                        .withValues(values)
+                        .endMatchExpression();
+            } else if (term.contains("!=")) {
+                final var parts = term.split("!=", 2);
+                builder.addNewMatchExpression()
+                        .withKey(parts[0].trim())
+                        .withOperator(OPERATOR_NOT_IN)
+                        .withValues(parts[1].trim())
+                        .endMatchExpression();
+            } else if (term.contains("=")) {
+                final var parts = term.split("==?", 2);
+                builder.addToMatchLabels(parts[0].trim(), parts[1].trim());
+            } else if (term.startsWith("!")) {
+                builder.addNewMatchExpression()
+                        .withKey(term.substring(1).trim())
+                        .withOperator(OPERATOR_DOES_NOT_EXIST)
+                        .endMatchExpression();
+            } else if (!term.contains(" ") && !term.contains("(")) {
+                builder.addNewMatchExpression()
+                        .withKey(term)
+                        .withOperator(OPERATOR_EXISTS)
+                        .endMatchExpression();
+            } else {
+                throw new IllegalArgumentException(String.format("Invalid label selector term '%s'", term));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Evaluates a label selector against the labels of a single resource, for callers that already hold the resource
+     *
+     * @param selector the selector, {@code null} or an empty selector matches everything
+     * @param labels   the labels of the resource, may be {@code null}
+     * @return whether the labels match the selector
+     * @throws IllegalArgumentException if the selector contains an unknown operator
+     */
+    public static boolean matches(final LabelSelector selector, final Map<String, String> labels) {
+        if (selector == null) {
+            return true;
+        }
+        final Map<String, String> actual = labels == null ? Map.of() : labels;
+
+        if (selector.getMatchLabels() != null) {
+            for (final var label : selector.getMatchLabels().entrySet()) {
+                if (!label.getValue().equals(actual.get(label.getKey()))) {
+                    return false;
+                }
+            }
+        }
+
+        if (selector.getMatchExpressions() != null) {
+            for (final var requirement : selector.getMatchExpressions()) {
+                final var value = actual.get(requirement.getKey());
+                final List<String> values = requirement.getValues() == null ? List.of() : requirement.getValues();
+                final boolean matched;
+                switch (requirement.getOperator()) {
+                    case OPERATOR_IN:
+                        matched = value != null && values.contains(value);
+                        break;
+                    case OPERATOR_NOT_IN:
+                        matched = value == null || !values.contains(value);
+                        break;
+                    case OPERATOR_EXISTS:
+                        matched = value != null;
+                        break;
+                    case OPERATOR_DOES_NOT_EXIST:
+                        matched = value == null;
+                        break;
+                    default:
+                        throw new IllegalArgumentException(String.format("Unsupported label selector operator %s",
+                                                                         requirement.getOperator()));
+                }
+                if (!matched) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param selector the selector, may be {@code null}
+     * @return whether the selector matches every resource, so there is nothing to look up in the label index
+     */
+    public static boolean isEmpty(final LabelSelector selector) {
+        return selector == null
+                || (selector.getMatchLabels() == null || selector.getMatchLabels().isEmpty())
+                && (selector.getMatchExpressions() == null || selector.getMatchExpressions().isEmpty());
+    }
+
+    /**
+     * Splits at commas that aren't part of a value set in parentheses
+     */
+    private static List<String> splitTerms(final String selector) {
+        final List<String> terms = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < selector.length(); i++) {
+            final char c = selector.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                terms.add(selector.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        terms.add(selector.substring(start).trim());
+        terms.removeIf(String::isEmpty);
+        return terms;
+    }
+
+    static Set<String> selectKeys(final Indexer<?> indexer, final LabelSelector selector) {
+        Set<String> candidates = null;
+        final Set<String> excluded = new HashSet<>();
+
+        if (selector != null && selector.getMatchLabels() != null) {
+            for (final var label : selector.getMatchLabels().entrySet()) {
+                candidates = intersect(candidates,
+                                       indexKeys(indexer, LABEL_INDEX, entry(label.getKey(), label.getValue())));
+                if (candidates.isEmpty()) {
+                    return candidates;
+                }
+            }
+        }
+
+        if (selector != null && selector.getMatchExpressions() != null) {
+            for (final var requirement : selector.getMatchExpressions()) {
+                switch (requirement.getOperator()) {
+                    case OPERATOR_IN:
+                        candidates = intersect(candidates, keysForValues(indexer, requirement));
+                        break;
+                    case OPERATOR_EXISTS:
+                        candidates = intersect(candidates, indexKeys(indexer, LABEL_KEY_INDEX, requirement.getKey()));
+                        break;
+                    case OPERATOR_NOT_IN:
+                        excluded.addAll(keysForValues(indexer, requirement));
+                        break;
+                    case OPERATOR_DOES_NOT_EXIST:
+                        excluded.addAll(indexKeys(indexer, LABEL_KEY_INDEX, requirement.getKey()));
+                        break;
+                    default:
+                        throw new IllegalArgumentException(String.format("Unsupported label selector operator %s",
+                                                                         requirement.getOperator()));
+                }
+                if (candidates != null && candidates.isEmpty()) {
+                    return candidates;
+                }
+            }
+        }
+
+        if (candidates == null) {
+            candidates = new HashSet<>(indexer.listKeys());
+        }
+        candidates.removeAll(excluded);
+        return candidates;
+    }
+
+    private static Set<String> keysForValues(final Indexer<?> indexer, final LabelSelectorRequirement requirement) {
+        final Set<String> keys = new HashSet<>();
+        if (requirement.getValues() != null) {
+            for (final var value : requirement.getValues()) {
+                keys.addAll(indexKeys(indexer, LABEL_INDEX, entry(requirement.getKey(), value)));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Like {@link Indexer#indexKeys(String, String)}, which fails for an index value no resource carries
+     */
+    private static List<String> indexKeys(final Indexer<?> indexer, final String indexName, final String indexKey) {
+        final var resources = indexer.byIndex(indexName, indexKey);
+        final var keys = new ArrayList<String>(resources.size());
+        for (final var resource : resources) {
+            keys.add(Cache.metaNamespaceKeyFunc(resource));
+        }
+        return keys;
+    }
+
+    private static Set<String> intersect(final Set<String> candidates, final Collection<String> keys) {
+        if (candidates == null) {
+            return new HashSet<>(keys);
+        }
+        candidates.retainAll(keys instanceof Set ? keys : new HashSet<>(keys));
+        return candidates;
+    }
+
+    private static String entry(final String key, final String value) {
+        return key + "=" + value;
+    }
+
+    private static List<String> labelEntries(final HasMetadata resource) {
+        final var labels = labels(resource);
+        if (labels.isEmpty()) {
+            return List.of();
+        }
+        final var entries = new ArrayList<String>(labels.size());
+        labels.forEach((key, value) -> entries.add(entry(key, value)));
+        return entries;
+    }
+
+    private static List<String> labelKeys(final HasMetadata resource) {
+        return List.copyOf(labels(resource).keySet());
+    }
+
+    private static Map<String, String> labels(final HasMetadata resource) {
+        final var metadata = resource.getMetadata();
+        if (metadata == null || metadata.getLabels() == null) {
+            return Map.of();
+        }
+        return metadata.getLabels();
+    }
+}
@@ -1,6 +1,9 @@
 package com.oracle.k8sedit;
 
 
+import com.oracle.k8sedit.api.API;
+import com.oracle.k8sedit.api.APIList;
+import com.oracle.k8sedit.api.APISpec;
 import io.helidon.media.jackson.JacksonSupport;
 import io.helidon.metrics.MetricsSupport;
 import io.helidon.health.HealthSupport;
@@ -43,6 +46,7 @@ public final class Main {
 
         // By default this will pick up application.yaml from the classpath
         Config config = Config.create();
+        SharedInformerFactoryAndK8sClientSupplier.setConfig(config.get("k8s"));
 
         WebServer server = WebServer.builder(createRouting(config))
                 .config(config.get("server"))
@@ -74,16 +78,21 @@ public final class Main {
     private static Routing createRouting(Config config) {
         SimpleGreetService simpleGreetService = new SimpleGreetService(config);
         GreetService greetService = new GreetService(config);
+        ResourceService<APISpec, API, APIList> apiService = new ResourceService<>(APIs::getInstance, APIList::new);
 
+        RepositoryHealthChecks repositoryHealth = RepositoryHealthChecks.create(config.get("k8s.health"));
         HealthSupport health = HealthSupport.builder()
                 .addLiveness(HealthChecks.healthChecks()) // Adds a convenient set of checks
+                .addLiveness(repositoryHealth.liveness())
+                .addReadiness(repositoryHealth.readiness())
                 .build();
 
         Routing.Builder builder = Routing.builder()
                 .register(MetricsSupport.create()) // Metrics at "/metrics"
                 .register(health) // Health at "/health"
                 .register("/simple-greet", simpleGreetService)
-                .register("/greet", greetService); 
+                .register("/greet", greetService)
+                .register("/apis", apiService);
 
 
         return builder.build();
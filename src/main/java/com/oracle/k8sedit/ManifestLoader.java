@@ -0,0 +1,521 @@
+package com.oracle.k8sedit;
+
+import com.google.common.flogger.FluentLogger;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesList;
+import io.fabric8.kubernetes.api.model.Namespaced;
+import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinition;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.utils.Serialization;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Loads multi-document YAML and JSON manifests and applies them with create-or-replace. The files are read line by
+ * line and every document is handed to the executor for parsing as soon as its separator is read. The parsed documents
+ * are grouped by kind and the groups applied one after the other in {@link #KIND_ORDER}, so that namespaces, CRDs,
+ * service accounts, secrets and config maps exist before the resources referring to them; CRDs are awaited until they
+ * are established. Within a group the documents are applied concurrently. Every document gets a {@link DocumentResult},
+ * failures don't abort the rest of the manifests.
+ */
+public class ManifestLoader {
+    private static final FluentLogger log = FluentLogger.forEnclosingClass();
+    private static final Pattern DOCUMENT_SEPARATOR = Pattern.compile("^---\\s*(#.*)?$");
+    private static final Set<String> MANIFEST_EXTENSIONS = Set.of(".yml", ".yaml", ".json");
+    private static final String CUSTOM_RESOURCE_DEFINITION = "CustomResourceDefinition";
+    /**
+     * The order built-in kinds are applied in, kinds other resources depend on first. All other kinds, custom resources
+     * among them, follow in the order they first appear in the manifests.
+     */
+    static final List<String> KIND_ORDER = List.of("Namespace",
+                                                   CUSTOM_RESOURCE_DEFINITION,
+                                                   "PriorityClass",
+                                                   "ResourceQuota",
+                                                   "LimitRange",
+                                                   "NetworkPolicy",
+                                                   "ServiceAccount",
+                                                   "Secret",
+                                                   "ConfigMap",
+                                                   "StorageClass",
+                                                   "PersistentVolume",
+                                                   "PersistentVolumeClaim",
+                                                   "ClusterRole",
+                                                   "ClusterRoleBinding",
+                                                   "Role",
+                                                   "RoleBinding",
+                                                   "Service",
+                                                   "DaemonSet",
+                                                   "Pod",
+                                                   "ReplicaSet",
+                                                   "Deployment",
+                                                   "StatefulSet",
+                                                   "Job",
+                                                   "CronJob",
+                                                   "Ingress");
+    static final long CRD_ESTABLISHED_TIMEOUT_SEC = 30;
+
+    private final KubernetesClient k8sClient;
+    private final ExecutorService executorService;
+    private final int maxConcurrency;
+
+    /**
+     * @param k8sClient       the client to apply the resources with
+     * @param executorService the executor parsing documents and sending requests
+     * @param maxConcurrency  the maximum number of requests in flight
+     */
+    public ManifestLoader(final KubernetesClient k8sClient,
+                          final ExecutorService executorService,
+                          final int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1, was " + maxConcurrency);
+        }
+        this.k8sClient = k8sClient;
+        this.executorService = executorService;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Outcome of a single document of the manifests
+     */
+    public static final class DocumentResult {
+        private final String source;
+        private final ResourceOperationResult<HasMetadata> result;
+
+        private DocumentResult(final String source, final ResourceOperationResult<HasMetadata> result) {
+            this.source = source;
+            this.result = result;
+        }
+
+        /**
+         * @return the file and the index of the document in it, e.g. {@code api.yml#2}
+         */
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * @return the result of parsing and applying the document. The requested resource is {@code null} if the
+         * document couldn't be parsed.
+         */
+        public ResourceOperationResult<HasMetadata> getResult() {
+            return result;
+        }
+
+        public boolean isSuccess() {
+            return result.isSuccess();
+        }
+
+        @Override
+        public String toString() {
+            return source + " " + result;
+        }
+    }
+
+    /**
+     * A parsed document waiting to be applied
+     */
+    static final class Document {
+        private final String source;
+        private final HasMetadata resource;
+        /**
+         * Index of the document's result in source order, {@code -1} until all documents were read
+         */
+        private final int position;
+
+        private Document(final String source, final HasMetadata resource, final int position) {
+            this.source = source;
+            this.resource = resource;
+            this.position = position;
+        }
+
+        private Document at(final int newPosition) {
+            return new Document(source, resource, newPosition);
+        }
+
+        String getSource() {
+            return source;
+        }
+
+        HasMetadata getResource() {
+            return resource;
+        }
+    }
+
+    /**
+     * A document being parsed, or a file or directory that couldn't be read
+     */
+    private static final class Pending {
+        private final String source;
+        private final CompletableFuture<List<Document>> parsed;
+
+        private Pending(final String source, final CompletableFuture<List<Document>> parsed) {
+            this.source = source;
+            this.parsed = parsed;
+        }
+
+        private static Pending failed(final String source, final Exception e) {
+            return new Pending(source, CompletableFuture.failedFuture(e));
+        }
+    }
+
+    /**
+     * Applies the manifest files and all manifest files below the directories
+     *
+     * @param paths            files and directories, directories are searched for {@code .yml}, {@code .yaml} and
+     *                         {@code .json} files in name order
+     * @param defaultNamespace the namespace of namespaced resources that don't declare one, may be {@code null}
+     * @return one result per document in source order, the order of the paths, the files and the documents in them,
+     * with the documents that couldn't be read or parsed among them
+     */
+    public List<DocumentResult> apply(final Collection<Path> paths, final String defaultNamespace) {
+        final List<Pending> pending = new ArrayList<>();
+        final var permits = new Semaphore(maxConcurrency);
+        for (final Path path : paths) {
+            final List<Path> files;
+            try {
+                files = manifestFiles(path);
+            } catch (final IOException e) {
+                log.atWarning().withCause(e).log("Could not list manifests in %s", path);
+                pending.add(Pending.failed(path.toString(), e));
+                continue;
+            }
+            for (final Path file : files) {
+                try {
+                    readDocuments(file, (source, document) -> pending.add(parseAsync(source, document, permits)));
+                } catch (final IOException | RuntimeException e) {
+                    log.atWarning().withCause(e).log("Could not read manifest %s", file);
+                    pending.add(Pending.failed(file.toString(), e));
+                }
+            }
+        }
+
+        // Every document gets its slot in source order, failures right away and applied documents once their kind is
+        final List<DocumentResult> results = new ArrayList<>(pending.size());
+        final List<Document> documents = new ArrayList<>(pending.size());
+        for (final var entry : pending) {
+            try {
+                for (final var document : entry.parsed.join()) {
+                    documents.add(document.at(results.size()));
+                    results.add(null);
+                }
+            } catch (final CompletionException e) {
+                results.add(new DocumentResult(entry.source, ResourceOperationResult.failure(null, unwrap(e))));
+            }
+        }
+
+        for (final var group : groupByKind(documents)) {
+            final var kind = group.get(0).resource.getKind();
+            log.atInfo().log("Applying %d %s resources", group.size(), kind);
+            final var applied = applyAll(group, defaultNamespace);
+            if (CUSTOM_RESOURCE_DEFINITION.equals(kind)) {
+                awaitEstablished(applied);
+            }
+            for (int i = 0; i < group.size(); i++) {
+                results.set(group.get(i).position, applied.get(i));
+            }
+        }
+
+        final long failures = results.stream().filter(result -> !result.isSuccess()).count();
+        if (failures > 0) {
+            log.atWarning().log("%d of %d manifest documents failed", failures, results.size());
+        }
+        return List.copyOf(results);
+    }
+
+    /**
+     * Groups the documents by kind, in the order the groups are applied
+     *
+     * @param documents the parsed documents in source order
+     * @return the groups, built-in kinds in {@link #KIND_ORDER} followed by all other kinds in the order they first
+     * appear. The documents of a group keep their source order.
+     */
+    static List<List<Document>> groupByKind(final List<Document> documents) {
+        final Map<String, List<Document>> byKind = new LinkedHashMap<>();
+        for (final var document : documents) {
+            byKind.computeIfAbsent(document.resource.getKind(), kind -> new ArrayList<>()).add(document);
+        }
+        final List<String> kinds = new ArrayList<>(byKind.keySet());
+        // A stable sort, so the kinds missing from KIND_ORDER stay in the order they appeared
+        kinds.sort(Comparator.comparingInt(ManifestLoader::applyRank));
+        final List<List<Document>> groups = new ArrayList<>(kinds.size());
+        kinds.forEach(kind -> groups.add(byKind.get(kind)));
+        return groups;
+    }
+
+    private static int applyRank(final String kind) {
+        final int rank = KIND_ORDER.indexOf(kind);
+        return rank < 0 ? KIND_ORDER.size() : rank;
+    }
+
+    /**
+     * Parses the document on the executor once one of the {@link #maxConcurrency} permits is free
+     */
+    private Pending parseAsync(final String source, final String document, final Semaphore permits) {
+        try {
+            permits.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Pending.failed(source, e);
+        }
+        try {
+            return new Pending(source,
+                               CompletableFuture.supplyAsync(() -> parse(source, document), executorService)
+                                       .whenComplete((parsed, t) -> permits.release()));
+        } catch (final RejectedExecutionException e) {
+            permits.release();
+            return Pending.failed(source, e);
+        }
+    }
+
+    private static List<Path> manifestFiles(final Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        try (Stream<Path> walk = Files.walk(path)) {
+            return walk.filter(Files::isRegularFile)
+                    .filter(ManifestLoader::isManifest)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isManifest(final Path file) {
+        final var name = file.getFileName().toString();
+        final int extension = name.lastIndexOf('.');
+        return extension > 0 && MANIFEST_EXTENSIONS.contains(name.substring(extension));
+    }
+
+    /**
+     * Splits the file into documents while reading it and passes each one on right away. Documents that are empty or
+     * only hold comments are skipped, but still count for the index in their source.
+     *
+     * @param file     the manifest file
+     * @param consumer receives the source, e.g. {@code api.yml#2}, and the text of each document
+     * @throws IOException if the file can't be read
+     */
+    static void readDocuments(final Path file, final BiConsumer<String, String> consumer) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            final var document = new StringBuilder();
+            int index = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (DOCUMENT_SEPARATOR.matcher(line).matches()) {
+                    accept(file + "#" + index++, document.toString(), consumer);
+                    document.setLength(0);
+                } else {
+                    document.append(line).append('\n');
+                }
+            }
+            accept(file + "#" + index, document.toString(), consumer);
+        }
+    }
+
+    private static void accept(final String source, final String document, final BiConsumer<String, String> consumer) {
+        if (!isBlank(document)) {
+            consumer.accept(source, document);
+        }
+    }
+
+    private static boolean isBlank(final String document) {
+        return document.lines().map(String::strip).allMatch(line -> line.isEmpty() || line.startsWith("#"));
+    }
+
+    /**
+     * @param source   the file and index of the document
+     * @param document the text of the document
+     * @return the resource of the document, or the items of a {@code List}, whose sources carry their index
+     * @throws ParseException if the document isn't valid YAML or JSON, or no Kubernetes resource
+     */
+    static List<Document> parse(final String source, final String document) {
+        final Object parsed;
+        try {
+            parsed = Serialization.unmarshal(document);
+        } catch (final Exception e) {
+            throw new ParseException(source, e);
+        }
+        if (parsed instanceof KubernetesList) {
+            final List<Document> documents = new ArrayList<>();
+            final var items = ((KubernetesList) parsed).getItems();
+            for (int i = 0; i < items.size(); i++) {
+                documents.add(new Document(source + "[" + i + "]", items.get(i), -1));
+            }
+            return documents;
+        }
+        if (!(parsed instanceof HasMetadata)) {
+            throw new ParseException(source, new IllegalArgumentException("Document is not a Kubernetes resource"));
+        }
+        return List.of(new Document(source, (HasMetadata) parsed, -1));
+    }
+
+    /**
+     * Applies the documents with at most {@link #maxConcurrency} requests in flight
+     *
+     * @return the results in the order of the documents
+     */
+    private List<DocumentResult> applyAll(final List<Document> documents, final String defaultNamespace) {
+        final var permits = new Semaphore(maxConcurrency);
+        final List<CompletableFuture<DocumentResult>> pending = new ArrayList<>(documents.size());
+        for (final var document : documents) {
+            try {
+                permits.acquire();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pending.add(CompletableFuture.completedFuture(
+                        new DocumentResult(document.source, ResourceOperationResult.failure(document.resource, e))));
+                continue;
+            }
+            try {
+                pending.add(CompletableFuture
+                                    .supplyAsync(() -> new DocumentResult(
+                                            document.source,
+                                            ResourceOperationResult.success(document.resource,
+                                                                            apply(document.resource,
+                                                                                  defaultNamespace))),
+                                                 executorService)
+                                    .exceptionally(t -> new DocumentResult(
+                                            document.source,
+                                            ResourceOperationResult.failure(document.resource, unwrap(t))))
+                                    .whenComplete((result, t) -> permits.release()));
+            } catch (final RejectedExecutionException e) {
+                permits.release();
+                pending.add(CompletableFuture.completedFuture(
+                        new DocumentResult(document.source, ResourceOperationResult.failure(document.resource, e))));
+            }
+        }
+        return pending.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    private HasMetadata apply(final HasMetadata resource, final String defaultNamespace) {
+        final var metadata = resource.getMetadata();
+        final boolean defaultsNamespace = metadata != null
+                                          && metadata.getNamespace() == null
+                                          && defaultNamespace != null
+                                          && (resource instanceof Namespaced
+                                              || resource instanceof GenericKubernetesResource
+                                              || !isModelClass(resource));
+        final var applied = defaultsNamespace
+                ? k8sClient.resource(resource).inNamespace(defaultNamespace).createOrReplace()
+                : k8sClient.resource(resource).createOrReplace();
+        log.atFine().log("Applied %s %s", resource.getKind(), applied.getMetadata().getName());
+        return applied;
+    }
+
+    /**
+     * Built-in kinds declare whether they are namespaced through {@link Namespaced}, other kinds, including those parsed
+     * as {@link GenericKubernetesResource}, are assumed to be namespaced custom resources
+     */
+    private static boolean isModelClass(final HasMetadata resource) {
+        return resource.getClass().getPackageName().startsWith("io.fabric8.kubernetes.api.model");
+    }
+
+    /**
+     * Waits until the applied CRDs are established, so that their instances are accepted by the apiserver
+     */
+    private void awaitEstablished(final List<DocumentResult> results) {
+        final var crds = k8sClient.apiextensions().v1().customResourceDefinitions();
+        final List<CompletableFuture<Void>> waiting = new ArrayList<>();
+        for (final var result : results) {
+            result.getResult().getResource()
+                    .filter(CustomResourceDefinition.class::isInstance)
+                    .map(crd -> crd.getMetadata().getName())
+                    .ifPresent(name -> waiting.add(CompletableFuture.runAsync(() -> {
+                        try {
+                            crds.withName(name).waitUntilCondition(ManifestLoader::isEstablished,
+                                                                   CRD_ESTABLISHED_TIMEOUT_SEC,
+                                                                   TimeUnit.SECONDS);
+                        } catch (final RuntimeException e) {
+                            log.atWarning().withCause(e).log("CRD %s not established, applying its instances anyway",
+                                                             name);
+                        }
+                    }, executorService)));
+        }
+        waiting.forEach(CompletableFuture::join);
+    }
+
+    private static boolean isEstablished(final CustomResourceDefinition crd) {
+        return crd != null
+               && crd.getStatus() != null
+               && crd.getStatus().getConditions().stream()
+                       .anyMatch(condition -> "Established".equals(condition.getType())
+                                              && "True".equals(condition.getStatus()));
+    }
+
+    private static Exception unwrap(final Throwable t) {
+        final var cause = t instanceof CompletionException && t.getCause() != null
+                ? t.getCause()
+                : t;
+        return cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+    }
+
+    /**
+     * A document that isn't valid YAML or JSON, or no Kubernetes resource
+     */
+    static final class ParseException extends RuntimeException {
+        private final String source;
+
+        private ParseException(final String source, final Exception cause) {
+            super(String.format("Could not parse %s: %s", source, cause.getMessage()), cause);
+            this.source = source;
+        }
+    }
+
+    /**
+     * Applies manifests from the command line:
+     * {@code ManifestLoader [-n namespace] [-c max-concurrency] file-or-directory...}. Exits with {@code 1} if any
+     * document failed.
+     *
+     * @param args command line arguments
+     */
+    public static void main(final String[] args) {
+        String namespace = null;
+        int concurrency = AbstractCRDRepository.DEFAULT_BULK_CONCURRENCY;
+        final List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("-n".equals(args[i]) && i + 1 < args.length) {
+                namespace = args[++i];
+            } else if ("-c".equals(args[i]) && i + 1 < args.length) {
+                concurrency = Integer.parseInt(args[++i]);
+            } else {
+                paths.add(Path.of(args[i]));
+            }
+        }
+        if (paths.isEmpty()) {
+            System.err.println("Usage: ManifestLoader [-n namespace] [-c max-concurrency] file-or-directory...");
+            System.exit(2);
+        }
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(concurrency);
+        final List<DocumentResult> results;
+        try (KubernetesClient kubernetesClient = new DefaultKubernetesClient()) {
+            results = new ManifestLoader(kubernetesClient, executorService, concurrency).apply(paths, namespace);
+        } finally {
+            executorService.shutdown();
+        }
+        results.forEach(System.out::println);
+        System.exit(results.stream().allMatch(DocumentResult::isSuccess) ? 0 : 1);
+    }
+}
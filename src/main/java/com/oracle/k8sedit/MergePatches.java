@@ -0,0 +1,208 @@
+package com.oracle.k8sedit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.utils.Serialization;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Computes JSON merge patches (RFC 7386) between two versions of a resource, ignoring the metadata the apiserver manages
+ * itself. An empty patch means the desired resource doesn't differ from the existing one.
+ */
+public final class MergePatches {
+    /**
+     * Metadata fields that are set by the apiserver and never part of the desired state
+     */
+    static final List<String> SERVER_MANAGED_METADATA = List.of("resourceVersion",
+                                                                "uid",
+                                                                "creationTimestamp",
+                                                                "generation",
+                                                                "managedFields",
+                                                                "selfLink",
+                                                                "deletionTimestamp",
+                                                                "deletionGracePeriodSeconds");
+
+    /**
+     * Metadata fields maintained by controllers, never patched from a desired state
+     */
+    static final List<String> CONTROLLER_MANAGED_METADATA = List.of("finalizers", "ownerReferences");
+
+    /**
+     * Cannot be instantiated.
+     */
+    private MergePatches() {
+    }
+
+    /**
+     * Converts the resource to a JSON tree without server-managed metadata and without status
+     *
+     * @param resource the resource
+     * @return the normalized JSON tree
+     */
+    public static ObjectNode normalize(final HasMetadata resource) {
+        final ObjectNode node = Serialization.jsonMapper().valueToTree(resource);
+        node.remove("status");
+        final var metadata = node.get("metadata");
+        if (metadata instanceof ObjectNode) {
+            ((ObjectNode) metadata).remove(SERVER_MANAGED_METADATA);
+        }
+        return node;
+    }
+
+    /**
+     * Normalizes the resource like {@link #normalize(HasMetadata)} and drops the controller-managed metadata, leaving
+     * only the fields a desired state may set
+     */
+    private static ObjectNode desiredState(final HasMetadata resource) {
+        final var node = normalize(resource);
+        final var metadata = node.get("metadata");
+        if (metadata instanceof ObjectNode) {
+            ((ObjectNode) metadata).remove(CONTROLLER_MANAGED_METADATA);
+        }
+        return node;
+    }
+
+    /**
+     * Computes a SHA-256 hash of the normalized resource. Fields are hashed in name order, so resources that
+     * {@link #diff(HasMetadata, HasMetadata)} considers equal have the same hash regardless of the order of their
+     * fields, of server-managed metadata or of finalizers and owner references.
+     *
+     * @param resource the resource
+     * @return the hex-encoded hash
+     */
+    public static String contentHash(final HasMetadata resource) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        update(digest, desiredState(resource));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(final MessageDigest digest, final JsonNode node) {
+        if (node.isObject()) {
+            final List<String> fields = new ArrayList<>();
+            node.fieldNames().forEachRemaining(fields::add);
+            Collections.sort(fields);
+            digest.update((byte) '{');
+            for (final String field : fields) {
+                update(digest, TextNode.valueOf(field));
+                digest.update((byte) ':');
+                update(digest, node.get(field));
+                digest.update((byte) ',');
+            }
+            digest.update((byte) '}');
+        } else if (node.isArray()) {
+            digest.update((byte) '[');
+            for (final JsonNode element : node) {
+                update(digest, element);
+                digest.update((byte) ',');
+            }
+            digest.update((byte) ']');
+        } else {
+            digest.update(node.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Computes the merge patch turning the existing resource into the desired one. Finalizers and owner references are
+     * never patched, neither set from the desired resource nor removed when it doesn't carry them.
+     *
+     * @param existing the resource as currently stored
+     * @param desired  the desired resource
+     * @return the merge patch, empty if nothing changed
+     */
+    public static ObjectNode diff(final HasMetadata existing, final HasMetadata desired) {
+        return diff(desiredState(existing), desiredState(desired));
+    }
+
+    /**
+     * Computes the merge patch setting the fields of the desired resource on the existing one. Unlike
+     * {@link #diff(HasMetadata, HasMetadata)}, fields the desired resource doesn't set are left as they are instead of
+     * being removed, and finalizers and owner references are never patched.
+     *
+     * @param existing the resource as currently stored
+     * @param desired  the desired resource, possibly only setting some of the fields
+     * @return the merge patch, empty if the existing resource already has all fields of the desired one
+     */
+    public static ObjectNode diffSetFields(final HasMetadata existing, final HasMetadata desired) {
+        return diffSetFields(normalize(existing), desiredState(desired));
+    }
+
+    /**
+     * Computes the merge patch setting the fields of {@code target} on {@code source}. Objects are diffed recursively,
+     * arrays and scalar values are replaced as a whole. Fields missing from {@code target} or set to {@code null} in
+     * it aren't part of the patch.
+     *
+     * @param source the current JSON object
+     * @param target the JSON object with the fields to set
+     * @return the merge patch, empty if {@code source} has all fields of {@code target}
+     */
+    public static ObjectNode diffSetFields(final JsonNode source, final JsonNode target) {
+        final var patch = Serialization.jsonMapper().createObjectNode();
+        target.fields().forEachRemaining(field -> {
+            final var sourceValue = source.get(field.getKey());
+            final var targetValue = field.getValue();
+            if (targetValue.isNull()) {
+                return;
+            }
+            if (sourceValue == null || sourceValue.isNull()) {
+                patch.set(field.getKey(), targetValue);
+            } else if (sourceValue.isObject() && targetValue.isObject()) {
+                final var nested = diffSetFields(sourceValue, targetValue);
+                if (nested.size() > 0) {
+                    patch.set(field.getKey(), nested);
+                }
+            } else if (!sourceValue.equals(targetValue)) {
+                patch.set(field.getKey(), targetValue);
+            }
+        });
+        return patch;
+    }
+
+    /**
+     * Computes the merge patch turning {@code source} into {@code target}. Objects are diffed recursively, arrays and
+     * scalar values are replaced as a whole and removed fields are set to {@code null}.
+     *
+     * @param source the current JSON object
+     * @param target the desired JSON object
+     * @return the merge patch, empty if both are equal
+     */
+    public static ObjectNode diff(final JsonNode source, final JsonNode target) {
+        final var patch = Serialization.jsonMapper().createObjectNode();
+
+        source.fieldNames().forEachRemaining(field -> {
+            if (!target.has(field)) {
+                patch.putNull(field);
+            }
+        });
+
+        target.fields().forEachRemaining(field -> {
+            final var sourceValue = source.get(field.getKey());
+            final var targetValue = field.getValue();
+            if (sourceValue == null) {
+                patch.set(field.getKey(), targetValue);
+            } else if (sourceValue.isObject() && targetValue.isObject()) {
+                final var nested = diff(sourceValue, targetValue);
+                if (nested.size() > 0) {
+                    patch.set(field.getKey(), nested);
+                }
+            } else if (!sourceValue.equals(targetValue)) {
+                patch.set(field.getKey(), targetValue);
+            }
+        });
+
+        return patch;
+    }
+}
@@ -0,0 +1,108 @@
+package com.oracle.k8sedit;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ListOptions;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.informers.ListerWatcher;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.impl.DefaultSharedIndexInformer;
+import io.helidon.metrics.api.RegistryFactory;
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Lists and watches the resources of a {@link RepositoryScope} for an informer. The informer's reflector requests lists
+ * in pages of {@link #getLimit()} objects, follows the {@code continue} token of every page and adds its objects to the
+ * indexer as they arrive. Every page fetched, of the initial list and of relists, is counted in
+ * {@code k8s.informer.list.pages}. Listed and watched objects pass through {@link ResourceCompactor} before they
+ * reach the informer's cache.
+ *
+ * @param <T> the binding class of the resource
+ * @param <L> the binding list class of the resource
+ */
+final class PagingListerWatcher<T extends HasMetadata, L extends KubernetesResourceList<T>>
+        implements ListerWatcher<T, L> {
+    private final FilterWatchListDeletable<T, L> operation;
+    private final String namespace;
+    private final Long limit;
+    private final Counter pages;
+
+    // For unit testing
+    PagingListerWatcher(final FilterWatchListDeletable<T, L> operation,
+                                final String namespace,
+                                final long listPageSize,
+                                final String kind) {
+        this.operation = operation;
+        this.namespace = namespace;
+        this.limit = listPageSize > 0 ? listPageSize : null;
+        this.pages = RegistryFactory.getInstance()
+                .getRegistry(MetricRegistry.Type.APPLICATION)
+                .counter("k8s.informer.list.pages", new Tag("kind", kind));
+    }
+
+    /**
+     * Creates an informer for the resources of the scope
+     *
+     * @param kind         the kind reported in metrics
+     * @param clazz        the binding class of the resource
+     * @param resources    the resource client
+     * @param namespace    the namespace to watch, {@code null} for all namespaces
+     * @param scope        the scope providing the label and field selectors
+     * @param listPageSize the number of objects per list page, {@code 0} to list everything in one response
+     * @param executor     runs the informer's event handlers
+     * @return the informer, not started yet
+     */
+    static <T extends HasMetadata, L extends KubernetesResourceList<T>> SharedIndexInformer<T> informer(
+            final String kind,
+            final Class<T> clazz,
+            final MixedOperation<T, L, ? extends Resource<T>> resources,
+            final String namespace,
+            final RepositoryScope scope,
+            final long listPageSize,
+            final Executor executor) {
+        FilterWatchListDeletable<T, L> operation = namespace == null
+                ? resources.inAnyNamespace()
+                : resources.inNamespace(namespace);
+        if (scope.getLabelSelector() != null) {
+            operation = operation.withLabelSelector(scope.getLabelSelector());
+        }
+        if (!scope.getFields().isEmpty()) {
+            operation = operation.withFields(scope.getFields());
+        }
+        return new DefaultSharedIndexInformer<>(clazz,
+                                                new PagingListerWatcher<>(operation, namespace, listPageSize, kind),
+                                                InformerResourceHandler.INFORMER_RE_SYNC_PERIOD_MILLIS,
+                                                executor);
+    }
+
+    @Override
+    public Watch watch(final ListOptions params, final Watcher<T> watcher) {
+        return operation.watch(params, ResourceCompactor.compacting(watcher));
+    }
+
+    @Override
+    public L list(final ListOptions params) {
+        final var list = operation.list(params);
+        pages.inc();
+        list.getItems().replaceAll(ResourceCompactor::compacted);
+        return list;
+    }
+
+    @Override
+    public Long getLimit() {
+        return limit;
+    }
+
+    @Override
+    public String getNamespace() {
+        return namespace;
+    }
+}
@@ -0,0 +1,135 @@
+package com.oracle.k8sedit;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.fabric8.kubernetes.client.utils.Serialization;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A JSON value kept as its serialized bytes. It is only parsed into maps, lists and scalars the first time
+ * {@link #getValue()} is called, and is written back verbatim. Values read from YAML are stored as JSON.
+ */
+@JsonSerialize(using = RawJsonValue.Serializer.class)
+@JsonDeserialize(using = RawJsonValue.Deserializer.class)
+public final class RawJsonValue {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final RawJsonValue NULL = new RawJsonValue("null".getBytes(StandardCharsets.UTF_8));
+
+    private final byte[] json;
+    private volatile Object value;
+    private volatile boolean parsed;
+
+    private RawJsonValue(final byte[] json) {
+        this.json = json;
+    }
+
+    /**
+     * @param json the serialized JSON value, not copied
+     * @return the raw value
+     */
+    public static RawJsonValue of(final byte[] json) {
+        return new RawJsonValue(json);
+    }
+
+    /**
+     * Parses the value on first access, with the same types Jackson uses for untyped values
+     *
+     * @return the parsed value
+     * @throws UncheckedIOException if the stored JSON can't be parsed
+     */
+    public Object getValue() {
+        if (!parsed) {
+            try {
+                value = Serialization.jsonMapper().readValue(json, Object.class);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            parsed = true;
+        }
+        return value;
+    }
+
+    /**
+     * @return the value as JSON string
+     */
+    public String toJson() {
+        return new String(json, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+
+    /**
+     * Compares the parsed values, so formatting and field order don't matter. Identical bytes are equal without being
+     * parsed.
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RawJsonValue)) {
+            return false;
+        }
+        final var that = (RawJsonValue) o;
+        return Arrays.equals(json, that.json) || Objects.equals(getValue(), that.getValue());
+    }
+
+    /**
+     * Hashes the parsed value to be consistent with {@link #equals(Object)}, so it parses the value
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getValue());
+    }
+
+    static final class Deserializer extends JsonDeserializer<RawJsonValue> {
+        @Override
+        public RawJsonValue deserialize(final JsonParser parser, final DeserializationContext context)
+                throws IOException {
+            final var out = new ByteArrayOutputStream(64);
+            try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+                generator.copyCurrentStructure(parser);
+            }
+            return new RawJsonValue(out.toByteArray());
+        }
+
+        @Override
+        public RawJsonValue getNullValue(final DeserializationContext context) {
+            return NULL;
+        }
+    }
+
+    static final class Serializer extends JsonSerializer<RawJsonValue> {
+        @Override
+        public void serialize(final RawJsonValue rawValue,
+                              final JsonGenerator generator,
+                              final SerializerProvider provider) throws IOException {
+            if (generator instanceof JsonGeneratorImpl) {
+                generator.writeRawValue(rawValue.toJson());
+                return;
+            }
+            // YAML and token buffers can't take raw JSON, replay the tokens instead
+            try (JsonParser parser = JSON_FACTORY.createParser(rawValue.json)) {
+                parser.nextToken();
+                generator.copyCurrentStructure(parser);
+            }
+        }
+    }
+}
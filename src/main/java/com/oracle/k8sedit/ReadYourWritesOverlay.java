@@ -0,0 +1,358 @@
+package com.oracle.k8sedit;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Overlay over the informer cache holding the apiserver's responses to this process' own writes. Reads are served from
+ * the overlay until the informer has caught up to the written resourceVersion, at which point the entry is evicted,
+ * either by the informer event or by the next read. Entries are dropped after {@link #MAX_ENTRY_AGE_NANOS} in any case,
+ * so a missed event can't pin a stale overlay entry.
+ *
+ * @param <T> the binding class of the resource
+ */
+class ReadYourWritesOverlay<T extends HasMetadata> implements ResourceEventHandler<T> {
+    private static final long MAX_ENTRY_AGE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final Map<String, Entry<T>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicInteger countDelta = new AtomicInteger();
+    private volatile LongConsumer lagListener = nanos -> {
+    };
+    private volatile BiFunction<String, String, T> cacheLookup = (namespace, name) -> null;
+
+    /**
+     * Sets the listener told how long the informer took to deliver a write recorded in the overlay
+     *
+     * @param lagListener receives the nanoseconds between recording a write and the informer event catching up
+     */
+    void setLagListener(final LongConsumer lagListener) {
+        this.lagListener = lagListener;
+    }
+
+    /**
+     * Sets the lookup telling whether the informer caches a resource when a write is recorded, which
+     * {@link #getCountDelta()} is based on
+     *
+     * @param cacheLookup finds the cached copy of a resource by namespace and name, {@code null} if not cached
+     */
+    void setCacheLookup(final BiFunction<String, String, T> cacheLookup) {
+        this.cacheLookup = cacheLookup;
+    }
+
+    /**
+     * Records the resource as returned by a successful create, update, replace or patch
+     *
+     * @param written the resource returned by the apiserver
+     */
+    void recordWrite(final T written) {
+        if (written == null || written.getMetadata() == null) {
+            return;
+        }
+        final var metadata = written.getMetadata();
+        final boolean cached = cacheLookup.apply(metadata.getNamespace(), metadata.getName()) != null;
+        record(new Entry<>(written,
+                           metadata.getNamespace(),
+                           metadata.getName(),
+                           metadata.getResourceVersion(),
+                           false,
+                           cached ? 0 : 1));
+    }
+
+    /**
+     * Records a successful delete, hiding the resource until the informer reports the deletion
+     *
+     * @param namespace the namespace of the deleted resource
+     * @param name      the name of the deleted resource
+     */
+    void recordDelete(final String namespace, final String name) {
+        final boolean cached = cacheLookup.apply(namespace, name) != null;
+        record(new Entry<>(null, namespace, name, null, true, cached ? -1 : 0));
+    }
+
+    /**
+     * Stores the entry unless a newer write of the resource is already recorded, and moves the count delta from the
+     * replaced entry to the new one
+     */
+    private void record(final Entry<T> entry) {
+        entries.compute(key(entry.namespace, entry.name), (key, existing) -> {
+            if (existing != null && !entry.deleted && !existing.deleted
+                    && isOlder(entry.resourceVersion, existing.resourceVersion)) {
+                return existing;
+            }
+            countDelta.addAndGet(entry.countDelta - (existing == null ? 0 : existing.countDelta));
+            return entry;
+        });
+        version.incrementAndGet();
+    }
+
+    /**
+     * Resolves what a reader should see for a single resource
+     *
+     * @param namespace the namespace of the resource
+     * @param name      the name of the resource
+     * @param cached    the informer's cached copy, may be {@code null}
+     * @return the resource to return to the reader, may be {@code null}
+     */
+    T resolve(final String namespace, final String name, final T cached) {
+        if (entries.isEmpty()) {
+            return cached;
+        }
+        final var key = key(namespace, name);
+        final var entry = entries.get(key);
+        if (entry == null) {
+            return cached;
+        }
+        if (entry.isExpired() || isCaughtUp(entry, cached)) {
+            evict(key, entry);
+            return cached;
+        }
+        return entry.resource;
+    }
+
+    /**
+     * Applies the overlay to a list read from the informer cache
+     *
+     * @param cached    all cached resources of the namespace, or of all namespaces
+     * @param namespace restricts the overlay to a namespace, {@code null} for all namespaces
+     * @return the cached list itself if no entry applies, otherwise an unmodifiable merged copy ordered by namespace and
+     * name
+     */
+    List<T> resolve(final List<T> cached, final String namespace) {
+        return resolve(cached, namespace, resource -> true, null);
+    }
+
+    /**
+     * Applies the overlay to the result of a query on the informer cache, such as an index or label selector lookup.
+     * Written resources replace their cached copies if they match the query and hide them otherwise.
+     *
+     * @param cached    the resources the query returned
+     * @param namespace restricts the overlay to a namespace, {@code null} for all namespaces
+     * @param filter    the condition of the query
+     * @param lookup    finds the cached copy of a resource by namespace and name, {@code null} if {@code cached} holds
+     *                  all cached resources of the namespace
+     * @return the cached list itself if no entry applies, otherwise an unmodifiable merged copy ordered by namespace and
+     * name
+     */
+    List<T> resolve(final List<T> cached,
+                    final String namespace,
+                    final Predicate<T> filter,
+                    final BiFunction<String, String, T> lookup) {
+        if (entries.isEmpty()) {
+            return cached;
+        }
+        List<Entry<T>> changes = null;
+        for (final var keyAndEntry : entries.entrySet()) {
+            final var entry = keyAndEntry.getValue();
+            if (namespace != null && !namespace.equals(entry.namespace)) {
+                continue;
+            }
+            final var cachedResource = lookup == null
+                    ? find(cached, entry.namespace, entry.name)
+                    : lookup.apply(entry.namespace, entry.name);
+            if (entry.isExpired() || isCaughtUp(entry, cachedResource)) {
+                evict(keyAndEntry.getKey(), entry);
+                continue;
+            }
+            if (changes == null) {
+                changes = new ArrayList<>();
+            }
+            changes.add(entry.deleted || filter.test(entry.resource) ? entry : entry.hiding());
+        }
+        return changes == null ? cached : merge(cached, changes);
+    }
+
+    /**
+     * Applies the changes to the ordered list in a single pass, without sorting it again
+     *
+     * @param sorted  a list ordered by namespace and name
+     * @param changes entries replacing or inserting their resource, or removing it if deleted
+     * @return an unmodifiable merged copy ordered by namespace and name
+     */
+    private static <T extends HasMetadata> List<T> merge(final List<T> sorted, final List<Entry<T>> changes) {
+        changes.sort(Entry.BY_NAMESPACE_AND_NAME);
+        final List<T> merged = new ArrayList<>(sorted.size() + changes.size());
+        int from = 0;
+        for (final var change : changes) {
+            final int after = ResourceSnapshot.indexAfter(sorted, change.namespace, change.name);
+            final boolean present = after > from && change.isFor(sorted.get(after - 1));
+            merged.addAll(sorted.subList(from, present ? after - 1 : after));
+            if (!change.deleted) {
+                merged.add(change.resource);
+            }
+            from = after;
+        }
+        merged.addAll(sorted.subList(from, sorted.size()));
+        return Collections.unmodifiableList(merged);
+    }
+
+    private static <T extends HasMetadata> T find(final List<T> sorted, final String namespace, final String name) {
+        final int after = ResourceSnapshot.indexAfter(sorted, namespace, name);
+        if (after > 0) {
+            final var metadata = sorted.get(after - 1).getMetadata();
+            if (Objects.equals(metadata.getNamespace(), namespace) && metadata.getName().equals(name)) {
+                return sorted.get(after - 1);
+            }
+        }
+        return null;
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * @return how many resources the overlay adds to the informer cache, negative if it hides more than it adds. Kept
+     * current as entries are recorded and evicted, so counting doesn't have to resolve the whole list.
+     */
+    int getCountDelta() {
+        return countDelta.get();
+    }
+
+    /**
+     * @return a counter increased whenever an entry is recorded or evicted, so that together with the version of the
+     * cache it identifies what readers see
+     */
+    long getVersion() {
+        return version.get();
+    }
+
+    @Override
+    public void onAdd(final T obj) {
+        evictIfCaughtUp(obj);
+    }
+
+    @Override
+    public void onUpdate(final T oldObj, final T newObj) {
+        evictIfCaughtUp(newObj);
+    }
+
+    @Override
+    public void onDelete(final T obj, final boolean deletedFinalStateUnknown) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        final var key = key(obj.getMetadata().getNamespace(), obj.getMetadata().getName());
+        entries.computeIfPresent(key, (ignored, entry) -> entry.deleted ? caughtUp(entry) : entry);
+    }
+
+    private void evictIfCaughtUp(final T obj) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        final var key = key(obj.getMetadata().getNamespace(), obj.getMetadata().getName());
+        entries.computeIfPresent(key, (ignored, entry) -> isCaughtUp(entry, obj) ? caughtUp(entry) : entry);
+    }
+
+    private Entry<T> caughtUp(final Entry<T> entry) {
+        lagListener.accept(System.nanoTime() - entry.recordedNanos);
+        countDelta.addAndGet(-entry.countDelta);
+        version.incrementAndGet();
+        return null;
+    }
+
+    private void evict(final String key, final Entry<T> entry) {
+        if (entries.remove(key, entry)) {
+            countDelta.addAndGet(-entry.countDelta);
+            version.incrementAndGet();
+        }
+    }
+
+    private static <T extends HasMetadata> boolean isCaughtUp(final Entry<T> entry, final T cached) {
+        if (entry.deleted) {
+            return cached == null;
+        }
+        return cached != null && !isOlder(cached.getMetadata().getResourceVersion(), entry.resourceVersion);
+    }
+
+    /**
+     * resourceVersions are opaque to clients, but in practice they are the etcd revision and increase monotonically.
+     * Versions that aren't numeric are only considered caught up once they are equal.
+     */
+    private static boolean isOlder(final String resourceVersion, final String than) {
+        if (than == null) {
+            return false;
+        }
+        if (resourceVersion == null) {
+            return true;
+        }
+        try {
+            return Long.parseLong(resourceVersion) < Long.parseLong(than);
+        } catch (final NumberFormatException e) {
+            return !resourceVersion.equals(than);
+        }
+    }
+
+    private static String key(final String namespace, final String name) {
+        return namespace == null ? name : namespace + "/" + name;
+    }
+
+    private static final class Entry<T> {
+        private static final Comparator<Entry<?>> BY_NAMESPACE_AND_NAME =
+                Comparator.comparing((Entry<?> entry) -> entry.namespace == null ? "" : entry.namespace)
+                        .thenComparing(entry -> entry.name);
+
+        private final T resource;
+        private final String namespace;
+        private final String name;
+        private final String resourceVersion;
+        private final boolean deleted;
+        private final int countDelta;
+        private final long recordedNanos;
+
+        private Entry(final T resource,
+                      final String namespace,
+                      final String name,
+                      final String resourceVersion,
+                      final boolean deleted,
+                      final int countDelta) {
+            this(resource, namespace, name, resourceVersion, deleted, countDelta, System.nanoTime());
+        }
+
+        private Entry(final T resource,
+                      final String namespace,
+                      final String name,
+                      final String resourceVersion,
+                      final boolean deleted,
+                      final int countDelta,
+                      final long recordedNanos) {
+            this.resource = resource;
+            this.namespace = namespace;
+            this.name = name;
+            this.resourceVersion = resourceVersion;
+            this.deleted = deleted;
+            this.countDelta = countDelta;
+            this.recordedNanos = recordedNanos;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - recordedNanos > MAX_ENTRY_AGE_NANOS;
+        }
+
+        /**
+         * @return a change removing the resource from a query result it no longer matches
+         */
+        private Entry<T> hiding() {
+            return new Entry<>(null, namespace, name, resourceVersion, true, countDelta, recordedNanos);
+        }
+
+        private boolean isFor(final HasMetadata resource) {
+            return Objects.equals(resource.getMetadata().getNamespace(), namespace)
+                    && resource.getMetadata().getName().equals(name);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.oracle.k8sedit;
+
+import io.helidon.config.Config;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How repositories recover from informers that fail to sync or to establish their watch: the informer is stopped and
+ * recreated after a jittered exponential backoff, and the process only exits once {@link #getMaxAttempts()}
+ * consecutive restarts failed. The jitter spreads the relists of many replicas hit by the same apiserver outage.
+ */
+public final class RecoveryPolicy {
+    static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofSeconds(1);
+    static final Duration DEFAULT_MAX_BACKOFF = Duration.ofMinutes(1);
+    static final int DEFAULT_MAX_ATTEMPTS = 10;
+
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final int maxAttempts;
+
+    private RecoveryPolicy(final Duration initialBackoff, final Duration maxBackoff, final int maxAttempts) {
+        if (initialBackoff.isNegative() || initialBackoff.isZero() || maxBackoff.compareTo(initialBackoff) < 0) {
+            throw new IllegalArgumentException(String.format("Invalid backoff from %s to %s",
+                                                             initialBackoff, maxBackoff));
+        }
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * @return the default policy: backoff from one second up to a minute, exit after ten failed restarts
+     */
+    public static RecoveryPolicy defaults() {
+        return new RecoveryPolicy(DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * @param initialBackoff the backoff before the first restart
+     * @param maxBackoff     the upper bound of the backoff
+     * @param maxAttempts    the number of consecutive restarts before exiting, {@code 0} exits on the first failure
+     * @return the policy
+     */
+    public static RecoveryPolicy of(final Duration initialBackoff, final Duration maxBackoff, final int maxAttempts) {
+        return new RecoveryPolicy(initialBackoff, maxBackoff, maxAttempts);
+    }
+
+    /**
+     * Creates the policy from the {@code k8s.informer.recovery} configuration node with the keys
+     * {@code initial-backoff-millis}, {@code max-backoff-millis} and {@code max-attempts}
+     *
+     * @param recoveryConfig the recovery configuration node
+     * @return the policy, the defaults for missing keys
+     */
+    public static RecoveryPolicy create(final Config recoveryConfig) {
+        return new RecoveryPolicy(recoveryConfig.get("initial-backoff-millis").asLong()
+                                          .map(Duration::ofMillis)
+                                          .orElse(DEFAULT_INITIAL_BACKOFF),
+                                  recoveryConfig.get("max-backoff-millis").asLong()
+                                          .map(Duration::ofMillis)
+                                          .orElse(DEFAULT_MAX_BACKOFF),
+                                  recoveryConfig.get("max-attempts").asInt().orElse(DEFAULT_MAX_ATTEMPTS));
+    }
+
+    /**
+     * @return the number of consecutive restarts before the process exits
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Returns the delay before a restart: a random value between half and all of the exponential backoff, which
+     * doubles with every attempt up to the maximum
+     *
+     * @param attempt the restart attempt, starting at {@code 1}
+     * @return the delay in milliseconds
+     */
+    long backoffMillis(final int attempt) {
+        final long initial = initialBackoff.toMillis();
+        final int doublings = Math.min(Math.max(attempt - 1, 0), Long.numberOfLeadingZeros(initial) - 1);
+        final long ceiling = Math.min(maxBackoff.toMillis(), initial << doublings);
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling - ceiling / 2 + 1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("backoff %s to %s, %d attempts", initialBackoff, maxBackoff, maxAttempts);
+    }
+}
@@ -0,0 +1,147 @@
+package com.oracle.k8sedit;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import org.eclipse.microprofile.health.HealthCheckResponseBuilder;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Health state of a repository as seen by the probes. Events and relists update it as they happen, and
+ * {@link RepositoryHealthChecks} refreshes the informer flags in the background, so a probe only reads fields.
+ *
+ * @param <T> the binding class of the resource
+ */
+final class RepositoryHealth<T extends HasMetadata> implements ResourceEventHandler<T> {
+    /**
+     * Time informers get to start running after a relist before the repository is reported dead
+     */
+    static final Duration LIVENESS_GRACE = Duration.ofSeconds(60);
+
+    private final AbstractResourceRepository<T, ?, ?> repository;
+    private volatile boolean started;
+    private volatile boolean running;
+    private volatile boolean synced;
+    private volatile boolean watching;
+    private volatile boolean resumed;
+    private volatile boolean stale;
+    private volatile boolean recovering;
+    private volatile int cachedResources;
+    private volatile Instant staleSince;
+    private volatile long lastEventMillis;
+    private volatile long lastRelistMillis;
+
+    RepositoryHealth(final AbstractResourceRepository<T, ?, ?> repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Lets the repository recover informers that lost their watch and copies its informer state, called periodically
+     * off the probe path
+     */
+    void refresh() {
+        repository.checkInformers();
+        started = repository.isSyncStarted();
+        running = repository.informersRunning();
+        synced = repository.informersSynced();
+        watching = repository.informersWatching();
+        resumed = repository.isResumed();
+        stale = repository.isStale();
+        recovering = repository.isRecovering();
+        cachedResources = repository.cachedResourceCount();
+        staleSince = stale ? repository.getStaleSince() : null;
+    }
+
+    /**
+     * Records that the informers started a full list
+     */
+    void relisted() {
+        lastRelistMillis = System.currentTimeMillis();
+    }
+
+    String getKind() {
+        return repository.getSimpleResourceName();
+    }
+
+    /**
+     * Ready when the informers are synced and watching and still deliver events, or when the repository serves a
+     * stored snapshot that is younger than {@code maxStaleness}. Informers resync their cache periodically, so a
+     * non-empty cache without any event for {@code maxEventAge} means they stopped processing. Repositories that
+     * haven't started syncing have nothing to serve yet and don't hold readiness back.
+     *
+     * @param maxStaleness the maximum age of a stored snapshot served while the informers sync
+     * @param maxEventAge  the maximum time without events while resources are cached, zero to not check it
+     * @return whether the repository can serve reads
+     */
+    boolean isReady(final Duration maxStaleness, final Duration maxEventAge) {
+        if (!started || resumed) {
+            return true;
+        }
+        if (synced && watching) {
+            return !eventsOverdue(maxEventAge);
+        }
+        return stale && staleness().compareTo(maxStaleness) <= 0;
+    }
+
+    private boolean eventsOverdue(final Duration maxEventAge) {
+        if (maxEventAge.isZero() || cachedResources == 0) {
+            return false;
+        }
+        final long lastActivity = Math.max(lastEventMillis, lastRelistMillis);
+        return lastActivity > 0 && System.currentTimeMillis() - lastActivity > maxEventAge.toMillis();
+    }
+
+    /**
+     * Dead when informers were started more than {@link #LIVENESS_GRACE} ago and aren't running, e.g. after they
+     * failed to start. A restart is the only way out of that state, unless the repository is still recovering the
+     * informers itself.
+     *
+     * @return whether the repository is alive
+     */
+    boolean isLive() {
+        return lastRelistMillis == 0
+               || running
+               || resumed
+               || recovering
+               || System.currentTimeMillis() - lastRelistMillis < LIVENESS_GRACE.toMillis();
+    }
+
+    void addData(final HealthCheckResponseBuilder builder) {
+        final var prefix = getKind() + ".";
+        builder.withData(prefix + "synced", synced)
+                .withData(prefix + "watching", watching)
+                .withData(prefix + "resumed", resumed)
+                .withData(prefix + "stale", stale)
+                .withData(prefix + "recovering", recovering);
+        if (stale) {
+            builder.withData(prefix + "stalenessSeconds", staleness().toSeconds());
+        }
+        if (lastEventMillis > 0) {
+            builder.withData(prefix + "lastEventAgeSeconds", (System.currentTimeMillis() - lastEventMillis) / 1000);
+        }
+        if (lastRelistMillis > 0) {
+            builder.withData(prefix + "lastRelistAgeSeconds", (System.currentTimeMillis() - lastRelistMillis) / 1000);
+        }
+    }
+
+    private Duration staleness() {
+        final var since = staleSince;
+        return since == null ? Duration.ZERO : Duration.between(since, Instant.now());
+    }
+
+    @Override
+    public void onAdd(final T obj) {
+        lastEventMillis = System.currentTimeMillis();
+    }
+
+    @Override
+    public void onUpdate(final T oldObj, final T newObj) {
+        lastEventMillis = System.currentTimeMillis();
+    }
+
+    @Override
+    public void onDelete(final T obj, final boolean deletedFinalStateUnknown) {
+        lastEventMillis = System.currentTimeMillis();
+    }
+}
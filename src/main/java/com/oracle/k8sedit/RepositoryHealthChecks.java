@@ -0,0 +1,108 @@
+package com.oracle.k8sedit;
+
+import io.helidon.config.Config;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Readiness and liveness checks over all repositories. Probes only read the {@link RepositoryHealth} state, which a
+ * background thread refreshes every {@link #REFRESH_INTERVAL_MILLIS}, so they never call into informers or the
+ * apiserver.
+ */
+public final class RepositoryHealthChecks {
+    static final long REFRESH_INTERVAL_MILLIS = 1000;
+    static final Duration DEFAULT_MAX_STALENESS = Duration.ofMinutes(5);
+    /**
+     * Two resync periods, informers touch every cached resource once per period
+     */
+    static final Duration DEFAULT_MAX_EVENT_AGE =
+            Duration.ofMillis(2 * InformerResourceHandler.INFORMER_RE_SYNC_PERIOD_MILLIS);
+
+    private static final List<RepositoryHealth<?>> REPOSITORIES = new CopyOnWriteArrayList<>();
+
+    /**
+     * Single daemon thread refreshing the health state of all repositories. Kept off the shared executor on purpose: the
+     * refresh has to report and recover informers while the executor is saturated, and it only checks state.
+     */
+    private static final ScheduledExecutorService REFRESHER =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final var thread = new Thread(runnable, "repository-health");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    static {
+        REFRESHER.scheduleWithFixedDelay(() -> REPOSITORIES.forEach(RepositoryHealth::refresh),
+                                         REFRESH_INTERVAL_MILLIS,
+                                         REFRESH_INTERVAL_MILLIS,
+                                         TimeUnit.MILLISECONDS);
+    }
+
+    private final Duration maxStaleness;
+    private final Duration maxEventAge;
+
+    private RepositoryHealthChecks(final Duration maxStaleness, final Duration maxEventAge) {
+        this.maxStaleness = maxStaleness;
+        this.maxEventAge = maxEventAge;
+    }
+
+    /**
+     * Creates the checks from the {@code k8s.health} configuration node. {@code max-staleness-seconds} is the age up to
+     * which a stored snapshot served during a resync still counts as ready, five minutes by default.
+     * {@code max-event-age-seconds} is the time a repository with cached resources may go without events, two informer
+     * resync periods by default, {@code 0} disables the check.
+     *
+     * @param healthConfig the health configuration node
+     * @return the checks
+     */
+    public static RepositoryHealthChecks create(final Config healthConfig) {
+        return new RepositoryHealthChecks(healthConfig.get("max-staleness-seconds").asLong()
+                                                  .map(Duration::ofSeconds)
+                                                  .orElse(DEFAULT_MAX_STALENESS),
+                                          healthConfig.get("max-event-age-seconds").asLong()
+                                                  .map(Duration::ofSeconds)
+                                                  .orElse(DEFAULT_MAX_EVENT_AGE));
+    }
+
+    static void register(final RepositoryHealth<?> health) {
+        health.refresh();
+        REPOSITORIES.add(health);
+    }
+
+    static void unregister(final RepositoryHealth<?> health) {
+        REPOSITORIES.remove(health);
+    }
+
+    /**
+     * @return a readiness check that is down while any repository can't serve reads, lost its watch, went without
+     * events for longer than the maximum event age or serves a stored snapshot older than the maximum staleness
+     */
+    public HealthCheck readiness() {
+        return () -> check("k8s-repositories-ready", health -> health.isReady(maxStaleness, maxEventAge));
+    }
+
+    /**
+     * @return a liveness check that is down when the informers of any repository failed to run
+     */
+    public HealthCheck liveness() {
+        return () -> check("k8s-repositories-live", RepositoryHealth::isLive);
+    }
+
+    private static HealthCheckResponse check(final String name, final Predicate<RepositoryHealth<?>> condition) {
+        final var builder = HealthCheckResponse.named(name);
+        boolean up = true;
+        for (final var health : REPOSITORIES) {
+            up &= condition.test(health);
+            health.addData(builder);
+        }
+        return builder.status(up).build();
+    }
+}
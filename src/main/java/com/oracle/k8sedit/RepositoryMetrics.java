@@ -0,0 +1,175 @@
+package com.oracle.k8sedit;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.helidon.metrics.api.RegistryFactory;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Meter;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.Timer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Metrics of a repository and its informers in the application registry, all tagged with the resource kind:
+ * <ul>
+ *     <li>{@value #OPERATIONS} timer and {@value #OPERATION_ERRORS} counter per write operation</li>
+ *     <li>{@value #EVENTS} meter per event type</li>
+ *     <li>{@value #OWN_WRITES_LAG} timer, from a write of this process acknowledged by the apiserver to its watch
+ *     event. Writes of other clients aren't covered, their lag isn't observable from here.</li>
+ *     <li>{@value #CACHE_SIZE} gauge per namespace, also tagged with the repository name</li>
+ *     <li>{@value #RELISTS}, {@value #RESUMES} and {@value #RESTARTS} counters</li>
+ * </ul>
+ * Gauges read the state of a single repository, so they are removed by {@link #close()} when it shuts down. A
+ * repository created under the same name later on takes them over.
+ *
+ * @param <T> the binding class of the resource
+ */
+final class RepositoryMetrics<T extends HasMetadata> implements ResourceEventHandler<T> {
+    static final String OPERATIONS = "k8s.repository.operations";
+    static final String OPERATION_ERRORS = "k8s.repository.operation.errors";
+    static final String EVENTS = "k8s.informer.events";
+    static final String OWN_WRITES_LAG = "k8s.informer.own.writes.lag";
+    static final String CACHE_SIZE = "k8s.cache.size";
+    static final String RELISTS = "k8s.informer.relists";
+    static final String RESUMES = "k8s.informer.resumes";
+    static final String RESTARTS = "k8s.informer.restarts";
+
+    private final MetricRegistry registry = RegistryFactory.getInstance().getRegistry(MetricRegistry.Type.APPLICATION);
+    private final Tag kind;
+    private final Tag repository;
+    private final ToIntFunction<String> namespaceSize;
+    /**
+     * Gauges registered by this instance by namespace, they keep the gauges' objects reachable
+     */
+    private final Map<String, Registered> gauges = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+    private final Meter added;
+    private final Meter updated;
+    private final Meter deleted;
+    private final Timer watchLag;
+
+    /**
+     * @param kind          the resource kind
+     * @param repository    the name of the repository, distinguishes repositories of a kind with different scopes
+     * @param namespaceSize returns the number of cached resources of a namespace without blocking
+     */
+    RepositoryMetrics(final String kind, final String repository, final ToIntFunction<String> namespaceSize) {
+        this.kind = new Tag("kind", kind);
+        this.repository = new Tag("repository", repository);
+        this.namespaceSize = namespaceSize;
+        added = registry.meter(EVENTS, this.kind, new Tag("type", "added"));
+        updated = registry.meter(EVENTS, this.kind, new Tag("type", "updated"));
+        deleted = registry.meter(EVENTS, this.kind, new Tag("type", "deleted"));
+        watchLag = registry.timer(Metadata.builder()
+                                          .withName(OWN_WRITES_LAG)
+                                          .withType(MetricType.TIMER)
+                                          .withDescription("Time from a write of this process acknowledged by the "
+                                                           + "apiserver until its watch event reached the cache. "
+                                                           + "Writes of other clients are not covered.")
+                                          .build(),
+                                  this.kind);
+    }
+
+    /**
+     * A gauge and the ID it was registered under
+     */
+    private static final class Registered {
+        private final MetricID id;
+        private final Gauge<?> gauge;
+
+        private Registered(final MetricID id, final Gauge<?> gauge) {
+            this.id = id;
+            this.gauge = gauge;
+        }
+    }
+
+    /**
+     * Times a write operation and counts its failures
+     *
+     * @param operation the operation name, e.g. {@code create}
+     * @param call      the operation
+     * @param <R>       the result type
+     * @return the result of the operation
+     */
+    <R> R time(final String operation, final Supplier<R> call) {
+        final var operationTag = new Tag("operation", operation);
+        final var context = registry.timer(OPERATIONS, kind, operationTag).time();
+        try {
+            return call.get();
+        } catch (final RuntimeException e) {
+            registry.counter(OPERATION_ERRORS, kind, operationTag).inc();
+            throw e;
+        } finally {
+            context.stop();
+        }
+    }
+
+    /**
+     * @param name the counter, {@link #RELISTS}, {@link #RESUMES} or {@link #RESTARTS}
+     */
+    void count(final String name) {
+        registry.counter(name, kind).inc();
+    }
+
+    void recordOwnWriteLag(final long nanos) {
+        watchLag.update(Duration.ofNanos(nanos));
+    }
+
+    @Override
+    public void onAdd(final T obj) {
+        added.mark();
+        registerNamespace(obj.getMetadata().getNamespace());
+    }
+
+    @Override
+    public void onUpdate(final T oldObj, final T newObj) {
+        updated.mark();
+    }
+
+    @Override
+    public void onDelete(final T obj, final boolean deletedFinalStateUnknown) {
+        deleted.mark();
+    }
+
+    void registerNamespace(final String namespace) {
+        final var tagValue = namespace == null ? "" : namespace;
+        if (closed || gauges.containsKey(tagValue)) {
+            return;
+        }
+        gauges.computeIfAbsent(tagValue, value -> {
+            final var namespaceTag = new Tag("namespace", value);
+            final var id = new MetricID(CACHE_SIZE, kind, repository, namespaceTag);
+            // a gauge left by an earlier repository of the same name would keep reading that repository
+            registry.remove(id);
+            final Gauge<?> gauge = registry.gauge(CACHE_SIZE,
+                                                  value,
+                                                  ns -> namespaceSize.applyAsInt(ns.isEmpty() ? null : ns),
+                                                  kind,
+                                                  repository,
+                                                  namespaceTag);
+            return new Registered(id, gauge);
+        });
+    }
+
+    /**
+     * Removes the gauges of this instance, unless a newer repository of the same name took them over
+     */
+    void close() {
+        closed = true;
+        gauges.values().forEach(registered -> {
+            if (registry.getGauge(registered.id) == registered.gauge) {
+                registry.remove(registered.id);
+            }
+        });
+        gauges.clear();
+    }
+}
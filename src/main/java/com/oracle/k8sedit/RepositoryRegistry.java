@@ -0,0 +1,299 @@
+package com.oracle.k8sedit;
+
+import com.google.common.flogger.FluentLogger;
+import com.oracle.k8sedit.api.API;
+import io.fabric8.kubernetes.api.Pluralize;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.CustomResource;
+import io.fabric8.kubernetes.client.CustomResourceList;
+import io.fabric8.kubernetes.client.dsl.base.ResourceDefinitionContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Creates repositories on demand, either typed for custom resources with binding classes or generic for any group,
+ * version and kind. All of them share the client and executor of {@link SharedInformerFactoryAndK8sClientSupplier}
+ * and run their own informers. Callers hold a {@link Lease} while they use a repository; once the last lease of a
+ * repository is closed and it stayed unused for the idle timeout, its informer is stopped and the repository is
+ * dropped.
+ *
+ * <pre>
+ * try (var idc = RepositoryRegistry.getInstance()
+ *         .acquire("industries.cx.oracle.com", "v1", "IndustriesDomainConfiguration")) {
+ *     idc.getRepository().getResourcesInNamespace("dx-vamsi");
+ * }
+ * </pre>
+ */
+public final class RepositoryRegistry {
+    private static final FluentLogger log = FluentLogger.forEnclosingClass();
+    static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(10);
+
+    /**
+     * Single daemon thread shutting down the idle repositories of all registries. Kept off the shared executor on
+     * purpose: shutting repositories down frees the executor, so it has to go on while the executor is saturated.
+     */
+    private static final ScheduledExecutorService REAPER =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final var thread = new Thread(runnable, "repository-registry");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * Kinds that already have a process wide repository. Leases on them hand out that instance instead of a second
+     * repository competing for the same snapshot file and metrics, and never shut it down.
+     */
+    private static final Map<Class<?>, Supplier<? extends AbstractCRDRepository<?, ?, ?>>> SINGLETONS =
+            Map.of(API.class, APIs::getInstance);
+
+    private static RepositoryRegistry theInstance;
+
+    private final Duration idleTimeout;
+    private final Map<Object, Entry<?>> entries = new HashMap<>();
+    private final ScheduledFuture<?> reaping;
+
+    private RepositoryRegistry(final Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+        final long interval = Math.max(idleTimeout.toMillis() / 2, 1);
+        reaping = REAPER.scheduleWithFixedDelay(this::shutdownIdle, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    // For unit testing, idle repositories are only shut down by calls to shutdownIdle()
+    private RepositoryRegistry(final Duration idleTimeout, final ScheduledFuture<?> reaping) {
+        this.idleTimeout = idleTimeout;
+        this.reaping = reaping;
+    }
+
+    /**
+     * @return the registry using the idle timeout configured with {@code k8s.registry.idle-timeout-seconds}
+     */
+    public static synchronized RepositoryRegistry getInstance() {
+        if (null == theInstance) {
+            theInstance = new RepositoryRegistry(
+                    SharedInformerFactoryAndK8sClientSupplier.getInstance().getRegistryIdleTimeout());
+        }
+        return theInstance;
+    }
+
+    /**
+     * @param idleTimeout the time a repository without leases is kept before it is shut down
+     * @return a new registry, independent of {@link #getInstance()}
+     */
+    public static RepositoryRegistry create(final Duration idleTimeout) {
+        return new RepositoryRegistry(idleTimeout);
+    }
+
+    // For unit testing
+    static RepositoryRegistry createWithoutReaping(final Duration idleTimeout) {
+        return new RepositoryRegistry(idleTimeout, null);
+    }
+
+    /**
+     * A reference to a repository of the registry, to be closed once the repository isn't needed any more
+     *
+     * @param <R> the repository type
+     */
+    public static final class Lease<R> implements AutoCloseable {
+        private final R repository;
+        private final Runnable release;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Lease(final R repository, final Runnable release) {
+            this.repository = repository;
+            this.release = release;
+        }
+
+        /**
+         * @return the repository
+         * @throws IllegalStateException if the lease was closed
+         */
+        public R getRepository() {
+            if (closed.get()) {
+                throw new IllegalStateException("Lease was closed");
+            }
+            return repository;
+        }
+
+        /**
+         * Releases the repository, only the first call has an effect
+         */
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release.run();
+            }
+        }
+    }
+
+    private static final class Entry<R> {
+        private final R repository;
+        private final Consumer<R> shutdown;
+        private int references;
+        private long idleSinceMillis;
+
+        private Entry(final R repository, final Consumer<R> shutdown) {
+            this.repository = repository;
+            this.shutdown = shutdown;
+        }
+
+        private void shutdown() {
+            shutdown.accept(repository);
+        }
+    }
+
+    /**
+     * Acquires the repository of a custom resource with binding classes, creating it on first use. Kinds with a
+     * process wide repository such as {@link APIs} get that one.
+     *
+     * @param resourceClass the binding class of the resource
+     * @param listClass     the binding list class of the resource
+     * @param <S>           the spec class of the resource
+     * @param <T>           the binding class of the resource
+     * @param <L>           the binding list class of the resource
+     * @return a lease on the repository
+     */
+    @SuppressWarnings("unchecked")
+    public <S, T extends CustomResource<S, Void>, L extends CustomResourceList<T>>
+    Lease<AbstractCRDRepository<S, T, L>> acquire(final Class<T> resourceClass, final Class<L> listClass) {
+        final var singleton = SINGLETONS.get(resourceClass);
+        if (singleton != null) {
+            return acquire(resourceClass, () -> (AbstractCRDRepository<S, T, L>) singleton.get(), repository -> { });
+        }
+        return acquire(resourceClass,
+                       () -> {
+                           final var repository = new AbstractCRDRepository<S, T, L>(resourceClass,
+                                                                                     listClass,
+                                                                                     HasMetadata.getKind(resourceClass)) {
+                           };
+                           repository.startSyncIfNeeded();
+                           return repository;
+                       },
+                       AbstractCRDRepository::shutdown);
+    }
+
+    /**
+     * Acquires the generic repository of a namespaced kind, deriving its plural the way fabric8 does for binding
+     * classes
+     *
+     * @param group   the API group, empty for the core group
+     * @param version the API version
+     * @param kind    the kind
+     * @return a lease on the repository
+     */
+    public Lease<GenericResourceRepository> acquire(final String group, final String version, final String kind) {
+        return acquire(new ResourceDefinitionContext.Builder()
+                               .withGroup(group)
+                               .withVersion(version)
+                               .withKind(kind)
+                               .withPlural(Pluralize.toPlural(kind.toLowerCase(Locale.ROOT)))
+                               .withNamespaced(true)
+                               .build());
+    }
+
+    /**
+     * Acquires the generic repository of the resources described by the context, creating it on first use
+     *
+     * @param context the group, version, kind, plural and scope of the resources
+     * @return a lease on the repository
+     */
+    public Lease<GenericResourceRepository> acquire(final ResourceDefinitionContext context) {
+        final var key = String.join("/", context.getGroup() == null ? "" : context.getGroup(),
+                                    context.getVersion(), context.getPlural());
+        return acquire(key,
+                       () -> {
+                           final var repository = new GenericResourceRepository(context);
+                           repository.startSyncIfNeeded();
+                           return repository;
+                       },
+                       GenericResourceRepository::shutdown);
+    }
+
+    /**
+     * Acquires the repository registered under the key, creating it with the factory on first use
+     *
+     * @param key      the key of the repository
+     * @param factory  creates the repository
+     * @param shutdown shuts the repository down once it was idle for the idle timeout
+     * @param <R>      the repository type
+     * @return a lease on the repository
+     */
+    @SuppressWarnings("unchecked")
+    synchronized <R> Lease<R> acquire(final Object key, final Supplier<R> factory, final Consumer<R> shutdown) {
+        var entry = (Entry<R>) entries.get(key);
+        if (entry == null) {
+            entry = new Entry<>(factory.get(), shutdown);
+            entries.put(key, entry);
+            log.atInfo().log("Created repository for %s", key);
+        }
+        entry.references++;
+        final var acquired = entry;
+        return new Lease<>(entry.repository, () -> release(acquired));
+    }
+
+    private synchronized void release(final Entry<?> entry) {
+        if (--entry.references == 0) {
+            entry.idleSinceMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Shuts down the repositories that had no lease for the idle timeout
+     */
+    void shutdownIdle() {
+        final long idleBefore = System.currentTimeMillis() - idleTimeout.toMillis();
+        final List<Entry<?>> idle = new ArrayList<>();
+        synchronized (this) {
+            final var iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final var next = iterator.next();
+                final var entry = next.getValue();
+                if (entry.references == 0 && entry.idleSinceMillis <= idleBefore) {
+                    iterator.remove();
+                    idle.add(entry);
+                    log.atInfo().log("Shutting down idle repository for %s", next.getKey());
+                }
+            }
+        }
+        for (final var entry : idle) {
+            try {
+                entry.shutdown();
+            } catch (final RuntimeException e) {
+                log.atWarning().withCause(e).log("Could not shut down repository");
+            }
+        }
+    }
+
+    /**
+     * @return the number of repositories currently held by the registry
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Shuts down all repositories of the registry, leased or not, and stops reaping idle ones
+     */
+    public void close() {
+        if (reaping != null) {
+            reaping.cancel(false);
+        }
+        final List<Entry<?>> all;
+        synchronized (this) {
+            all = new ArrayList<>(entries.values());
+            entries.clear();
+        }
+        all.forEach(Entry::shutdown);
+    }
+}
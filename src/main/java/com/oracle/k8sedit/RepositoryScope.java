@@ -0,0 +1,203 @@
+package com.oracle.k8sedit;
+
+import io.fabric8.kubernetes.api.model.LabelSelector;
+import io.helidon.config.Config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The part of the cluster a repository caches: a set of namespaces and optional label and field selectors. A scope
+ * without namespaces covers all namespaces with a single informer, otherwise the repository runs one informer per
+ * namespace.
+ */
+public final class RepositoryScope {
+    private static final RepositoryScope CLUSTER = new RepositoryScope(Set.of(), null, Map.of());
+
+    private final Set<String> namespaces;
+    private final LabelSelector labelSelector;
+    private final Map<String, String> fields;
+    private volatile String id;
+
+    private RepositoryScope(final Set<String> namespaces,
+                            final LabelSelector labelSelector,
+                            final Map<String, String> fields) {
+        this.namespaces = namespaces;
+        this.labelSelector = labelSelector;
+        this.fields = fields;
+    }
+
+    /**
+     * @return a scope covering all namespaces without any selector
+     */
+    public static RepositoryScope cluster() {
+        return CLUSTER;
+    }
+
+    /**
+     * @param namespaces the namespaces to cache
+     * @return a scope limited to the provided namespaces
+     */
+    public static RepositoryScope namespaces(final Collection<String> namespaces) {
+        return new RepositoryScope(Collections.unmodifiableSet(new LinkedHashSet<>(namespaces)), null, Map.of());
+    }
+
+    /**
+     * Reads a scope from configuration: {@code namespaces} (list), {@code label-selector} and {@code field-selector},
+     * both in kubectl syntax. Missing keys leave the scope unrestricted.
+     *
+     * @param scopeConfig the scope configuration node
+     * @return the scope
+     * @throws IllegalArgumentException if a selector can't be parsed
+     */
+    public static RepositoryScope create(final Config scopeConfig) {
+        var scope = namespaces(scopeConfig.get("namespaces").asList(String.class).orElse(List.of()));
+        final var labelSelector = scopeConfig.get("label-selector").asString();
+        if (labelSelector.isPresent()) {
+            scope = scope.withLabelSelector(LabelSelectors.parse(labelSelector.get()));
+        }
+        final var fieldSelector = scopeConfig.get("field-selector").asString();
+        if (fieldSelector.isPresent()) {
+            scope = scope.withFields(parseFields(fieldSelector.get()));
+        }
+        return scope;
+    }
+
+    /**
+     * @param labelSelector the label selector resources have to match
+     * @return a copy of this scope with the label selector
+     */
+    public RepositoryScope withLabelSelector(final LabelSelector labelSelector) {
+        return new RepositoryScope(namespaces, labelSelector, fields);
+    }
+
+    /**
+     * @param fields the field values resources have to match, e.g. {@code metadata.name}
+     * @return a copy of this scope with the field selector
+     */
+    public RepositoryScope withFields(final Map<String, String> fields) {
+        return new RepositoryScope(namespaces, labelSelector, Collections.unmodifiableMap(new LinkedHashMap<>(fields)));
+    }
+
+    /**
+     * @return the namespaces of the scope, empty for all namespaces
+     */
+    public Set<String> getNamespaces() {
+        return namespaces;
+    }
+
+    /**
+     * @return the label selector, {@code null} if the scope isn't filtered by labels
+     */
+    public LabelSelector getLabelSelector() {
+        return labelSelector;
+    }
+
+    /**
+     * @return the field selector, empty if the scope isn't filtered by fields
+     */
+    public Map<String, String> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return whether the scope covers all namespaces
+     */
+    public boolean isAllNamespaces() {
+        return namespaces.isEmpty();
+    }
+
+    /**
+     * @param namespace the namespace
+     * @return whether resources of the namespace are cached under this scope
+     */
+    public boolean includes(final String namespace) {
+        return namespaces.isEmpty() || namespaces.contains(namespace);
+    }
+
+    /**
+     * @return whether informers of this scope only see a filtered part of their namespaces
+     */
+    public boolean isFiltered() {
+        return labelSelector != null || !fields.isEmpty();
+    }
+
+    /**
+     * Identifies the scope across restarts, e.g. in file names. Scopes with the same namespaces and selectors have the
+     * same id, whatever order they were configured in.
+     *
+     * @return the first 12 hex digits of the SHA-256 hash of the scope's canonical form
+     */
+    public String getId() {
+        var result = id;
+        if (result == null) {
+            final MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (final NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            result = HexFormat.of().formatHex(digest.digest(canonicalForm().getBytes(StandardCharsets.UTF_8)), 0, 6);
+            id = result;
+        }
+        return result;
+    }
+
+    private String canonicalForm() {
+        final List<String> expressions = new ArrayList<>();
+        final Map<String, String> matchLabels = new TreeMap<>();
+        if (labelSelector != null) {
+            if (labelSelector.getMatchLabels() != null) {
+                matchLabels.putAll(labelSelector.getMatchLabels());
+            }
+            if (labelSelector.getMatchExpressions() != null) {
+                labelSelector.getMatchExpressions()
+                        .forEach(requirement -> expressions.add(
+                                requirement.getKey() + " " + requirement.getOperator() + " "
+                                + new TreeSet<>(requirement.getValues() == null ? List.of() : requirement.getValues())));
+                Collections.sort(expressions);
+            }
+        }
+        return "namespaces=" + new TreeSet<>(namespaces)
+               + ";labels=" + matchLabels
+               + ";expressions=" + expressions
+               + ";fields=" + new TreeMap<>(fields);
+    }
+
+    private static Map<String, String> parseFields(final String fieldSelector) {
+        final Map<String, String> fields = new LinkedHashMap<>();
+        for (final var term : fieldSelector.split(",")) {
+            final var trimmed = term.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            final var separator = trimmed.indexOf('=');
+            if (separator <= 0 || trimmed.contains("!=")) {
+                throw new IllegalArgumentException(String.format("Unsupported field selector term '%s'", trimmed));
+            }
+            final var value = trimmed.startsWith("=", separator + 1)
+                    ? trimmed.substring(separator + 2)
+                    : trimmed.substring(separator + 1);
+            fields.put(trimmed.substring(0, separator).trim(), value.trim());
+        }
+        return fields;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("namespaces=%s, labelSelector=%s, fields=%s",
+                             namespaces.isEmpty() ? "*" : namespaces, labelSelector, fields);
+    }
+}
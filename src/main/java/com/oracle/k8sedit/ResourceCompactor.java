@@ -0,0 +1,131 @@
+package com.oracle.k8sedit;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import io.fabric8.kubernetes.api.model.OwnerReferenceBuilder;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.WatcherException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shrinks the metadata of cached resources. Strings that repeat across objects (namespaces, label keys and values,
+ * annotation keys, owner reference kinds) are interned, so every cached object shares one instance of each, and
+ * {@code managedFields}, which nothing in the cache reads, are dropped. Names, uids and annotation values are mostly
+ * unique and are left alone.
+ * <p>
+ * Runs as a stage between the apiserver and the informer cache, see {@link #compacted(HasMetadata)}, for every kind
+ * including {@link io.fabric8.kubernetes.api.model.GenericKubernetesResource}. Resources built by callers are never
+ * touched.
+ */
+final class ResourceCompactor {
+    private ResourceCompactor() {
+    }
+
+    /**
+     * Replaces the metadata of a resource that was just received and isn't held by anybody else yet with a compacted
+     * copy. The received metadata instance itself isn't changed.
+     *
+     * @param resource the resource, may be {@code null}
+     * @param <T>      the binding class of the resource
+     * @return the same resource instance
+     */
+    static <T extends HasMetadata> T compacted(final T resource) {
+        if (resource != null && resource.getMetadata() != null) {
+            resource.setMetadata(compact(resource.getMetadata()));
+        }
+        return resource;
+    }
+
+    /**
+     * Compacts the resources a watcher receives before passing them on
+     *
+     * @param watcher the watcher feeding the cache
+     * @param <T>     the binding class of the resource
+     * @return a watcher delivering compacted resources to {@code watcher}
+     */
+    static <T extends HasMetadata> Watcher<T> compacting(final Watcher<T> watcher) {
+        return new Watcher<>() {
+            @Override
+            public boolean reconnecting() {
+                return watcher.reconnecting();
+            }
+
+            @Override
+            public void eventReceived(final Action action, final T resource) {
+                watcher.eventReceived(action, compacted(resource));
+            }
+
+            @Override
+            public void onClose() {
+                watcher.onClose();
+            }
+
+            @Override
+            public void onClose(final WatcherException cause) {
+                watcher.onClose(cause);
+            }
+        };
+    }
+
+    /**
+     * @param metadata the metadata, may be {@code null}
+     * @return a compacted copy of the metadata, {@code null} for {@code null}
+     */
+    static ObjectMeta compact(final ObjectMeta metadata) {
+        if (metadata == null) {
+            return null;
+        }
+        final var compacted = new ObjectMeta();
+        compacted.setName(metadata.getName());
+        compacted.setGenerateName(metadata.getGenerateName());
+        compacted.setNamespace(intern(metadata.getNamespace()));
+        compacted.setUid(metadata.getUid());
+        compacted.setResourceVersion(metadata.getResourceVersion());
+        compacted.setGeneration(metadata.getGeneration());
+        compacted.setSelfLink(metadata.getSelfLink());
+        compacted.setClusterName(intern(metadata.getClusterName()));
+        compacted.setCreationTimestamp(metadata.getCreationTimestamp());
+        compacted.setDeletionTimestamp(metadata.getDeletionTimestamp());
+        compacted.setDeletionGracePeriodSeconds(metadata.getDeletionGracePeriodSeconds());
+        compacted.setLabels(internEntries(metadata.getLabels(), true));
+        compacted.setAnnotations(internEntries(metadata.getAnnotations(), false));
+        compacted.setFinalizers(metadata.getFinalizers() == null ? null : new ArrayList<>(metadata.getFinalizers()));
+        compacted.setOwnerReferences(compactOwners(metadata.getOwnerReferences()));
+        compacted.setManagedFields(metadata.getManagedFields() == null ? null : Collections.emptyList());
+        metadata.getAdditionalProperties().forEach(compacted::setAdditionalProperty);
+        return compacted;
+    }
+
+    static String intern(final String value) {
+        return value == null ? null : value.intern();
+    }
+
+    private static Map<String, String> internEntries(final Map<String, String> entries, final boolean internValues) {
+        if (entries == null) {
+            return null;
+        }
+        final Map<String, String> interned = new LinkedHashMap<>(entries.size() * 4 / 3 + 1);
+        entries.forEach((key, value) -> interned.put(intern(key), internValues ? intern(value) : value));
+        return interned;
+    }
+
+    private static List<OwnerReference> compactOwners(final List<OwnerReference> owners) {
+        if (owners == null) {
+            return null;
+        }
+        final List<OwnerReference> compacted = new ArrayList<>(owners.size());
+        for (final var owner : owners) {
+            compacted.add(new OwnerReferenceBuilder(owner)
+                                  .withApiVersion(intern(owner.getApiVersion()))
+                                  .withKind(intern(owner.getKind()))
+                                  .build());
+        }
+        return compacted;
+    }
+}
@@ -0,0 +1,352 @@
+package com.oracle.k8sedit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.flogger.FluentLogger;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.LabelSelector;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.helidon.common.http.DataChunk;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans the events of a single informer out to many Server-Sent Events subscribers. Every subscriber gets its own bounded
+ * queue of pending events keyed by resource, so a subscriber that falls behind only receives the latest state of each
+ * resource instead of every intermediate change. A subscriber whose queue would exceed its capacity with new resources
+ * receives a final {@code OVERFLOW} event and is completed; it is expected to relist and subscribe again.
+ * <p>
+ * Like a filtered watch, a resource that stops matching a subscriber's label selector is sent as {@code DELETED} and one
+ * that starts matching as {@code ADDED}. Events are serialized and handed to the HTTP layer on the shared executor, never
+ * on the informer's thread.
+ *
+ * @param <T> the binding class of the resource
+ */
+public class ResourceEventBroadcaster<T extends HasMetadata> implements ResourceEventHandler<T> {
+    private static final FluentLogger log = FluentLogger.forEnclosingClass();
+
+    /**
+     * Default number of distinct resources a subscriber may have pending
+     */
+    public static final int DEFAULT_SUBSCRIBER_CAPACITY = 1000;
+
+    static final String ADDED = "ADDED";
+    static final String MODIFIED = "MODIFIED";
+    static final String DELETED = "DELETED";
+    static final String OVERFLOW = "OVERFLOW";
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Executor executor;
+
+    public ResourceEventBroadcaster() {
+        this(task -> SharedInformerFactoryAndK8sClientSupplier.getInstance().getExecutorService().execute(task));
+    }
+
+    // For unit testing
+    ResourceEventBroadcaster(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Creates a new subscriber. The returned publisher emits Server-Sent Events frames and supports exactly one
+     * subscription; cancelling it removes the subscriber.
+     *
+     * @param namespace restricts the events to a namespace, {@code null} for all namespaces
+     * @param selector  restricts the events to resources matching the selector, {@code null} for all resources
+     * @param capacity  the number of distinct resources that may be pending before the subscriber overflows
+     * @return the publisher of the subscriber's event stream
+     */
+    public Flow.Publisher<DataChunk> subscribe(final String namespace, final LabelSelector selector, final int capacity) {
+        final var subscriber = new Subscriber(namespace, selector, capacity);
+        subscribers.add(subscriber);
+        log.atFine().log("Added event subscriber, %d subscribers", subscribers.size());
+        return subscriber;
+    }
+
+    /**
+     * @return the number of connected subscribers
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void onAdd(final T obj) {
+        publish(new Event<>(ADDED, obj, null));
+    }
+
+    @Override
+    public void onUpdate(final T oldObj, final T newObj) {
+        // periodic resyncs deliver updates without changes
+        if (!Objects.equals(oldObj.getMetadata().getResourceVersion(), newObj.getMetadata().getResourceVersion())) {
+            publish(new Event<>(MODIFIED, newObj, oldObj));
+        }
+    }
+
+    @Override
+    public void onDelete(final T obj, final boolean deletedFinalStateUnknown) {
+        publish(new Event<>(DELETED, obj, null));
+    }
+
+    private void publish(final Event<T> event) {
+        for (final var subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    /**
+     * An informer event. The resource is serialized once and shared by all subscribers, whatever type they receive the
+     * event as.
+     */
+    private static final class Event<T extends HasMetadata> {
+        private final String type;
+        private final T resource;
+        /**
+         * The resource before a modification, {@code null} for other events
+         */
+        private final T previous;
+        private final String key;
+        private final Data<T> data;
+
+        private Event(final String type, final T resource, final T previous) {
+            this.type = type;
+            this.resource = resource;
+            this.previous = previous;
+            final var metadata = resource.getMetadata();
+            this.key = metadata.getNamespace() == null ? metadata.getName() : metadata.getNamespace() + "/" + metadata.getName();
+            this.data = new Data<>(resource);
+        }
+
+        private Event(final Event<T> event, final String type) {
+            this.type = type;
+            this.resource = event.resource;
+            this.previous = event.previous;
+            this.key = event.key;
+            this.data = event.data;
+        }
+
+        private Event<T> withType(final String newType) {
+            return newType.equals(type) ? this : new Event<>(this, newType);
+        }
+
+        private byte[] frame() {
+            return frame(type, data.json());
+        }
+
+        private static byte[] frame(final String type, final String data) {
+            return ("event: " + type + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * The JSON of an event's resource, serialized by the first subscriber that sends it
+     */
+    private static final class Data<T extends HasMetadata> {
+        private final T resource;
+        private volatile String json;
+
+        private Data(final T resource) {
+            this.resource = resource;
+        }
+
+        private String json() {
+            var result = json;
+            if (result == null) {
+                try {
+                    result = Serialization.jsonMapper().writeValueAsString(resource);
+                } catch (final JsonProcessingException e) {
+                    throw new UncheckedIOException(e);
+                }
+                json = result;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Publisher for a single HTTP client. Events are queued per resource key and only handed to the HTTP layer as far as
+     * it has signalled demand.
+     */
+    private final class Subscriber implements Flow.Publisher<DataChunk>, Flow.Subscription {
+        private final String namespace;
+        private final LabelSelector selector;
+        private final int capacity;
+        private final LinkedHashMap<String, Event<T>> pending = new LinkedHashMap<>();
+        private final AtomicInteger drainers = new AtomicInteger();
+        private Flow.Subscriber<? super DataChunk> downstream;
+        private long demand;
+        private boolean overflowed;
+        private boolean done;
+
+        private Subscriber(final String namespace, final LabelSelector selector, final int capacity) {
+            this.namespace = namespace;
+            this.selector = selector;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public void subscribe(final Flow.Subscriber<? super DataChunk> subscriber) {
+            synchronized (this) {
+                if (downstream != null) {
+                    subscriber.onSubscribe(new NoopSubscription());
+                    subscriber.onError(new IllegalStateException("Event stream supports a single subscription"));
+                    return;
+                }
+                downstream = subscriber;
+            }
+            subscriber.onSubscribe(this);
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                cancel();
+                downstream.onError(new IllegalArgumentException("Requested non-positive number of events: " + n));
+                return;
+            }
+            synchronized (this) {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                done = true;
+                pending.clear();
+            }
+            subscribers.remove(this);
+            log.atFine().log("Removed event subscriber, %d subscribers", subscribers.size());
+        }
+
+        private boolean matches(final T resource) {
+            final var metadata = resource.getMetadata();
+            return (namespace == null || namespace.equals(metadata.getNamespace()))
+                   && LabelSelectors.matches(selector, metadata.getLabels());
+        }
+
+        private void offer(final Event<T> informerEvent) {
+            final var event = filter(informerEvent);
+            if (event == null) {
+                return;
+            }
+
+            synchronized (this) {
+                if (done || overflowed) {
+                    return;
+                }
+                final var previous = pending.get(event.key);
+                if (previous == null) {
+                    if (pending.size() >= capacity) {
+                        overflowed = true;
+                        pending.clear();
+                        log.atWarning().log("Event subscriber fell behind by more than %d resources, closing stream",
+                                            capacity);
+                    } else {
+                        pending.put(event.key, event);
+                    }
+                } else if (ADDED.equals(previous.type) && DELETED.equals(event.type)) {
+                    // the subscriber never saw the resource
+                    pending.remove(event.key);
+                } else if (ADDED.equals(previous.type) || (DELETED.equals(previous.type) && ADDED.equals(event.type))) {
+                    pending.put(event.key, ADDED.equals(event.type) ? event : event.withType(ADDED));
+                } else {
+                    pending.put(event.key, event);
+                }
+            }
+            drain();
+        }
+
+        /**
+         * @return the event as this subscriber sees it, {@code null} if it doesn't concern the subscriber
+         */
+        private Event<T> filter(final Event<T> event) {
+            final var matches = matches(event.resource);
+            if (!MODIFIED.equals(event.type)) {
+                return matches ? event : null;
+            }
+            final var matched = matches(event.previous);
+            if (matches) {
+                return matched ? event : event.withType(ADDED);
+            }
+            return matched ? event.withType(DELETED) : null;
+        }
+
+        /**
+         * Emits pending events on the executor while there is demand. Only one task drains at a time; concurrent
+         * callers make the draining task loop once more.
+         */
+        private void drain() {
+            if (drainers.getAndIncrement() != 0) {
+                return;
+            }
+            try {
+                executor.execute(this::emit);
+            } catch (final RejectedExecutionException e) {
+                emit();
+            }
+        }
+
+        private void emit() {
+            do {
+                while (true) {
+                    final Event<T> event;
+                    var complete = false;
+                    synchronized (this) {
+                        if (done || downstream == null || demand == 0) {
+                            break;
+                        }
+                        if (!pending.isEmpty()) {
+                            final Iterator<Event<T>> events = pending.values().iterator();
+                            event = events.next();
+                            events.remove();
+                        } else if (overflowed) {
+                            event = null;
+                            done = true;
+                            complete = true;
+                        } else {
+                            break;
+                        }
+                        demand--;
+                    }
+                    final byte[] frame;
+                    try {
+                        frame = event == null ? Event.frame(OVERFLOW, "{}") : event.frame();
+                    } catch (final UncheckedIOException e) {
+                        log.atWarning().withCause(e).log("Could not serialize %s event of %s", event.type, event.key);
+                        synchronized (this) {
+                            demand++;
+                        }
+                        continue;
+                    }
+                    downstream.onNext(DataChunk.create(frame));
+                    if (complete) {
+                        subscribers.remove(this);
+                        downstream.onComplete();
+                    }
+                }
+            } while (drainers.decrementAndGet() != 0);
+        }
+    }
+
+    private static final class NoopSubscription implements Flow.Subscription {
+        @Override
+        public void request(final long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.oracle.k8sedit;
+
+import io.fabric8.kubernetes.api.model.Status;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+
+/**
+ * Thrown by the single resource operations of a repository. Carries the HTTP code and status of the apiserver's
+ * response if the cause has one, so callers can tell conflicts and validation errors from other failures.
+ */
+public class ResourceOperationException extends KubernetesClientException {
+    public ResourceOperationException(final String message, final Exception cause) {
+        super(message, cause, codeOf(cause), statusOf(cause), null);
+    }
+
+    private static int codeOf(final Exception cause) {
+        return cause instanceof KubernetesClientException ? ((KubernetesClientException) cause).getCode() : -1;
+    }
+
+    private static Status statusOf(final Exception cause) {
+        return cause instanceof KubernetesClientException ? ((KubernetesClientException) cause).getStatus() : null;
+    }
+}
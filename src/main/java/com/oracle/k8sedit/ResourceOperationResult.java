@@ -0,0 +1,96 @@
+package com.oracle.k8sedit;
+
+import io.fabric8.kubernetes.client.KubernetesClientException;
+
+import java.net.HttpURLConnection;
+import java.util.Optional;
+
+/**
+ * Outcome of a single item of a bulk repository operation
+ *
+ * @param <T> the binding class of the resource
+ */
+public final class ResourceOperationResult<T> {
+    /**
+     * HTTP status used by the apiserver for objects failing validation
+     */
+    private static final int HTTP_UNPROCESSABLE_ENTITY = 422;
+
+    public enum Status {
+        SUCCESS,
+        CONFLICT,
+        VALIDATION_ERROR,
+        ERROR
+    }
+
+    private final T requested;
+    private final T resource;
+    private final Status status;
+    private final Exception error;
+
+    private ResourceOperationResult(final T requested, final T resource, final Status status, final Exception error) {
+        this.requested = requested;
+        this.resource = resource;
+        this.status = status;
+        this.error = error;
+    }
+
+    static <T> ResourceOperationResult<T> success(final T requested, final T resource) {
+        return new ResourceOperationResult<>(requested, resource, Status.SUCCESS, null);
+    }
+
+    static <T> ResourceOperationResult<T> failure(final T requested, final Exception error) {
+        return new ResourceOperationResult<>(requested, null, statusOf(error), error);
+    }
+
+    private static Status statusOf(final Exception error) {
+        if (error instanceof KubernetesClientException) {
+            final int code = ((KubernetesClientException) error).getCode();
+            if (code == HttpURLConnection.HTTP_CONFLICT) {
+                return Status.CONFLICT;
+            }
+            if (code == HttpURLConnection.HTTP_BAD_REQUEST || code == HTTP_UNPROCESSABLE_ENTITY) {
+                return Status.VALIDATION_ERROR;
+            }
+        }
+        return Status.ERROR;
+    }
+
+    /**
+     * @return the resource as it was passed to the bulk operation
+     */
+    public T getRequested() {
+        return requested;
+    }
+
+    /**
+     * @return the resource as returned by the apiserver, empty if the operation failed
+     */
+    public Optional<T> getResource() {
+        return Optional.ofNullable(resource);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the cause of the failure, empty if the operation succeeded
+     */
+    public Optional<Exception> getError() {
+        return Optional.ofNullable(error);
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceOperationResult{" +
+               "status=" + status +
+               ", resource=" + (resource != null ? resource : requested) +
+               (error != null ? ", error=" + error.getMessage() : "") +
+               '}';
+    }
+}
@@ -0,0 +1,351 @@
+package com.oracle.k8sedit;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.LabelSelector;
+import io.fabric8.kubernetes.api.model.ListMetaBuilder;
+import io.fabric8.kubernetes.client.CustomResource;
+import io.fabric8.kubernetes.client.CustomResourceList;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.helidon.common.http.DataChunk;
+import io.helidon.common.http.Http;
+import io.helidon.common.http.MediaType;
+import io.helidon.common.reactive.Multi;
+import io.helidon.webserver.Routing;
+import io.helidon.webserver.ServerRequest;
+import io.helidon.webserver.ServerResponse;
+import io.helidon.webserver.Service;
+
+/**
+ * Serves custom resources from the informer cache of a repository, so clients don't have to talk to the apiserver.
+ * Examples:
+ *
+ * List resources, 100 at a time, in a namespace:
+ * curl -X GET 'http://localhost:8080/apis?namespace=dx-prod&limit=100'
+ *
+ * Continue with the next page:
+ * curl -X GET 'http://localhost:8080/apis?namespace=dx-prod&limit=100&continue=<metadata.continue of the last page>'
+ *
+ * Filter by labels:
+ * curl -X GET 'http://localhost:8080/apis?labelSelector=cxif.owner%3Dautomation'
+ *
+ * Get a single resource:
+ * curl -X GET http://localhost:8080/apis/dx-prod/sundrio-test-api4
+ *
+ * Stream all resources of a namespace as newline-delimited JSON, one resource per line:
+ * curl -X GET -H 'Accept: application/x-ndjson' 'http://localhost:8080/apis?namespace=dx-prod'
+ *
+ * Streams are only paged if limit is set, the continue token of the next page is returned in the X-Continue header:
+ * curl -i -X GET -H 'Accept: application/x-ndjson' 'http://localhost:8080/apis?namespace=dx-prod&limit=1000'
+ *
+ * Subscribe to changes as Server-Sent Events, optionally filtered by namespace and label selector:
+ * curl -N -X GET 'http://localhost:8080/apis/events?namespace=dx-prod&labelSelector=cxif.owner%3Dautomation'
+ *
+ * Responses carry an ETag derived from the resourceVersion. Sending it back in If-None-Match returns 304 as long as
+ * nothing changed.
+ *
+ * @param <S> the spec class of the custom resource
+ * @param <T> the binding class of the custom resource
+ * @param <L> the binding list class of the custom resource
+ */
+public class ResourceService<S, T extends CustomResource<S, Void>, L extends CustomResourceList<T>> implements Service {
+    static final int DEFAULT_LIMIT = 500;
+    static final long READY_TIMEOUT_SEC = 15;
+
+    private static final Logger LOGGER = Logger.getLogger(ResourceService.class.getName());
+    private static final String ETAG = "ETag";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String ACCEPT = "Accept";
+    private static final String WARNING = "Warning";
+    /**
+     * Carries the continue token of a paged NDJSON stream, which has no list metadata
+     */
+    private static final String CONTINUE = "X-Continue";
+    private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+    private static final MediaType NDJSON = MediaType.create("application", "x-ndjson");
+    private static final MediaType EVENT_STREAM = MediaType.create("text", "event-stream");
+
+    private final Supplier<? extends AbstractCRDRepository<S, T, L>> repositorySupplier;
+    private final Supplier<L> listSupplier;
+    private final Supplier<? extends Executor> executorSupplier;
+    private final ResourceEventBroadcaster<T> broadcaster = new ResourceEventBroadcaster<>();
+    private volatile boolean broadcasterRegistered;
+
+    /**
+     * @param repositorySupplier supplies the repository, only invoked on the first request so the informer is started
+     *                           lazily
+     * @param listSupplier       creates empty instances of the list class
+     */
+    ResourceService(final Supplier<? extends AbstractCRDRepository<S, T, L>> repositorySupplier,
+                    final Supplier<L> listSupplier) {
+        this(repositorySupplier,
+             listSupplier,
+             () -> SharedInformerFactoryAndK8sClientSupplier.getInstance().getExecutorService());
+    }
+
+    /**
+     * Serves requests on the provided executor. For unit testing.
+     *
+     * @param executorSupplier supplies the executor requests are served on once the repository is readable, instead of
+     *                         the Netty event loop or the informer thread completing the readiness future
+     */
+    ResourceService(final Supplier<? extends AbstractCRDRepository<S, T, L>> repositorySupplier,
+                    final Supplier<L> listSupplier,
+                    final Supplier<? extends Executor> executorSupplier) {
+        this.repositorySupplier = repositorySupplier;
+        this.listSupplier = listSupplier;
+        this.executorSupplier = executorSupplier;
+    }
+
+    /**
+     * A service registers itself by updating the routing rules.
+     * @param rules the routing rules.
+     */
+    @Override
+    public void update(final Routing.Rules rules) {
+        rules
+            .get("/", this::listHandler)
+            .get("/events", this::eventsHandler)
+            .get("/{namespace}/{name}", this::getHandler);
+    }
+
+    /**
+     * Return a page of resources, optionally filtered by namespace and label selector.
+     * @param request the server request
+     * @param response the server response
+     */
+    private void listHandler(final ServerRequest request, final ServerResponse response) {
+        final var namespace = request.queryParams().first("namespace").orElse(null);
+        final LabelSelector selector;
+        final Integer limitParam;
+        final String continueKey;
+        try {
+            selector = LabelSelectors.parse(request.queryParams().first("labelSelector").orElse(null));
+            limitParam = request.queryParams().first("limit").map(Integer::parseInt).orElse(null);
+            if (limitParam != null && limitParam < 1) {
+                throw new IllegalArgumentException("limit must be positive");
+            }
+            continueKey = request.queryParams().first("continue").map(ResourceService::decodeContinue).orElse(null);
+        } catch (final IllegalArgumentException e) {
+            sendError(response, Http.Status.BAD_REQUEST_400, e.getMessage());
+            return;
+        }
+
+        final var repository = repositorySupplier.get();
+        repository.whenReadable()
+                .orTimeout(READY_TIMEOUT_SEC, TimeUnit.SECONDS)
+                .thenAcceptAsync(ready -> {
+                    // Everything the ETag is made of is read before the resources, so a response is never older than
+                    // its ETag and a later If-None-Match can't hide a change
+                    final var resourceVersion = repository.lastSync();
+                    final var overlayVersion = repository.getOverlayVersion();
+                    final var snapshot = repository.getSnapshot();
+                    addStaleWarning(repository, response);
+                    final var etag = "W/\"" + resourceVersion + "-" + snapshot.getVersion() + "-" + overlayVersion + "\"";
+                    if (notModified(request, response, etag)) {
+                        return;
+                    }
+
+                    // Includes this process' own writes the informer hasn't delivered yet, ordered like the snapshot
+                    final var resources = repository.getResources(snapshot, namespace, selector);
+                    final var ndjson = acceptsNdjson(request);
+                    // A stream is only paged if asked to, a list always is
+                    final int limit = limitParam != null ? limitParam : ndjson ? Integer.MAX_VALUE : DEFAULT_LIMIT;
+                    final var from = continueKey == null ? 0 : continueIndex(resources, continueKey);
+                    final var to = (int) Math.min(resources.size(), (long) from + limit);
+                    final var page = resources.subList(from, to);
+                    final var continueToken = to < resources.size() ? continueAfter(page.get(page.size() - 1)) : null;
+
+                    response.headers().put(ETAG, etag);
+                    if (ndjson) {
+                        if (continueToken != null) {
+                            response.headers().put(CONTINUE, continueToken);
+                        }
+                        stream(page::iterator, response);
+                        return;
+                    }
+                    final L list = listSupplier.get();
+                    list.setItems(new ArrayList<>(page));
+                    list.setMetadata(new ListMetaBuilder()
+                                             .withResourceVersion(resourceVersion)
+                                             .withContinue(continueToken)
+                                             .build());
+                    response.send(list);
+                }, executorSupplier.get())
+                .exceptionally(t -> processErrors(t, response));
+    }
+
+    /**
+     * Stream the informer's changes as Server-Sent Events. All subscribers share the repository's single informer. The
+     * stream starts once the repository is readable and only carries the changes from then on, clients list first to
+     * get the current state.
+     * @param request the server request
+     * @param response the server response
+     */
+    private void eventsHandler(final ServerRequest request, final ServerResponse response) {
+        final var namespace = request.queryParams().first("namespace").orElse(null);
+        final LabelSelector selector;
+        try {
+            selector = LabelSelectors.parse(request.queryParams().first("labelSelector").orElse(null));
+        } catch (final IllegalArgumentException e) {
+            sendError(response, Http.Status.BAD_REQUEST_400, e.getMessage());
+            return;
+        }
+
+        final var repository = repositorySupplier.get();
+        repository.whenReadable()
+                .orTimeout(READY_TIMEOUT_SEC, TimeUnit.SECONDS)
+                .thenAcceptAsync(ready -> {
+                    registerBroadcaster(repository);
+                    final var events = broadcaster.subscribe(namespace,
+                                                             selector,
+                                                             ResourceEventBroadcaster.DEFAULT_SUBSCRIBER_CAPACITY);
+                    response.headers().contentType(EVENT_STREAM);
+                    response.headers().put("Cache-Control", "no-cache");
+                    response.send(events);
+                }, executorSupplier.get())
+                .exceptionally(t -> processErrors(t, response));
+    }
+
+    private void registerBroadcaster(final AbstractCRDRepository<S, T, L> repository) {
+        if (!broadcasterRegistered) {
+            synchronized (broadcaster) {
+                if (!broadcasterRegistered) {
+                    repository.addEventHandler(broadcaster);
+                    broadcasterRegistered = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Return a single resource.
+     * @param request the server request
+     * @param response the server response
+     */
+    private void getHandler(final ServerRequest request, final ServerResponse response) {
+        final var namespace = request.path().param("namespace");
+        final var name = request.path().param("name");
+
+        final var repository = repositorySupplier.get();
+        repository.whenReadable()
+                .orTimeout(READY_TIMEOUT_SEC, TimeUnit.SECONDS)
+                .thenAcceptAsync(ready -> {
+                    final var resource = repository.getResourceInNamespace(name, namespace);
+                    addStaleWarning(repository, response);
+                    if (resource.isEmpty()) {
+                        sendError(response, Http.Status.NOT_FOUND_404,
+                                  String.format("%s %s/%s not found", repository.getSimpleResourceName(), namespace, name));
+                        return;
+                    }
+
+                    final var etag = "\"" + resource.get().getMetadata().getResourceVersion() + "\"";
+                    if (notModified(request, response, etag)) {
+                        return;
+                    }
+                    response.headers().put(ETAG, etag);
+                    response.send(resource.get());
+                }, executorSupplier.get())
+                .exceptionally(t -> processErrors(t, response));
+    }
+
+    /**
+     * Writes the resources as newline-delimited JSON. The iterator is only created once the client subscribes, and each
+     * resource is taken from it and serialized only when the client requests more data. Iterating a view of the
+     * immutable snapshot list copies nothing, so memory use doesn't grow with the number of resources and the first
+     * line is sent right away.
+     */
+    private static <T extends HasMetadata> void stream(final Iterable<T> resources, final ServerResponse response) {
+        final var writer = Serialization.jsonMapper().writer();
+        final Multi<DataChunk> lines = Multi.create(resources)
+                .map(resource -> {
+                    try {
+                        final var json = writer.writeValueAsBytes(resource);
+                        final var line = Arrays.copyOf(json, json.length + 1);
+                        line[json.length] = '\n';
+                        return DataChunk.create(line);
+                    } catch (final JsonProcessingException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+        response.headers().contentType(NDJSON);
+        response.send(lines);
+    }
+
+    /**
+     * Marks responses served from the stored snapshot before the informer is ready, see RFC 7234, section 5.5.1
+     */
+    private static void addStaleWarning(final AbstractCRDRepository<?, ?, ?> repository, final ServerResponse response) {
+        if (repository.isStale()) {
+            response.headers().put(WARNING, STALE_WARNING);
+        }
+    }
+
+    private static boolean acceptsNdjson(final ServerRequest request) {
+        return request.headers().first(ACCEPT)
+                .map(accept -> accept.contains(NDJSON.toString()))
+                .orElse(false);
+    }
+
+    private static boolean notModified(final ServerRequest request, final ServerResponse response, final String etag) {
+        final var ifNoneMatch = request.headers().first(IF_NONE_MATCH);
+        if (ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        for (final var candidate : ifNoneMatch.get().split(",")) {
+            final var value = candidate.trim();
+            if (value.equals("*") || value.equals(etag)) {
+                response.headers().put(ETAG, etag);
+                response.status(Http.Status.NOT_MODIFIED_304).send();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int continueIndex(final List<? extends HasMetadata> resources, final String key) {
+        final var separator = key.indexOf('/');
+        return ResourceSnapshot.indexAfter(resources, key.substring(0, separator), key.substring(separator + 1));
+    }
+
+    private static String continueAfter(final HasMetadata last) {
+        return encodeContinue(last.getMetadata().getNamespace(), last.getMetadata().getName());
+    }
+
+    static String encodeContinue(final String namespace, final String name) {
+        final var key = (namespace == null ? "" : namespace) + "/" + name;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decodeContinue(final String token) {
+        final var key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        if (key.indexOf('/') < 0) {
+            throw new IllegalArgumentException("Invalid continue token");
+        }
+        return key;
+    }
+
+    private static void sendError(final ServerResponse response, final Http.Status status, final String error) {
+        Message jsonError = new Message();
+        jsonError.setMessage(error);
+        response.status(status).send(jsonError);
+    }
+
+    private static Void processErrors(final Throwable ex, final ServerResponse response) {
+        LOGGER.log(Level.WARNING, "Could not serve resources from the informer cache", ex);
+        sendError(response, Http.Status.SERVICE_UNAVAILABLE_503, "Resource cache not available");
+        return null;
+    }
+}
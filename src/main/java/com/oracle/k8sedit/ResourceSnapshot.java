@@ -0,0 +1,230 @@
+package com.oracle.k8sedit;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable, versioned view of the resources cached by an informer, both globally and per namespace. Resources are
+ * ordered by namespace and name. Snapshots are published by {@link ResourceSnapshotCache} and can be shared freely
+ * between readers; changes derive a new snapshot instead of modifying one.
+ *
+ * @param <T> the binding class of the resource
+ */
+public final class ResourceSnapshot<T extends HasMetadata> {
+    private static final String NO_NAMESPACE = "";
+    private static final Comparator<HasMetadata> BY_NAMESPACE_AND_NAME =
+            Comparator.comparing((HasMetadata resource) -> namespaceOf(resource))
+                    .thenComparing(resource -> resource.getMetadata().getName());
+
+    private final long version;
+    private final List<T> resources;
+    private final Map<String, List<T>> resourcesByNamespace;
+
+    private ResourceSnapshot(final long version,
+                             final List<T> resources,
+                             final Map<String, List<T>> resourcesByNamespace) {
+        this.version = version;
+        this.resources = resources;
+        this.resourcesByNamespace = resourcesByNamespace;
+    }
+
+    /**
+     * Builds a snapshot from the provided resources
+     *
+     * @param version   the version of the snapshot
+     * @param resources the resources, will be copied
+     * @param <T>       the binding class of the resource
+     * @return the snapshot
+     */
+    public static <T extends HasMetadata> ResourceSnapshot<T> of(final long version, final Collection<T> resources) {
+        final var sorted = new ArrayList<>(resources);
+        sorted.sort(BY_NAMESPACE_AND_NAME);
+
+        final Map<String, List<T>> byNamespace = new HashMap<>();
+        for (final var resource : sorted) {
+            byNamespace.computeIfAbsent(namespaceOf(resource), namespace -> new ArrayList<>()).add(resource);
+        }
+        byNamespace.replaceAll((namespace, namespaceResources) -> Collections.unmodifiableList(namespaceResources));
+
+        return new ResourceSnapshot<>(version,
+                                      Collections.unmodifiableList(sorted),
+                                      Collections.unmodifiableMap(byNamespace));
+    }
+
+    /**
+     * @param newVersion the version of the returned snapshot
+     * @return a snapshot of the same resources under another version, sharing this snapshot's lists
+     */
+    public ResourceSnapshot<T> withVersion(final long newVersion) {
+        return newVersion == version ? this : new ResourceSnapshot<>(newVersion, resources, resourcesByNamespace);
+    }
+
+    /**
+     * Adds the resource, or replaces the one with the same namespace and name, without sorting again. Copies the lists
+     * of the snapshot and of the resource's namespace once.
+     *
+     * @param newVersion the version of the returned snapshot
+     * @param resource   the added or changed resource
+     * @return the new snapshot, this snapshot if it already contains the same instance
+     */
+    ResourceSnapshot<T> with(final long newVersion, final T resource) {
+        return replace(newVersion, namespaceOf(resource), resource.getMetadata().getName(), resource);
+    }
+
+    /**
+     * Removes a resource without sorting again
+     *
+     * @param newVersion the version of the returned snapshot
+     * @param namespace  the namespace of the removed resource
+     * @param name       the name of the removed resource
+     * @return the new snapshot, this snapshot if it doesn't contain the resource
+     */
+    ResourceSnapshot<T> without(final long newVersion, final String namespace, final String name) {
+        return replace(newVersion, namespace == null ? NO_NAMESPACE : namespace, name, null);
+    }
+
+    private ResourceSnapshot<T> replace(final long newVersion,
+                                        final String namespace,
+                                        final String name,
+                                        final T resource) {
+        final var namespaceResources = getResources(namespace);
+        final int namespaceIndex = indexAfter(namespaceResources, namespace, name);
+        final boolean present = namespaceIndex > 0
+                && namespaceResources.get(namespaceIndex - 1).getMetadata().getName().equals(name);
+        if (present ? namespaceResources.get(namespaceIndex - 1) == resource : resource == null) {
+            return this;
+        }
+        final int index = indexAfter(resources, namespace, name);
+        final var changedNamespace = replaceAt(namespaceResources, namespaceIndex, present, resource);
+        final Map<String, List<T>> byNamespace = new HashMap<>(resourcesByNamespace);
+        if (changedNamespace.isEmpty()) {
+            byNamespace.remove(namespace);
+        } else {
+            byNamespace.put(namespace, changedNamespace);
+        }
+        return new ResourceSnapshot<>(newVersion,
+                                      replaceAt(resources, index, present, resource),
+                                      Collections.unmodifiableMap(byNamespace));
+    }
+
+    /**
+     * @param sorted   an ordered list
+     * @param after    the index after the position of the resource, see {@link #indexAfter(List, String, String)}
+     * @param present  whether the resource is in the list at {@code after - 1}
+     * @param resource the replacement, {@code null} to remove the resource
+     * @return an unmodifiable copy of the list with the resource replaced, inserted or removed
+     */
+    private static <T> List<T> replaceAt(final List<T> sorted, final int after, final boolean present, final T resource) {
+        final var copy = new ArrayList<T>(sorted.size() + 1);
+        copy.addAll(sorted.subList(0, present ? after - 1 : after));
+        if (resource != null) {
+            copy.add(resource);
+        }
+        copy.addAll(sorted.subList(after, sorted.size()));
+        return Collections.unmodifiableList(copy);
+    }
+
+    /**
+     * Orders resources the way snapshots do, for results merged from several sources
+     *
+     * @param resources the resources, will be copied
+     * @param <T>       the binding class of the resource
+     * @return an unmodifiable list ordered by namespace and name
+     */
+    public static <T extends HasMetadata> List<T> sortedCopy(final Collection<T> resources) {
+        final var sorted = new ArrayList<>(resources);
+        sorted.sort(BY_NAMESPACE_AND_NAME);
+        return Collections.unmodifiableList(sorted);
+    }
+
+    /**
+     * @return the version of this snapshot. Versions increase with every change the informer reports.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return all resources of the snapshot, ordered by namespace and name
+     */
+    public List<T> getResources() {
+        return resources;
+    }
+
+    /**
+     * @param namespace the namespace to filter for
+     * @return the resources of the namespace, ordered by name
+     */
+    public List<T> getResources(final String namespace) {
+        return resourcesByNamespace.getOrDefault(namespace == null ? NO_NAMESPACE : namespace, List.of());
+    }
+
+    /**
+     * @return the namespaces that contain at least one resource
+     */
+    public Collection<String> getNamespaces() {
+        return resourcesByNamespace.keySet();
+    }
+
+    /**
+     * @return the number of resources in this snapshot
+     */
+    public int size() {
+        return resources.size();
+    }
+
+    /**
+     * @param namespace the namespace of the resource
+     * @param name      the name of the resource
+     * @return the resource, empty if the snapshot doesn't contain it
+     */
+    public Optional<T> find(final String namespace, final String name) {
+        final var namespaceResources = getResources(namespace);
+        final int index = indexAfter(namespaceResources, namespace, name) - 1;
+        if (index >= 0 && namespaceResources.get(index).getMetadata().getName().equals(name)) {
+            return Optional.of(namespaceResources.get(index));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Finds the position after a resource in a list ordered like the snapshot, used to continue paged reads
+     *
+     * @param resources a list ordered by namespace and name, e.g. from {@link #getResources()}
+     * @param namespace the namespace of the last resource already returned
+     * @param name      the name of the last resource already returned
+     * @return the index of the first resource ordered after the provided one
+     */
+    public static int indexAfter(final List<? extends HasMetadata> resources, final String namespace, final String name) {
+        final var ns = namespace == null ? NO_NAMESPACE : namespace;
+        int low = 0;
+        int high = resources.size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            final var resource = resources.get(middle);
+            int comparison = namespaceOf(resource).compareTo(ns);
+            if (comparison == 0) {
+                comparison = resource.getMetadata().getName().compareTo(name);
+            }
+            if (comparison <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static String namespaceOf(final HasMetadata resource) {
+        final var namespace = resource.getMetadata().getNamespace();
+        return namespace == null ? NO_NAMESPACE : namespace;
+    }
+}
@@ -0,0 +1,94 @@
+package com.oracle.k8sedit;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import io.fabric8.kubernetes.client.informers.cache.Store;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Copy-on-write snapshot layer on top of an informer cache. The snapshot is built once by {@link #start()}, when the
+ * informer has listed everything, and from then on every informer event publishes a new snapshot with only the changed
+ * resource replaced. Readers get the published snapshot from a volatile field, they never rebuild, sort or lock.
+ * <p>
+ * Events are applied with the cache's current copy of the resource rather than the event's, so queued events can't
+ * roll a resource back to an older state than the one the snapshot was built from.
+ *
+ * @param <T> the binding class of the resource
+ */
+class ResourceSnapshotCache<T extends HasMetadata> implements ResourceEventHandler<T> {
+    private final Store<T> source;
+    /**
+     * Version of the published snapshot, only changed while holding the lock
+     */
+    private long version = -1;
+    private volatile ResourceSnapshot<T> current = ResourceSnapshot.of(-1, List.of());
+    private volatile boolean started;
+
+    /**
+     * @param source the informer cache
+     */
+    ResourceSnapshotCache(final Store<T> source) {
+        this.source = source;
+    }
+
+    /**
+     * Builds the snapshot from the whole cache and keeps it current from then on. Events delivered before are
+     * ignored, the cache already contains their changes. Calling it again has no effect.
+     */
+    synchronized void start() {
+        if (!started) {
+            current = ResourceSnapshot.of(++version, source.list());
+            started = true;
+        }
+    }
+
+    /**
+     * @return the latest published snapshot, empty until {@link #start()} was called
+     */
+    ResourceSnapshot<T> get() {
+        return current;
+    }
+
+    /**
+     * @return the latest snapshot, built from the cache as it is if {@link #start()} wasn't called yet
+     */
+    synchronized ResourceSnapshot<T> peek() {
+        return started ? current : ResourceSnapshot.of(version, source.list());
+    }
+
+    @Override
+    public void onAdd(final T obj) {
+        apply(obj);
+    }
+
+    @Override
+    public void onUpdate(final T oldObj, final T newObj) {
+        // periodic resyncs deliver updates without changes
+        if (!Objects.equals(oldObj.getMetadata().getResourceVersion(), newObj.getMetadata().getResourceVersion())) {
+            apply(newObj);
+        }
+    }
+
+    @Override
+    public void onDelete(final T obj, final boolean deletedFinalStateUnknown) {
+        apply(obj);
+    }
+
+    private synchronized void apply(final T changed) {
+        if (!started) {
+            return;
+        }
+        final var cached = source.getByKey(Cache.metaNamespaceKeyFunc(changed));
+        final var metadata = changed.getMetadata();
+        final var next = cached == null
+                ? current.without(version + 1, metadata.getNamespace(), metadata.getName())
+                : current.with(version + 1, cached);
+        if (next != current) {
+            version++;
+            current = next;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.oracle.k8sedit;
+
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.google.common.flogger.FluentLogger;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.utils.Serialization;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Persists the contents of an informer cache to a local file, so a restarted process can serve reads before its
+ * informer has synced. The file is written as a stream, one resource at a time, and read through a memory mapping:
+ *
+ * <pre>
+ * int magic, int format version, int length + bytes of the resource version, int count,
+ * count x (int length + JSON bytes of the resource)
+ * </pre>
+ *
+ * Files are written to a temporary sibling and moved into place, so readers never see a partial snapshot.
+ *
+ * @param <T> the binding class of the resource
+ */
+public class ResourceSnapshotStore<T extends HasMetadata> {
+    private static final FluentLogger log = FluentLogger.forEnclosingClass();
+    private static final int MAGIC = 0x4b385353;
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path file;
+    private final Class<T> clazz;
+
+    /**
+     * @param file  the snapshot file
+     * @param clazz the binding class of the resource
+     */
+    public ResourceSnapshotStore(final Path file, final Class<T> clazz) {
+        this.file = file;
+        this.clazz = clazz;
+    }
+
+    /**
+     * Resources read back from a snapshot file
+     *
+     * @param <T> the binding class of the resource
+     */
+    public static final class Stored<T> {
+        private final String resourceVersion;
+        private final List<T> resources;
+        private final Instant writtenAt;
+
+        Stored(final String resourceVersion, final List<T> resources, final Instant writtenAt) {
+            this.resourceVersion = resourceVersion;
+            this.resources = resources;
+            this.writtenAt = writtenAt;
+        }
+
+        /**
+         * @return when the snapshot file was written
+         */
+        public Instant getWrittenAt() {
+            return writtenAt;
+        }
+
+        /**
+         * @return the informer's last synced resource version at the time the snapshot was written
+         */
+        public String getResourceVersion() {
+            return resourceVersion;
+        }
+
+        /**
+         * @return the stored resources
+         */
+        public List<T> getResources() {
+            return resources;
+        }
+    }
+
+    /**
+     * @return the snapshot file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Writes the resources and the resource version they were synced at. Resources are serialized one at a time
+     * straight into the file, so only one of them is held as JSON at any time.
+     *
+     * @param resourceVersion the informer's last synced resource version
+     * @param resources       the cached resources
+     * @throws IOException if the file can't be written
+     */
+    public void write(final String resourceVersion, final Collection<T> resources) throws IOException {
+        final var mapper = Serialization.jsonMapper();
+        final byte[] version = (resourceVersion == null ? "" : resourceVersion).getBytes(StandardCharsets.UTF_8);
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        final var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                                                    StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING,
+                                                    StandardOpenOption.WRITE)) {
+            // Not closed, closing it would close the channel before it is forced
+            final var out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(version.length);
+            out.write(version);
+            out.writeInt(resources.size());
+            for (final T resource : resources) {
+                final byte[] document = mapper.writeValueAsBytes(resource);
+                out.writeInt(document.length);
+                out.write(document);
+            }
+            out.flush();
+            // the reader maps the file into a single buffer
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Snapshot of %d resources exceeds 2 GB", resources.size()));
+            }
+            channel.force(true);
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.atFine().log("Wrote %d %s resources at version %s to %s",
+                         resources.size(), clazz.getSimpleName(), resourceVersion, file);
+    }
+
+    /**
+     * Reads the snapshot file. A missing, truncated or incompatible file is treated as no snapshot.
+     *
+     * @return the stored resources, empty if there is no usable snapshot
+     */
+    public Optional<Stored<T>> read() {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                log.atWarning().log("Ignoring snapshot %s with unknown format", file);
+                return Optional.empty();
+            }
+            final byte[] version = new byte[buffer.getInt()];
+            buffer.get(version);
+            final int count = buffer.getInt();
+
+            final var mapper = Serialization.jsonMapper();
+            final List<T> resources = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final int length = buffer.getInt();
+                final ByteBuffer document = buffer.slice().limit(length);
+                resources.add(ResourceCompactor.compacted(mapper.readValue(new ByteBufferBackedInputStream(document),
+                                                                            clazz)));
+                buffer.position(buffer.position() + length);
+            }
+            final var resourceVersion = version.length == 0 ? null : new String(version, StandardCharsets.UTF_8);
+            log.atInfo().log("Read %d %s resources at version %s from %s",
+                             count, clazz.getSimpleName(), resourceVersion, file);
+            return Optional.of(new Stored<>(resourceVersion,
+                                            resources,
+                                            Files.getLastModifiedTime(file).toInstant()));
+        } catch (final IOException | RuntimeException e) {
+            log.atWarning().withCause(e).log("Ignoring unreadable snapshot %s", file);
+            return Optional.empty();
+        }
+    }
+}
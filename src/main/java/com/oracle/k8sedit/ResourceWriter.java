@@ -0,0 +1,209 @@
+package com.oracle.k8sedit;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.flogger.FluentLogger;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.dsl.base.PatchContext;
+import io.fabric8.kubernetes.client.dsl.base.PatchType;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Sends a repository's writes to the apiserver, one at a time or pipelined in bulk, and records them in the
+ * {@link ReadYourWritesOverlay} so that the repository's reads return them before the informers do
+ *
+ * @param <T> the binding class of the resource
+ * @param <L> the binding list class of the resource
+ */
+final class ResourceWriter<T extends HasMetadata, L extends KubernetesResourceList<T>> {
+    private static final FluentLogger log = FluentLogger.forEnclosingClass();
+
+    private final String kind;
+    private final Supplier<MixedOperation<T, L, Resource<T>>> client;
+    private final ReadYourWritesOverlay<T> overlay;
+    private final RepositoryMetrics<T> metrics;
+    private final BiFunction<String, String, T> current;
+
+    /**
+     * @param kind    the kind reported in logs and errors
+     * @param client  the client of the handler currently in place
+     * @param overlay the repository's overlay
+     * @param metrics the repository's metrics, timing the requests
+     * @param current the resource by namespace and name as the repository's reads return it, {@code null} if none
+     */
+    ResourceWriter(final String kind,
+                   final Supplier<MixedOperation<T, L, Resource<T>>> client,
+                   final ReadYourWritesOverlay<T> overlay,
+                   final RepositoryMetrics<T> metrics,
+                   final BiFunction<String, String, T> current) {
+        this.kind = kind;
+        this.client = client;
+        this.overlay = overlay;
+        this.metrics = metrics;
+        this.current = current;
+    }
+
+    /**
+     * Runs a single operation, logging a failure and wrapping it for the caller
+     *
+     * @throws ResourceOperationException if the operation failed
+     */
+    <R> R run(final String operation,
+              final T resource,
+              final String namespace,
+              final BiFunction<T, String, R> action) {
+        try {
+            return action.apply(resource, namespace);
+        } catch (final Exception e) {
+            throw failed(operation, resource, namespace, e);
+        }
+    }
+
+    T create(final T resource, final String namespace) {
+        if (namespace != null) {
+            resource.getMetadata().setNamespace(namespace);
+        }
+        final var createResource = metrics.time("create", () -> client.get()
+                .inNamespace(namespace)
+                .create(resource));
+        overlay.recordWrite(createResource);
+        log.atFine().log("Create Resource=%s", createResource);
+        return createResource;
+    }
+
+    T update(final T resource, final String namespace) {
+        metadata(resource).setNamespace(namespace);
+
+        final var updateResource = metrics.time("update", () -> client.get()
+                .inNamespace(namespace).createOrReplace(resource));
+        overlay.recordWrite(updateResource);
+        log.atFine().log("Update Resource=%s", updateResource);
+        return updateResource;
+    }
+
+    T replace(final T resource, final String namespace) {
+        metadata(resource).setNamespace(namespace);
+
+        final var updateResource = metrics.time("replace", () -> client.get()
+                .inNamespace(namespace).replace(resource));
+        overlay.recordWrite(updateResource);
+        log.atFine().log("Update Resource=%s", updateResource);
+        return updateResource;
+    }
+
+    /**
+     * Diffs the desired resource against the cached copy and sends only the changed fields as JSON merge patch. The
+     * patch carries the cached resourceVersion, so it fails with a conflict instead of overwriting changes the cache
+     * hasn't seen yet. Resources that aren't cached are created.
+     */
+    T patch(final T resource, final String namespace) {
+        final var metadata = metadata(resource);
+        metadata.setNamespace(namespace);
+
+        final var name = metadata.getName();
+        final var cached = name == null ? null : current.apply(namespace, name);
+        if (cached == null) {
+            return create(resource, namespace);
+        }
+
+        final var patch = MergePatches.diff(cached, resource);
+        if (patch.size() == 0) {
+            log.atFine().log("Resource %s/%s unchanged, skipping update", namespace, name);
+            return cached;
+        }
+        patch.with("metadata").put("resourceVersion", cached.getMetadata().getResourceVersion());
+        return sendPatch(name, patch, namespace);
+    }
+
+    T sendPatch(final String name, final ObjectNode patch, final String namespace) {
+        final var patchedResource = metrics.time("patch", () -> client.get()
+                .inNamespace(namespace).withName(name)
+                .patch(PatchContext.of(PatchType.JSON_MERGE), patch.toString()));
+        overlay.recordWrite(patchedResource);
+        log.atFine().log("Patch Resource=%s", patchedResource);
+        return patchedResource;
+    }
+
+    boolean delete(final T resource, final String namespace) {
+        final boolean deleted = metrics.time("delete",
+                                             () -> client.get().inNamespace(namespace).delete(resource));
+        if (deleted) {
+            overlay.recordDelete(namespace, metadata(resource).getName());
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes the resource, for the bulk operations
+     *
+     * @return the deleted resource
+     */
+    T deleted(final T resource, final String namespace) {
+        delete(resource, namespace);
+        return resource;
+    }
+
+    /**
+     * Runs the operation over the shared executor and waits for the results on the calling thread. The executor's
+     * threads never wait, see {@link #runBulkAsync}; callers running on them should use the asynchronous variants.
+     */
+    List<ResourceOperationResult<T>> runBulk(final Collection<T> resources,
+                                             final String namespace,
+                                             final int maxConcurrency,
+                                             final BiFunction<T, String, T> operation) {
+        return runBulkAsync(resources, namespace, maxConcurrency, operation).join();
+    }
+
+    /**
+     * Pipelines the operation over the shared executor, keeping up to {@code maxConcurrency} requests in flight. Every
+     * finished request submits the next one, nothing blocks while the pipeline is full.
+     */
+    CompletableFuture<List<ResourceOperationResult<T>>> runBulkAsync(final Collection<T> resources,
+                                                                      final String namespace,
+                                                                      final int maxConcurrency,
+                                                                      final BiFunction<T, String, T> operation) {
+        final var executorService = SharedInformerFactoryAndK8sClientSupplier.getInstance().getExecutorService();
+        return BulkExecution.run(resources, namespace, maxConcurrency, operation, executorService)
+                .thenApply(results -> {
+                    final long failures = results.stream().filter(result -> !result.isSuccess()).count();
+                    if (failures > 0) {
+                        log.atWarning().log("%d of %d %s bulk operations failed in namespace %s",
+                                            failures, results.size(), kind, namespace);
+                    }
+                    return results;
+                });
+    }
+
+    /**
+     * Logs the failed operation with its cause and wraps the cause for the caller
+     */
+    private ResourceOperationException failed(final String operation,
+                                              final T resource,
+                                              final String namespace,
+                                              final Exception e) {
+        final var name = resource.getMetadata() == null ? null : resource.getMetadata().getName();
+        log.atSevere().withCause(e).log("Could not %s %s %s in namespace %s", operation, kind, name, namespace);
+        return new ResourceOperationException(String.format("Could not %s %s %s in namespace %s",
+                                                            operation, kind, name, namespace), e);
+    }
+
+    /**
+     * @return the metadata of the resource, set to an empty one first if it has none
+     */
+    static ObjectMeta metadata(final HasMetadata resource) {
+        var metadata = resource.getMetadata();
+        if (metadata == null) {
+            metadata = new ObjectMeta();
+            resource.setMetadata(metadata);
+        }
+        return metadata;
+    }
+}
@@ -0,0 +1,181 @@
+package com.oracle.k8sedit;
+
+import com.google.common.flogger.FluentLogger;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.LabelSelector;
+import io.fabric8.kubernetes.api.model.ListOptions;
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.WatcherException;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+
+import java.net.HttpURLConnection;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Keeps resources read from a snapshot file current by watching from the snapshot's resource version, instead of
+ * listing everything again. Watch bookmarks advance the resource version while nothing changes, so it stays within the
+ * apiserver's history. Once the apiserver no longer knows the version (410 Gone) or the watch can't be kept open, the
+ * watch gives up and calls its {@code onGone} action, which has to fall back to a full list. The resources are kept in
+ * an indexed cache like an informer's, so label selector and index reads stay lookups while the watch runs.
+ *
+ * @param <T> the binding class of the resource
+ */
+final class ResumableWatch<T extends HasMetadata> implements Watcher<T> {
+    private static final FluentLogger log = FluentLogger.forEnclosingClass();
+
+    private final String kind;
+    private final Cache<T> resources = new Cache<>();
+    private final List<ResourceEventHandler<T>> handlers;
+    private final Runnable onGone;
+    private final ResourceSnapshotCache<T> snapshots = new ResourceSnapshotCache<>(resources);
+    private volatile String resourceVersion;
+    private Watch watch;
+    private boolean closed;
+
+    /**
+     * @param kind            the resource kind, for logging
+     * @param resources       the resources the watch starts from
+     * @param resourceVersion the resource version the resources were stored at
+     * @param indexers        the label and secondary indexes of the repository
+     * @param handlers        the handlers to notify of every change, may grow while the watch runs
+     * @param onGone          called once when the watch can't be resumed any more
+     */
+    ResumableWatch(final String kind,
+                   final Collection<T> resources,
+                   final String resourceVersion,
+                   final Map<String, Function<T, List<String>>> indexers,
+                   final List<ResourceEventHandler<T>> handlers,
+                   final Runnable onGone) {
+        this.kind = kind;
+        this.resourceVersion = resourceVersion;
+        this.handlers = handlers;
+        this.onGone = onGone;
+        this.resources.addIndexers(indexers);
+        resources.forEach(this.resources::put);
+        snapshots.start();
+    }
+
+    /**
+     * Opens the watch from the stored resource version
+     *
+     * @param watchFunction opens a watch with the provided options
+     * @return whether the watch was resumed, {@code false} if the caller has to list instead
+     */
+    synchronized boolean start(final BiFunction<ListOptions, Watcher<T>, Watch> watchFunction) {
+        final var options = new ListOptionsBuilder()
+                .withResourceVersion(resourceVersion)
+                .withAllowWatchBookmarks(true)
+                .build();
+        try {
+            watch = watchFunction.apply(options, this);
+        } catch (final KubernetesClientException e) {
+            if (e.getCode() == HttpURLConnection.HTTP_GONE) {
+                log.atInfo().log("Resource version %s of %s is gone, listing instead", resourceVersion, kind);
+            } else {
+                log.atWarning().withCause(e).log("Could not resume watch of %s at %s", kind, resourceVersion);
+            }
+            return false;
+        }
+        if (closed) {
+            return false;
+        }
+        log.atInfo().log("Resumed watch of %s at resource version %s with %d stored resources",
+                         kind, resourceVersion, resources.listKeys().size());
+        return true;
+    }
+
+    /**
+     * Closes the watch without calling {@code onGone}
+     */
+    synchronized void stop() {
+        closed = true;
+        if (watch != null) {
+            watch.close();
+        }
+    }
+
+    /**
+     * @return the resource version of the last change or bookmark
+     */
+    String getResourceVersion() {
+        return resourceVersion;
+    }
+
+    /**
+     * @return the watched resources, kept current by every change
+     */
+    ResourceSnapshot<T> getSnapshot() {
+        return snapshots.get();
+    }
+
+    /**
+     * @param selector the label selector, {@code null} matches all resources
+     * @return the watched resources matching the selector, looked up in the label index
+     */
+    List<T> select(final LabelSelector selector) {
+        return LabelSelectors.select(resources, selector);
+    }
+
+    /**
+     * @param indexName the name of an index passed to the constructor
+     * @param key       the index key
+     * @return the watched resources with the key
+     */
+    List<T> byIndex(final String indexName, final String key) {
+        return resources.byIndex(indexName, key);
+    }
+
+    @Override
+    public void eventReceived(final Action action, final T resource) {
+        switch (action) {
+            case BOOKMARK:
+                resourceVersion = resource.getMetadata().getResourceVersion();
+                return;
+            case ADDED:
+            case MODIFIED:
+                final var previous = resources.getByKey(Cache.metaNamespaceKeyFunc(resource));
+                resources.put(resource);
+                if (previous == null) {
+                    snapshots.onAdd(resource);
+                    handlers.forEach(handler -> handler.onAdd(resource));
+                } else {
+                    snapshots.onUpdate(previous, resource);
+                    handlers.forEach(handler -> handler.onUpdate(previous, resource));
+                }
+                break;
+            case DELETED:
+                resources.remove(resource);
+                snapshots.onDelete(resource, false);
+                handlers.forEach(handler -> handler.onDelete(resource, false));
+                break;
+            default:
+                // errors are followed by onClose
+                return;
+        }
+        resourceVersion = resource.getMetadata().getResourceVersion();
+    }
+
+    @Override
+    public void onClose(final WatcherException cause) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (cause.isHttpGone()) {
+            log.atInfo().log("Resource version %s of %s is gone, listing instead", resourceVersion, kind);
+        } else {
+            log.atWarning().withCause(cause).log("Watch of %s closed, listing instead", kind);
+        }
+        onGone.run();
+    }
+}
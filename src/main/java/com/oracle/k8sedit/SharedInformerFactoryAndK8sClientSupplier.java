@@ -1,28 +1,83 @@
 package com.oracle.k8sedit;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import com.google.common.flogger.FluentLogger;
 import io.helidon.common.context.Contexts;
+import io.helidon.config.Config;
+import io.helidon.metrics.api.RegistryFactory;
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.MetricRegistry;
 
 import io.fabric8.kubernetes.client.DefaultKubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.informers.SharedInformerFactory;
 
 
+/**
+ * Supplies the Kubernetes client, the shared executor and the {@code k8s} configuration to repositories. The name is
+ * historical: informers aren't created through fabric8's {@code SharedInformerFactory} anymore, see
+ * {@link PagingListerWatcher}.
+ */
 public class SharedInformerFactoryAndK8sClientSupplier {
+    private static final FluentLogger log = FluentLogger.forEnclosingClass();
+
+    /**
+     * Execution model of the shared executor, configured with {@code k8s.executor.mode}
+     */
+    public enum ExecutorMode {
+        /**
+         * Unbounded cached thread pool, the historical default
+         */
+        CACHED,
+        /**
+         * Fixed number of platform threads with a bounded queue. Once the queue is full, tasks are rejected and counted
+         * in the {@code k8s.executor.rejected} metric. Bulk operations and the manifest loader keep a bounded number of
+         * tasks in flight and fail the items that are rejected; informers fall back to delivering events on their own
+         * thread, see {@link #getInformerExecutor()}.
+         */
+        BOUNDED,
+        /**
+         * One virtual thread per task. Falls back to {@link #BOUNDED} on runtimes without virtual threads.
+         */
+        VIRTUAL
+    }
+
+    static final int DEFAULT_MAX_THREADS = 32;
+    static final int DEFAULT_QUEUE_SIZE = 1000;
+    /**
+     * Default number of objects fetched per page when informers list resources
+     */
+    public static final long DEFAULT_LIST_PAGE_SIZE = 500;
+    static final Duration DEFAULT_SNAPSHOT_INTERVAL = Duration.ofSeconds(60);
     public static final Function<ExecutorService, SharedInformerFactoryAndK8sClientSupplier> DEFAULT_SUPPLIER =
             SharedInformerFactoryAndK8sClientSupplier::new;
     private static Function<ExecutorService, SharedInformerFactoryAndK8sClientSupplier> supplierFunction;
     private static Supplier<KubernetesClient> clientSupplier;
     private static SharedInformerFactoryAndK8sClientSupplier theInstance;
+    private static Config config;
     private static final AtomicLong NEXT_THREAD_ID;
     private final ExecutorService executorService;
-    private final SharedInformerFactory sharedInformerFactory;
     private final KubernetesClient k8sClient;
+    private final long listPageSize;
+    private final RepositoryScope repositoryScope;
+    private final Path snapshotDirectory;
+    private final Duration snapshotInterval;
+    private final RecoveryPolicy recoveryPolicy;
+    private final Duration registryIdleTimeout;
 
     public static SharedInformerFactoryAndK8sClientSupplier getInstance(ExecutorService executorService) {
         if (theInstance == null) {
@@ -34,39 +89,180 @@ public class SharedInformerFactoryAndK8sClientSupplier {
 
     public static SharedInformerFactoryAndK8sClientSupplier getInstance() {
         if (theInstance == null) {
-            ExecutorService executorService = Contexts.wrap(Executors.newCachedThreadPool((r) -> {
-                return new Thread(r, "common-utils-core-" + NEXT_THREAD_ID.getAndIncrement());
-            }));
+            ExecutorService executorService = Contexts.wrap(createExecutorService(config.get("executor")));
             theInstance = getInstance(executorService);
         }
 
         return theInstance;
     }
 
+    /**
+     * Creates the shared executor for informers, syncs and repository operations as configured below
+     * {@code k8s.executor}: {@code mode} (cached, bounded or virtual), {@code max-threads} and {@code queue-size}.
+     *
+     * @param executorConfig the executor configuration node
+     * @return the executor service
+     */
+    static ExecutorService createExecutorService(final Config executorConfig) {
+        final var mode = executorConfig.get("mode").asString()
+                .map(value -> ExecutorMode.valueOf(value.toUpperCase(Locale.ROOT)))
+                .orElse(ExecutorMode.CACHED);
+        final int maxThreads = executorConfig.get("max-threads").asInt().orElse(DEFAULT_MAX_THREADS);
+        final int queueSize = executorConfig.get("queue-size").asInt().orElse(DEFAULT_QUEUE_SIZE);
+        final ThreadFactory threadFactory = (r) -> new Thread(r, "common-utils-core-" + NEXT_THREAD_ID.getAndIncrement());
+
+        switch (mode) {
+            case VIRTUAL:
+                try {
+                    final var executorService = (ExecutorService) Executors.class
+                            .getMethod("newVirtualThreadPerTaskExecutor")
+                            .invoke(null);
+                    log.atInfo().log("Using virtual thread per task executor");
+                    return executorService;
+                } catch (final ReflectiveOperationException e) {
+                    log.atWarning().log("Virtual threads are not available on this runtime, using bounded executor");
+                    return createBoundedExecutor(maxThreads, queueSize, threadFactory);
+                }
+            case BOUNDED:
+                return createBoundedExecutor(maxThreads, queueSize, threadFactory);
+            case CACHED:
+            default:
+                return Executors.newCachedThreadPool(threadFactory);
+        }
+    }
+
+    private static ExecutorService createBoundedExecutor(final int maxThreads,
+                                                         final int queueSize,
+                                                         final ThreadFactory threadFactory) {
+        log.atInfo().log("Using bounded executor with %d threads and a queue of %d", maxThreads, queueSize);
+        final MetricRegistry registry = RegistryFactory.getInstance().getRegistry(MetricRegistry.Type.APPLICATION);
+        final Counter rejected = registry.counter("k8s.executor.rejected");
+        final var abortPolicy = new ThreadPoolExecutor.AbortPolicy();
+
+        final var executor = new ThreadPoolExecutor(maxThreads,
+                                                    maxThreads,
+                                                    60L,
+                                                    TimeUnit.SECONDS,
+                                                    new ArrayBlockingQueue<>(queueSize),
+                                                    threadFactory,
+                                                    (task, pool) -> {
+                                                        rejected.inc();
+                                                        abortPolicy.rejectedExecution(task, pool);
+                                                    });
+        executor.allowCoreThreadTimeOut(true);
+        registry.gauge("k8s.executor.queue.size", executor, pool -> pool.getQueue().size());
+        registry.gauge("k8s.executor.active.threads", executor, ThreadPoolExecutor::getActiveCount);
+        return executor;
+    }
+
     private SharedInformerFactoryAndK8sClientSupplier(ExecutorService executorService) {
         this.executorService = executorService;
         KubernetesClient kubernetesClient = (KubernetesClient) clientSupplier.get();
-        this.sharedInformerFactory = kubernetesClient.informers(executorService);
         this.k8sClient = kubernetesClient;
+        this.listPageSize = config.get("informer.list-page-size").asLong().orElse(DEFAULT_LIST_PAGE_SIZE);
+        this.repositoryScope = RepositoryScope.create(config.get("scope"));
+        this.snapshotDirectory = config.get("snapshot.directory").asString().map(Path::of).orElse(null);
+        this.snapshotInterval = config.get("snapshot.interval-seconds").asLong()
+                .map(Duration::ofSeconds)
+                .orElse(DEFAULT_SNAPSHOT_INTERVAL);
+        this.recoveryPolicy = RecoveryPolicy.create(config.get("informer.recovery"));
+        this.registryIdleTimeout = config.get("registry.idle-timeout-seconds").asLong()
+                .map(Duration::ofSeconds)
+                .orElse(RepositoryRegistry.DEFAULT_IDLE_TIMEOUT);
     }
 
     public ExecutorService getExecutorService() {
         return this.executorService;
     }
 
-    public SharedInformerFactory getSharedInformerFactory() {
-        return this.sharedInformerFactory;
+    /**
+     * Returns the executor informers deliver their events on. Tasks run on the shared executor, or on the informer's
+     * own thread if the bounded executor rejects them: a dropped event would leave the cache inconsistent, so informers
+     * are the one place where rejections turn into backpressure on the caller, slowing the watch down instead.
+     *
+     * @return the informer executor
+     */
+    public Executor getInformerExecutor() {
+        return task -> {
+            try {
+                executorService.execute(task);
+            } catch (final RejectedExecutionException e) {
+                task.run();
+            }
+        };
     }
 
     public KubernetesClient getK8sClient() {
         return this.k8sClient;
     }
 
+    /**
+     * Returns the page size informers use for their initial list and relists, configured with
+     * {@code k8s.informer.list-page-size}. {@code 0} disables paging.
+     *
+     * @return the list page size
+     */
+    public long getListPageSize() {
+        return this.listPageSize;
+    }
+
+    /**
+     * Returns the default scope of repositories, configured below {@code k8s.scope}
+     *
+     * @return the repository scope, all namespaces if not configured
+     * @see RepositoryScope#create(io.helidon.config.Config)
+     */
+    public RepositoryScope getRepositoryScope() {
+        return this.repositoryScope;
+    }
+
+    /**
+     * Returns the directory repositories persist their cache snapshots to, configured with
+     * {@code k8s.snapshot.directory}
+     *
+     * @return the snapshot directory, empty if snapshots are disabled
+     */
+    public Optional<Path> getSnapshotDirectory() {
+        return Optional.ofNullable(this.snapshotDirectory);
+    }
+
+    /**
+     * @return the time between two snapshot writes, configured with {@code k8s.snapshot.interval-seconds}
+     */
+    public Duration getSnapshotInterval() {
+        return this.snapshotInterval;
+    }
+
+    /**
+     * @return how repositories restart failed informers, configured below {@code k8s.informer.recovery}
+     */
+    public RecoveryPolicy getRecoveryPolicy() {
+        return this.recoveryPolicy;
+    }
+
+    /**
+     * @return the time {@link RepositoryRegistry} keeps a repository nobody holds a lease on, configured with
+     * {@code k8s.registry.idle-timeout-seconds}
+     */
+    public Duration getRegistryIdleTimeout() {
+        return this.registryIdleTimeout;
+    }
+
     public static void setSupplierFunction(Function<ExecutorService, SharedInformerFactoryAndK8sClientSupplier> supplierFunction) {
         theInstance = null;
         SharedInformerFactoryAndK8sClientSupplier.supplierFunction = supplierFunction;
     }
 
+    /**
+     * Sets the configuration the shared executor is created from. Has to be called before the first
+     * {@link #getInstance()}.
+     *
+     * @param k8sConfig the {@code k8s} configuration node
+     */
+    public static void setConfig(final Config k8sConfig) {
+        config = k8sConfig;
+    }
+
     public static void setClientSupplier(Supplier<KubernetesClient> clientSupplier) {
         SharedInformerFactoryAndK8sClientSupplier.clientSupplier = clientSupplier;
     }
@@ -75,6 +271,7 @@ public class SharedInformerFactoryAndK8sClientSupplier {
         supplierFunction = DEFAULT_SUPPLIER;
         clientSupplier = DefaultKubernetesClient::new;
         theInstance = null;
+        config = Config.empty();
         NEXT_THREAD_ID = new AtomicLong(0L);
     }
 }
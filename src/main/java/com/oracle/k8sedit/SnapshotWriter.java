@@ -0,0 +1,108 @@
+package com.oracle.k8sedit;
+
+import com.google.common.flogger.FluentLogger;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Periodically writes the snapshot of a repository to its {@link ResourceSnapshotStore}, skipping the writes while
+ * nothing changed
+ *
+ * @param <T> the binding class of the resource
+ */
+final class SnapshotWriter<T extends HasMetadata> {
+    private static final FluentLogger log = FluentLogger.forEnclosingClass();
+
+    /**
+     * Single daemon thread timing the snapshot writes of all repositories. The writes themselves run on the shared
+     * executor.
+     */
+    private static final ScheduledExecutorService SNAPSHOT_WRITER =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final var thread = new Thread(runnable, "snapshot-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final String kind;
+    private final ResourceSnapshotStore<T> store;
+    private final BooleanSupplier writable;
+    private final Supplier<String> resourceVersion;
+    private final Supplier<ResourceSnapshot<T>> snapshot;
+    private ScheduledFuture<?> writes;
+    private long lastWrittenVersion = Long.MIN_VALUE;
+
+    /**
+     * @param kind            the kind reported in logs
+     * @param store           the snapshot store
+     * @param writable        whether the repository serves a state worth writing
+     * @param resourceVersion the resource version of the repository's last sync
+     * @param snapshot        the repository's current snapshot
+     */
+    SnapshotWriter(final String kind,
+                   final ResourceSnapshotStore<T> store,
+                   final BooleanSupplier writable,
+                   final Supplier<String> resourceVersion,
+                   final Supplier<ResourceSnapshot<T>> snapshot) {
+        this.kind = kind;
+        this.store = store;
+        this.writable = writable;
+        this.resourceVersion = resourceVersion;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * @param interval the time between two snapshot writes
+     */
+    void start(final Duration interval) {
+        writes = SNAPSHOT_WRITER.scheduleWithFixedDelay(this::submit,
+                                                        interval.toMillis(),
+                                                        interval.toMillis(),
+                                                        TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        if (writes != null) {
+            writes.cancel(false);
+        }
+    }
+
+    /**
+     * Hands the snapshot write over to the shared executor. A write the saturated executor rejects is skipped, the next
+     * interval writes the then current state.
+     */
+    private void submit() {
+        try {
+            SharedInformerFactoryAndK8sClientSupplier.getInstance().getExecutorService().execute(this::write);
+        } catch (final RejectedExecutionException e) {
+            log.atWarning().log("Executor saturated, skipping the %s snapshot write", kind);
+        }
+    }
+
+    private void write() {
+        if (!writable.getAsBoolean()) {
+            return;
+        }
+        // Read the version first: the snapshot is at least as recent, so a resumed watch can only replay events
+        final var version = resourceVersion.get();
+        final var current = snapshot.get();
+        if (current.getVersion() == lastWrittenVersion) {
+            return;
+        }
+        try {
+            store.write(version, current.getResources());
+            lastWrittenVersion = current.getVersion();
+        } catch (final IOException | RuntimeException e) {
+            log.atWarning().withCause(e).log("Could not write snapshot %s", store.getFile());
+        }
+    }
+}
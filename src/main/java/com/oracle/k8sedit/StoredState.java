@@ -0,0 +1,220 @@
+package com.oracle.k8sedit;
+
+import com.google.common.flogger.FluentLogger;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ListOptions;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * What a repository serves while its informers can't: the resources of the snapshot file, what the informers cached
+ * before one of them failed, or the resources of a watch resumed from the snapshot file's resource version. Stale
+ * resources are served until the informers are ready, the resumed watch until it is gone.
+ *
+ * @param <T> the binding class of the resource
+ */
+final class StoredState<T extends HasMetadata> {
+    private static final FluentLogger log = FluentLogger.forEnclosingClass();
+
+    private final String kind;
+    private final RepositoryMetrics<T> metrics;
+    private final InformerEventDispatcher<T> dispatcher;
+    private final BooleanSupplier informersReady;
+    /**
+     * Resources read from the snapshot file, or last cached by failed informers, served until the informers are ready
+     */
+    private volatile ResourceSnapshot<T> staleSnapshot;
+    private volatile String staleResourceVersion;
+    private volatile Instant staleSince;
+    /**
+     * Watch resumed from the snapshot file's resource version, replaces the informers until it is gone
+     */
+    private volatile ResumableWatch<T> resumableWatch;
+    private final CompletableFuture<Void> resumed = new CompletableFuture<>();
+
+    /**
+     * @param kind           the kind reported in logs
+     * @param metrics        the repository's metrics
+     * @param dispatcher     the dispatcher reconciling the informers' lists with what was served
+     * @param informersReady whether all informers of the repository are ready
+     */
+    StoredState(final String kind,
+                final RepositoryMetrics<T> metrics,
+                final InformerEventDispatcher<T> dispatcher,
+                final BooleanSupplier informersReady) {
+        this.kind = kind;
+        this.metrics = metrics;
+        this.dispatcher = dispatcher;
+        this.informersReady = informersReady;
+    }
+
+    /**
+     * Serves the content of a snapshot file as stale until the informers are ready
+     */
+    void load(final ResourceSnapshotStore.Stored<T> stored) {
+        staleResourceVersion = stored.getResourceVersion();
+        staleSince = stored.getWrittenAt();
+        staleSnapshot = ResourceSnapshot.of(Long.MIN_VALUE, stored.getResources());
+    }
+
+    /**
+     * @return whether there is a resource version to resume watching from
+     */
+    boolean isResumable() {
+        return staleResourceVersion != null;
+    }
+
+    /**
+     * Resumes watching from the resource version of the snapshot file instead of listing
+     *
+     * @param indexers      the indexes of the repository
+     * @param eventHandlers the handlers to notify of the watch's changes
+     * @param watchFunction opens the watch
+     * @param onGone        called once the watch is gone, after {@link #watchGone()}
+     * @return whether the watch was resumed
+     */
+    boolean resume(final Map<String, Function<T, List<String>>> indexers,
+                   final List<ResourceEventHandler<T>> eventHandlers,
+                   final BiFunction<ListOptions, Watcher<T>, Watch> watchFunction,
+                   final Runnable onGone) {
+        final var stored = staleSnapshot;
+        final var resourceVersion = staleResourceVersion;
+        if (stored == null || resourceVersion == null) {
+            return false;
+        }
+        final Map<String, Function<T, List<String>>> allIndexers = new LinkedHashMap<>(LabelSelectors.indexers());
+        allIndexers.putAll(indexers);
+        final var watch = new ResumableWatch<>(kind,
+                                               stored.getResources(),
+                                               resourceVersion,
+                                               allIndexers,
+                                               eventHandlers,
+                                               () -> {
+                                                   watchGone();
+                                                   onGone.run();
+                                               });
+        resumableWatch = watch;
+        if (!watch.start(watchFunction)) {
+            resumableWatch = null;
+            return false;
+        }
+        staleSnapshot = null;
+        staleResourceVersion = null;
+        stored.getNamespaces().forEach(metrics::registerNamespace);
+        metrics.count(RepositoryMetrics.RESUMES);
+        resumed.complete(null);
+        return true;
+    }
+
+    /**
+     * Serves the resumed watch's resources as stale until the informers have listed everything again. The handlers
+     * were notified of the watch's state, so the list is reconciled with it instead of being sent as new resources.
+     */
+    private void watchGone() {
+        final var watch = resumableWatch;
+        if (watch != null) {
+            staleResourceVersion = watch.getResourceVersion();
+            staleSince = Instant.now();
+            staleSnapshot = watch.getSnapshot();
+            dispatcher.reconcileWith(staleSnapshot.getResources());
+            resumableWatch = null;
+        }
+    }
+
+    /**
+     * Keeps serving what the informers cached before one of them failed, flagged stale, until all of them are ready
+     * again. Resources from a snapshot file or a resumed watch are already served that way.
+     *
+     * @param resources       what the informers cached
+     * @param resourceVersion the resource version of their last sync
+     */
+    void serveLastKnownState(final List<T> resources, final String resourceVersion) {
+        if (staleSnapshot != null || resumableWatch != null) {
+            return;
+        }
+        staleResourceVersion = resourceVersion;
+        staleSince = Instant.now();
+        staleSnapshot = ResourceSnapshot.of(Long.MIN_VALUE, resources);
+    }
+
+    /**
+     * @return the resources served instead of the informers': those of the resumed watch, or the stale ones while the
+     * informers aren't ready. {@code null} once the informers serve reads.
+     */
+    ResourceSnapshot<T> current() {
+        final var watch = resumableWatch;
+        if (watch != null) {
+            return watch.getSnapshot();
+        }
+        final var snapshot = staleSnapshot;
+        if (snapshot != null && informersReady.getAsBoolean()) {
+            staleSnapshot = null;
+            staleResourceVersion = null;
+            log.atInfo().log("%s informers are ready, no longer serving the stored snapshot", kind);
+            return null;
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the resumed watch, {@code null} if the informers or stale resources are served
+     */
+    ResumableWatch<T> watch() {
+        return resumableWatch;
+    }
+
+    boolean isResumed() {
+        return resumableWatch != null;
+    }
+
+    boolean isStale() {
+        return resumableWatch == null && current() != null;
+    }
+
+    /**
+     * @return when the data served while {@link #isStale()} was current
+     */
+    Instant getStaleSince() {
+        return staleSince;
+    }
+
+    /**
+     * @return the resource version of the served state, {@code null} if the informers serve reads
+     */
+    String lastSync() {
+        final var watch = resumableWatch;
+        if (watch != null) {
+            return watch.getResourceVersion();
+        }
+        final var staleVersion = staleResourceVersion;
+        return staleVersion != null && isStale() ? staleVersion : null;
+    }
+
+    /**
+     * @param informersReady a future completing when the informers are ready
+     * @return a future completing when the informers are ready, or as soon as a watch was resumed
+     */
+    CompletableFuture<Void> whenReady(final CompletableFuture<Void> informersReady) {
+        if (staleResourceVersion == null && resumableWatch == null) {
+            return informersReady;
+        }
+        return CompletableFuture.anyOf(resumed, informersReady).thenApply(ready -> null);
+    }
+
+    void stop() {
+        final var watch = resumableWatch;
+        if (watch != null) {
+            watch.stop();
+        }
+    }
+}
@@ -26,7 +26,7 @@ public class APISpec {
     ) {
         this.apiName = apiName;
         this.apiId = apiId;
-        this.apiVersion = apiVersion;
+        this.apiVersion = intern(apiVersion);
 
     }
 
@@ -51,7 +51,14 @@ public class APISpec {
     }
 
     public void setApiVersion(final String apiVersion) {
-        this.apiVersion = apiVersion;
+        this.apiVersion = intern(apiVersion);
+    }
+
+    /**
+     * Only a handful of versions exist, share one instance of each between all specs
+     */
+    private static String intern(final String value) {
+        return value == null ? null : value.intern();
     }
 
     @Override
@@ -71,9 +78,6 @@ public class APISpec {
         if (!(o instanceof APISpec)) {
             return false;
         }
-        if (!super.equals(o)) {
-            return false;
-        }
         APISpec apiSpec = (APISpec) o;
         return apiName.equals(apiSpec.apiName) &&
                apiId.equals(apiSpec.apiId) &&
@@ -83,6 +87,6 @@ public class APISpec {
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), apiName, apiId, apiVersion);
+        return Objects.hash(apiName, apiId, apiVersion);
     }
 }
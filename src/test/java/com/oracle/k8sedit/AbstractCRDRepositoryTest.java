@@ -0,0 +1,84 @@
+package com.oracle.k8sedit;
+
+import com.oracle.k8sedit.api.API;
+import com.oracle.k8sedit.api.APIList;
+import com.oracle.k8sedit.api.APISpec;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+class AbstractCRDRepositoryTest {
+    private final InMemoryInformer<API> informer = new InMemoryInformer<>();
+    private AbstractCRDRepository<APISpec, API, APIList> repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new AbstractCRDRepository<>(API.class,
+                                                 new InformerCustomResourceHandler<API, APIList>(API.class,
+                                                                                                 informer.informer()) {
+                                                 }) {
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.shutdown();
+    }
+
+    @Test
+    void testAddedHandlersOnlyReceiveNewEvents() {
+        informer.add(api("custom-api1"));
+        int informerHandlers = informer.handlerCount();
+        RecordingEventHandler recorder = new RecordingEventHandler();
+
+        repository.addEventHandler(recorder);
+        assertThat(informer.handlerCount(), is(informerHandlers));
+        assertThat(recorder.events(), is(empty()));
+
+        informer.add(api("custom-api2"));
+        informer.delete(api("custom-api1"));
+        assertThat(recorder.events(), contains("ADDED custom-api2", "DELETED custom-api1"));
+    }
+
+    @Test
+    void testRemovedHandlerIsNotNotified() {
+        RecordingEventHandler recorder = new RecordingEventHandler();
+        repository.addEventHandler(recorder);
+
+        repository.removeEventHandler(recorder);
+        informer.add(api("custom-api1"));
+        assertThat(recorder.events(), is(empty()));
+    }
+
+    @Test
+    void testSnapshotVersionNeverRepeats() {
+        informer.setSynced(true);
+        informer.setWatching(true);
+        long initial = repository.getSnapshot().getVersion();
+
+        informer.add(api("custom-api1"));
+        long afterAdd = repository.getSnapshot().getVersion();
+        assertThat(afterAdd > initial, is(true));
+        assertThat(repository.getSnapshot().getVersion(), is(afterAdd));
+
+        InMemoryInformer<API> replacement = new InMemoryInformer<>();
+        replacement.setSynced(true);
+        replacement.setWatching(true);
+        repository.setResourceHandler(new InformerCustomResourceHandler<API, APIList>(API.class,
+                                                                                      replacement.informer()) {
+        });
+        assertThat(repository.getSnapshot().getVersion() > afterAdd, is(true));
+    }
+
+    private static API api(String name) {
+        return new API(new ObjectMetaBuilder().withName(name).withNamespace("dx-prod").withResourceVersion("1").build(),
+                       new APISpec(name, name + "-id", "v1"));
+    }
+}
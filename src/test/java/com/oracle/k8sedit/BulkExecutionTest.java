@@ -0,0 +1,110 @@
+package com.oracle.k8sedit;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import io.fabric8.kubernetes.client.KubernetesClientException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BulkExecutionTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testResultsAreInSourceOrder() {
+        List<ResourceOperationResult<String>> results = BulkExecution
+                .run(List.of("a", "b", "c", "d", "e"), "dx-prod", 2, (name, namespace) -> namespace + "/" + name,
+                     executor)
+                .join();
+
+        assertThat(results.stream().map(ResourceOperationResult::getStatus).distinct().collect(Collectors.toList()),
+                   contains(ResourceOperationResult.Status.SUCCESS));
+        assertThat(results.stream().map(result -> result.getResource().orElseThrow()).collect(Collectors.toList()),
+                   contains("dx-prod/a", "dx-prod/b", "dx-prod/c", "dx-prod/d", "dx-prod/e"));
+    }
+
+    @Test
+    void testFailuresAreMappedPerItem() {
+        List<ResourceOperationResult<String>> results = BulkExecution
+                .run(List.of("ok", "conflict", "invalid", "unprocessable", "broken"), "dx-prod", 3,
+                     (name, namespace) -> {
+                         switch (name) {
+                             case "conflict":
+                                 throw new KubernetesClientException("conflict", 409, null);
+                             case "invalid":
+                                 throw new KubernetesClientException("invalid", 400, null);
+                             case "unprocessable":
+                                 throw new KubernetesClientException("unprocessable", 422, null);
+                             case "broken":
+                                 throw new IllegalStateException("broken");
+                             default:
+                                 return name;
+                         }
+                     }, executor)
+                .join();
+
+        assertThat(results.stream().map(ResourceOperationResult::getStatus).collect(Collectors.toList()),
+                   contains(ResourceOperationResult.Status.SUCCESS,
+                            ResourceOperationResult.Status.CONFLICT,
+                            ResourceOperationResult.Status.VALIDATION_ERROR,
+                            ResourceOperationResult.Status.VALIDATION_ERROR,
+                            ResourceOperationResult.Status.ERROR));
+        assertThat(results.get(1).getRequested(), is("conflict"));
+    }
+
+    @Test
+    void testConcurrencyIsBoundedWithoutBlockingTheCaller() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        CompletableFuture<Void> release = new CompletableFuture<>();
+
+        CompletableFuture<List<ResourceOperationResult<String>>> results = BulkExecution
+                .run(List.of("a", "b", "c", "d", "e", "f"), "dx-prod", 2, (name, namespace) -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    release.join();
+                    inFlight.decrementAndGet();
+                    return name;
+                }, executor);
+
+        assertThat(results.isDone(), is(false));
+        release.complete(null);
+        assertThat(results.orTimeout(5, TimeUnit.SECONDS).join().size(), is(6));
+        assertThat(maxInFlight.get(), lessThanOrEqualTo(2));
+    }
+
+    @Test
+    void testRejectedSubmissionsFailTheirItems() {
+        executor.shutdown();
+
+        List<ResourceOperationResult<String>> results = BulkExecution
+                .run(List.of("a", "b", "c"), "dx-prod", 2, (name, namespace) -> name, executor)
+                .join();
+
+        assertThat(results.size(), is(3));
+        assertThat(results.get(2).getError().orElseThrow() instanceof RejectedExecutionException, is(true));
+    }
+
+    @Test
+    void testConcurrencyMustBePositive() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> BulkExecution.run(List.of("a"), "dx-prod", 0, (name, namespace) -> name, executor));
+    }
+}
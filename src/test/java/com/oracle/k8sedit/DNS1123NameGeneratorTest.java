@@ -0,0 +1,48 @@
+
+package com.oracle.k8sedit;
+
+import java.util.List;
+import java.util.Set;
+
+import com.oracle.k8sedit.api.API;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+class DNS1123NameGeneratorTest {
+
+    private final DNS1123NameGenerator generator = DNS1123NameGenerator.forSubdomains();
+
+    @Test
+    void testNormalization() {
+        assertThat(generator.generate("Custom API 3", API.class), is("custom-api-3"));
+        assertThat(generator.generate("--Sundrio Test.API..v1--", API.class), is("api-sundrio-test.api.v1-api"));
+        assertThat(generator.generate("$%&", API.class), is("api"));
+    }
+
+    @Test
+    void testValidNameIsReturnedAsIs() {
+        String name = "already-valid.name";
+        assertThat(generator.generate(name, API.class), is(sameInstance(name)));
+    }
+
+    @Test
+    void testLengthLimits() {
+        String longName = "x".repeat(300);
+        assertThat(generator.generate(longName, API.class).length(), is(DNS1123NameGenerator.MAX_SUBDOMAIN_LENGTH));
+        assertThat(DNS1123NameGenerator.forLabels().generate("a.b" + longName, API.class).length(),
+                   is(DNS1123NameGenerator.MAX_LABEL_LENGTH));
+    }
+
+    @Test
+    void testUniqueNames() {
+        Set<String> taken = Set.of("custom-api");
+
+        assertThat(generator.generateUnique("Custom API", API.class, taken::contains), is("custom-api-2"));
+        assertThat(generator.generateUnique(List.of("Custom API", "custom-api", "Other"), API.class, taken::contains),
+                   is(List.of("custom-api-2", "custom-api-3", "other")));
+    }
+}
@@ -0,0 +1,131 @@
+package com.oracle.k8sedit;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.oracle.k8sedit.api.API;
+import com.oracle.k8sedit.api.APIList;
+import com.oracle.k8sedit.api.APISpec;
+import io.fabric8.kubernetes.api.model.LabelSelectorBuilder;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DesiredStateDiffTest {
+    private final InMemoryInformer<API> informer = new InMemoryInformer<>();
+    private AbstractCRDRepository<APISpec, API, APIList> repository;
+    private DesiredStateDiff<APISpec, API, APIList> diff;
+
+    @BeforeEach
+    void setUp() {
+        repository = new AbstractCRDRepository<>(API.class,
+                                                 new InformerCustomResourceHandler<API, APIList>(API.class,
+                                                                                                 informer.informer()) {
+                                                 }) {
+        };
+        diff = new DesiredStateDiff<>(repository);
+        informer.setSynced(true);
+        informer.setWatching(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.shutdown();
+    }
+
+    @Test
+    void testUnchangedResourceIsNotSent() {
+        informer.add(cached("custom-api1", "v1"));
+
+        ApplyPlan<API> plan = diff.plan(List.of(api("custom-api1", "v1")), "dx-prod", null);
+
+        assertThat(plan.hasChanges(), is(false));
+        assertThat(plan.getItems(ApplyPlan.Action.UNCHANGED).size(), is(1));
+    }
+
+    @Test
+    void testOmittedFieldsAreNotPatched() {
+        informer.add(cached("custom-api1", "v1"));
+
+        ApplyPlan<API> plan = diff.plan(List.of(api("custom-api1", "v2")), "dx-prod", null);
+
+        List<ApplyPlan.Item<API>> updates = plan.getItems(ApplyPlan.Action.UPDATE);
+        assertThat(updates.size(), is(1));
+        assertThat(updates.get(0).getPatch().orElseThrow().toString(), is("{\"spec\":{\"api-version\":\"v2\"}}"));
+    }
+
+    @Test
+    void testPlannedPatchIsSentWithCachedResourceVersion() {
+        informer.add(cached("custom-api1", "v1"));
+        ApplyPlan<API> plan = diff.plan(List.of(api("custom-api1", "v2")), "dx-prod", null);
+
+        Map<String, ObjectNode> patches = DesiredStateDiff.patches(plan);
+
+        assertThat(patches.get("custom-api1").toString(),
+                   is("{\"spec\":{\"api-version\":\"v2\"},\"metadata\":{\"resourceVersion\":\"7\"}}"));
+        assertThat(plan.getItems(ApplyPlan.Action.UPDATE).get(0).getPatch().orElseThrow().toString(),
+                   is("{\"spec\":{\"api-version\":\"v2\"}}"));
+    }
+
+    @Test
+    void testMissingResourcesAreCreatedAndUndesiredOnesPruned() {
+        API managed = cached("custom-api1", "v1");
+        managed.getMetadata().setLabels(Map.of("cxif.owner", "automation"));
+        informer.add(managed);
+        informer.add(cached("custom-api2", "v1"));
+
+        ApplyPlan<API> plan = diff.plan(List.of(api("custom-api3", "v1")),
+                                        "dx-prod",
+                                        new LabelSelectorBuilder().addToMatchLabels("cxif.owner", "automation").build());
+
+        assertThat(names(plan, ApplyPlan.Action.CREATE), contains("custom-api3"));
+        assertThat(names(plan, ApplyPlan.Action.DELETE), contains("custom-api1"));
+    }
+
+    @Test
+    void testPlanLeavesDesiredResourcesUnchanged() {
+        API desired = api("custom-api1", "v1");
+        desired.getMetadata().setNamespace(null);
+
+        ApplyPlan<API> plan = diff.plan(List.of(desired), "dx-prod", null);
+
+        API planned = plan.getItems(ApplyPlan.Action.CREATE).get(0).getDesired();
+        assertThat(planned.getMetadata().getNamespace(), is("dx-prod"));
+        assertThat(desired.getMetadata().getNamespace(), is(nullValue()));
+        assertThat(planned, is(not(sameInstance(desired))));
+    }
+
+    @Test
+    void testDuplicateNameIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> diff.plan(List.of(api("custom-api1", "v1"), api("custom-api1", "v2")), "dx-prod", null));
+    }
+
+    private static List<String> names(ApplyPlan<API> plan, ApplyPlan.Action action) {
+        return plan.getItems(action).stream().map(ApplyPlan.Item::getName).collect(Collectors.toList());
+    }
+
+    private static API cached(String name, String apiVersion) {
+        API api = api(name, apiVersion);
+        api.getMetadata().setResourceVersion("7");
+        api.getMetadata().setFinalizers(List.of("k8sedit.oracle.com/cleanup"));
+        return api;
+    }
+
+    private static API api(String name, String apiVersion) {
+        return new API(new ObjectMetaBuilder().withName(name).withNamespace("dx-prod").build(),
+                       new APISpec(name, name + "-id", apiVersion));
+    }
+}
@@ -0,0 +1,70 @@
+
+package com.oracle.k8sedit;
+
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oracle.k8sedit.api.API;
+import io.fabric8.kubernetes.client.utils.Serialization;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+class ForgivingCustomResourceTest {
+    private static final String API_JSON = "{\"apiVersion\":\"test.oracle.com/v1\",\"kind\":\"API\","
+            + "\"metadata\":{\"name\":\"custom-api3\",\"namespace\":\"dx-prod\"},"
+            + "\"spec\":{\"api-name\":\"custom-api3\",\"api-id\":\"custom-103\",\"api-version\":\"v1\"},"
+            + "\"x-routing\":{\"paths\":[\"/a\",\"/b\"],\"timeouts\":{\"read\":30}}}";
+    private static final String ROUTING_JSON = "{\"paths\":[\"/a\",\"/b\"],\"timeouts\":{\"read\":30}}";
+
+    private final ObjectMapper mapper = Serialization.jsonMapper();
+
+    @Test
+    void testUnknownAttributesAreKeptRaw() throws Exception {
+        API api = mapper.readValue(API_JSON, API.class);
+
+        assertThat(api.getAdditionalAttributes().get("x-routing"), instanceOf(RawJsonValue.class));
+        assertThat(api.getAdditionalAttribute("x-routing"),
+                   is(Map.of("paths", List.of("/a", "/b"), "timeouts", Map.of("read", 30))));
+        assertThat(api.getAdditionalAttribute("x-missing"), is(nullValue()));
+    }
+
+    @Test
+    void testUnknownAttributesAreWrittenBackVerbatim() throws Exception {
+        API api = mapper.readValue(API_JSON, API.class);
+
+        String json = mapper.writeValueAsString(api);
+
+        assertThat(json.contains("\"x-routing\":{\"paths\":[\"/a\",\"/b\"],\"timeouts\":{\"read\":30}}"), is(true));
+        assertThat(mapper.readValue(json, API.class).getAdditionalAttribute("x-routing"),
+                   is(api.getAdditionalAttribute("x-routing")));
+    }
+
+    @Test
+    void testRawAttributesEqualParsedValues() throws Exception {
+        API api = mapper.readValue(API_JSON, API.class);
+        API built = mapper.readValue(API_JSON.replace(",\"x-routing\":" + ROUTING_JSON, ""), API.class);
+        built.addAdditionalAttribute("x-routing", Map.of("timeouts", Map.of("read", 30), "paths", List.of("/a", "/b")));
+
+        assertThat(api.equals(built), is(true));
+        assertThat(built.equals(api), is(true));
+        assertThat(api.hashCode(), is(built.hashCode()));
+    }
+
+    @Test
+    void testRawAttributesIgnoreFormatting() throws Exception {
+        API api = mapper.readValue(API_JSON, API.class);
+        API reformatted = mapper.readValue(
+                API_JSON.replace(ROUTING_JSON, "{ \"timeouts\": { \"read\": 30 }, \"paths\": [\"/a\", \"/b\"] }"),
+                API.class);
+
+        assertThat(api.equals(reformatted), is(true));
+        assertThat(api.hashCode(), is(reformatted.hashCode()));
+        assertThat(api.equals(mapper.readValue(API_JSON.replace("\"read\":30", "\"read\":60"), API.class)), is(false));
+    }
+}
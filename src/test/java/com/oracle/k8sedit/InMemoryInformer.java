@@ -0,0 +1,110 @@
+package com.oracle.k8sedit;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+
+/**
+ * A {@link SharedIndexInformer} serving its indexer from memory. Changes made through {@link #add(HasMetadata)},
+ * {@link #update(HasMetadata)} and {@link #delete(HasMetadata)} are delivered to the registered handlers on the calling
+ * thread. {@code run()} marks the informer as synced and watching.
+ *
+ * @param <T> the binding class of the resource
+ */
+final class InMemoryInformer<T extends HasMetadata> {
+    private final Cache<T> cache = new Cache<>();
+    private final List<ResourceEventHandler<T>> handlers = new CopyOnWriteArrayList<>();
+    private final SharedIndexInformer<T> informer;
+    private volatile boolean synced;
+    private volatile boolean watching;
+    private volatile boolean running;
+    private volatile String resourceVersion = "1";
+
+    @SuppressWarnings("unchecked")
+    InMemoryInformer() {
+        informer = (SharedIndexInformer<T>) Proxy.newProxyInstance(
+                InMemoryInformer.class.getClassLoader(),
+                new Class<?>[] {SharedIndexInformer.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getIndexer":
+                        case "getStore":
+                            return cache;
+                        case "addIndexers":
+                            cache.addIndexers((Map) args[0]);
+                            return null;
+                        case "addEventHandler":
+                        case "addEventHandlerWithResyncPeriod":
+                            handlers.add((ResourceEventHandler<T>) args[0]);
+                            return null;
+                        case "run":
+                            running = true;
+                            synced = true;
+                            watching = true;
+                            return null;
+                        case "stop":
+                            running = false;
+                            watching = false;
+                            return null;
+                        case "hasSynced":
+                            return synced;
+                        case "isWatching":
+                            return watching;
+                        case "isRunning":
+                            return running;
+                        case "lastSyncResourceVersion":
+                            return resourceVersion;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "InMemoryInformer";
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    SharedIndexInformer<T> informer() {
+        return informer;
+    }
+
+    void add(T resource) {
+        cache.put(resource);
+        handlers.forEach(handler -> handler.onAdd(resource));
+    }
+
+    void update(T resource) {
+        T old = cache.getByKey(Cache.metaNamespaceKeyFunc(resource));
+        cache.put(resource);
+        handlers.forEach(handler -> handler.onUpdate(old, resource));
+    }
+
+    void delete(T resource) {
+        cache.remove(resource);
+        handlers.forEach(handler -> handler.onDelete(resource, false));
+    }
+
+    void setSynced(boolean synced) {
+        this.synced = synced;
+    }
+
+    void setWatching(boolean watching) {
+        this.watching = watching;
+    }
+
+    void setResourceVersion(String resourceVersion) {
+        this.resourceVersion = resourceVersion;
+    }
+
+    int handlerCount() {
+        return handlers.size();
+    }
+}
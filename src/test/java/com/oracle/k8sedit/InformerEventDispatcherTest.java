@@ -0,0 +1,64 @@
+package com.oracle.k8sedit;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.oracle.k8sedit.api.API;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+
+import org.junit.jupiter.api.Test;
+
+import static com.oracle.k8sedit.ResumableWatchTest.api;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+class InformerEventDispatcherTest {
+    private final RecordingEventHandler recorder = new RecordingEventHandler();
+    private final List<ResourceEventHandler<API>> handlers = new CopyOnWriteArrayList<>();
+    private final InformerEventDispatcher<API> dispatcher = new InformerEventDispatcher<>(handlers);
+
+    @Test
+    void testRelistIsReconciledWithKnownState() {
+        handlers.add(recorder);
+        dispatcher.reconcileWith(List.of(api("custom-api1", "prod", "1"),
+                                         api("custom-api2", "prod", "1"),
+                                         api("custom-api3", "prod", "1")));
+
+        dispatcher.onAdd(api("custom-api1", "prod", "1"));
+        dispatcher.onAdd(api("custom-api2", "prod", "2"));
+        dispatcher.onAdd(api("custom-api4", "prod", "2"));
+        dispatcher.settle(resource -> false);
+
+        assertThat(recorder.events(), contains("MODIFIED custom-api2", "ADDED custom-api4", "DELETED custom-api3"));
+        assertThat(dispatcher.getUnconfirmedCount(), is(0));
+    }
+
+    @Test
+    void testSettleKeepsResourcesStillListable() {
+        handlers.add(recorder);
+        dispatcher.reconcileWith(List.of(api("custom-api1", "prod", "1")));
+
+        dispatcher.settle(resource -> true);
+        assertThat(dispatcher.getUnconfirmedCount(), is(1));
+
+        dispatcher.onAdd(api("custom-api1", "prod", "1"));
+        assertThat(recorder.events().isEmpty(), is(true));
+        assertThat(dispatcher.getUnconfirmedCount(), is(0));
+    }
+
+    @Test
+    void testFailingHandlerDoesNotStopOthers() {
+        handlers.add(new RecordingEventHandler() {
+            @Override
+            public void onAdd(API obj) {
+                throw new IllegalStateException("failed");
+            }
+        });
+        handlers.add(recorder);
+
+        dispatcher.onAdd(api("custom-api1", "prod", "1"));
+
+        assertThat(recorder.events(), contains("ADDED custom-api1"));
+    }
+}
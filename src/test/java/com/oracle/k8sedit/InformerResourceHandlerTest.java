@@ -0,0 +1,134 @@
+package com.oracle.k8sedit;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.oracle.k8sedit.api.API;
+import com.oracle.k8sedit.api.APIList;
+import com.oracle.k8sedit.api.APISpec;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.client.dsl.Resource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InformerResourceHandlerTest {
+    private final InMemoryInformer<API> informer = new InMemoryInformer<>();
+    private final AtomicInteger failures = new AtomicInteger();
+    private InformerResourceHandler<API, APIList, Resource<API>> handler;
+
+    @BeforeEach
+    void setUp() {
+        handler = new InformerResourceHandler<>(API.class, informer.informer());
+        handler.setFailureAction(failures::incrementAndGet);
+    }
+
+    @AfterEach
+    void tearDown() {
+        InformerResourceHandler.setTimeoutExecutor(
+                CompletableFuture.delayedExecutor(InformerResourceHandler.SYNC_WAIT_TIME_SEC, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testReadinessCompletesOnEvent() {
+        CompletableFuture<Void> ready = handler.whenReady();
+        assertThat(ready.isDone(), is(false));
+
+        informer.setSynced(true);
+        informer.setWatching(true);
+        informer.add(api("custom-api3"));
+
+        assertThat(ready.isDone(), is(true));
+        assertThat(handler.isReady(), is(true));
+    }
+
+    @Test
+    void testLostWatchResetsReadiness() {
+        informer.setSynced(true);
+        informer.setWatching(true);
+        assertThat(handler.whenReady().isDone(), is(true));
+
+        informer.setWatching(false);
+        assertThat(handler.isReady(), is(false));
+        CompletableFuture<Void> ready = handler.whenReady();
+        assertThat(ready.isDone(), is(false));
+
+        informer.setWatching(true);
+        informer.add(api("custom-api3"));
+        assertThat(ready.isDone(), is(true));
+    }
+
+    @Test
+    void testReadFailsFastBeforeSync() {
+        assertThrows(CacheNotReadyException.class, () -> handler.getResources());
+        assertThat(failures.get(), is(0));
+
+        informer.setSynced(true);
+        informer.add(api("custom-api3"));
+
+        assertThat(handler.getResources().size(), is(1));
+    }
+
+    @Test
+    void testReadServesCacheWithoutWatch() {
+        informer.setSynced(true);
+        informer.setWatching(true);
+        informer.add(api("custom-api3"));
+
+        informer.setWatching(false);
+
+        assertThat(handler.getResources().size(), is(1));
+        assertThat(handler.isReady(), is(false));
+        assertThat(failures.get(), is(0));
+    }
+
+    @Test
+    void testSyncFailsWhenNotSyncedInTime() {
+        handler.markSyncStarted();
+        handler.checkWatch(Duration.ofMinutes(1));
+        assertThat(failures.get(), is(0));
+
+        handler.checkWatch(Duration.ZERO);
+        assertThat(failures.get(), is(1));
+    }
+
+    @Test
+    void testWaitForSyncCompletesWithoutPolling() {
+        CompletableFuture.runAsync(() -> {
+            informer.setSynced(true);
+            handler.checkReadiness();
+        }, CompletableFuture.delayedExecutor(150, TimeUnit.MILLISECONDS));
+
+        handler.waitForSync();
+
+        assertThat(handler.whenSynced().isDone(), is(true));
+        assertThat(failures.get(), is(0));
+    }
+
+    @Test
+    void testLostWatchFailsWithoutReaders() {
+        informer.setSynced(true);
+        informer.setWatching(true);
+        handler.checkWatch(Duration.ZERO);
+        assertThat(failures.get(), is(0));
+
+        informer.setWatching(false);
+        handler.checkWatch(Duration.ofMinutes(1));
+        assertThat(failures.get(), is(0));
+
+        handler.checkWatch(Duration.ZERO);
+        assertThat(failures.get(), is(1));
+    }
+
+    private static API api(String name) {
+        return new API(new ObjectMetaBuilder().withName(name).withNamespace("dx-prod").withResourceVersion("1").build(),
+                       new APISpec(name, name + "-id", "v1"));
+    }
+}
@@ -0,0 +1,126 @@
+package com.oracle.k8sedit;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.oracle.k8sedit.api.API;
+import com.oracle.k8sedit.api.APISpec;
+import io.fabric8.kubernetes.api.model.LabelSelector;
+import io.fabric8.kubernetes.api.model.LabelSelectorRequirement;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LabelSelectorsTest {
+
+    @Test
+    void testParseEquality() {
+        LabelSelector selector = LabelSelectors.parse("tier=backend, env==prod");
+
+        assertThat(selector.getMatchLabels(), is(Map.of("tier", "backend", "env", "prod")));
+        assertThat(selector.getMatchExpressions() == null || selector.getMatchExpressions().isEmpty(), is(true));
+    }
+
+    @Test
+    void testParseSetBasedTerms() {
+        LabelSelector selector =
+                LabelSelectors.parse("env in (prod, staging),tier notin (web),track!=canary,owner,!legacy");
+
+        List<LabelSelectorRequirement> requirements = selector.getMatchExpressions();
+        assertThat(requirements.size(), is(5));
+        assertRequirement(requirements.get(0), "env", "In", List.of("prod", "staging"));
+        assertRequirement(requirements.get(1), "tier", "NotIn", List.of("web"));
+        assertRequirement(requirements.get(2), "track", "NotIn", List.of("canary"));
+        assertRequirement(requirements.get(3), "owner", "Exists", List.of());
+        assertRequirement(requirements.get(4), "legacy", "DoesNotExist", List.of());
+    }
+
+    @Test
+    void testParseBlankMatchesEverything() {
+        LabelSelector selector = LabelSelectors.parse(" ");
+
+        assertThat(LabelSelectors.matches(selector, Map.of("env", "prod")), is(true));
+        assertThat(LabelSelectors.matches(selector, null), is(true));
+    }
+
+    @Test
+    void testParseRejectsInvalidTerm() {
+        assertThrows(IllegalArgumentException.class, () -> LabelSelectors.parse("env prod"));
+    }
+
+    @Test
+    void testMatches() {
+        LabelSelector selector = LabelSelectors.parse("env in (prod,staging),tier!=web,!legacy");
+
+        assertThat(LabelSelectors.matches(selector, Map.of("env", "prod", "tier", "backend")), is(true));
+        assertThat(LabelSelectors.matches(selector, Map.of("env", "staging")), is(true));
+        assertThat(LabelSelectors.matches(selector, Map.of("env", "dev")), is(false));
+        assertThat(LabelSelectors.matches(selector, Map.of("env", "prod", "tier", "web")), is(false));
+        assertThat(LabelSelectors.matches(selector, Map.of("env", "prod", "legacy", "true")), is(false));
+        assertThat(LabelSelectors.matches(selector, null), is(false));
+    }
+
+    @Test
+    void testSelectUsesLabelIndex() {
+        Cache<API> cache = new Cache<>();
+        cache.addIndexers(LabelSelectors.indexers());
+        cache.put(api("a", Map.of("env", "prod", "tier", "backend")));
+        cache.put(api("b", Map.of("env", "prod", "tier", "web")));
+        cache.put(api("c", Map.of("env", "staging", "legacy", "true")));
+        cache.put(api("d", Map.of()));
+
+        assertThat(names(LabelSelectors.select(cache, LabelSelectors.parse("env=prod"))),
+                   containsInAnyOrder("a", "b"));
+        assertThat(names(LabelSelectors.select(cache, LabelSelectors.parse("env=prod,tier notin (web)"))),
+                   containsInAnyOrder("a"));
+        assertThat(names(LabelSelectors.select(cache, LabelSelectors.parse("env in (prod,staging),!legacy"))),
+                   containsInAnyOrder("a", "b"));
+        assertThat(names(LabelSelectors.select(cache, LabelSelectors.parse("tier"))),
+                   containsInAnyOrder("a", "b"));
+        assertThat(names(LabelSelectors.select(cache, LabelSelectors.parse("env!=prod"))),
+                   containsInAnyOrder("c", "d"));
+        assertThat(names(LabelSelectors.select(cache, null)), containsInAnyOrder("a", "b", "c", "d"));
+        assertThat(LabelSelectors.select(cache, LabelSelectors.parse("env=dev")), is(empty()));
+    }
+
+    @Test
+    void testSelectFollowsUpdatesAndDeletes() {
+        Cache<API> cache = new Cache<>();
+        cache.addIndexers(LabelSelectors.indexers());
+        API api = api("a", Map.of("env", "prod"));
+        cache.put(api);
+
+        cache.put(api("a", Map.of("env", "staging")));
+        assertThat(LabelSelectors.select(cache, LabelSelectors.parse("env=prod")), is(empty()));
+        assertThat(names(LabelSelectors.select(cache, LabelSelectors.parse("env=staging"))), containsInAnyOrder("a"));
+
+        cache.remove(api("a", Map.of("env", "staging")));
+        assertThat(LabelSelectors.select(cache, LabelSelectors.parse("env")), is(empty()));
+    }
+
+    private static void assertRequirement(LabelSelectorRequirement requirement,
+                                          String key,
+                                          String operator,
+                                          List<String> values) {
+        assertThat(requirement.getKey(), is(key));
+        assertThat(requirement.getOperator(), is(operator));
+        assertThat(requirement.getValues() == null ? List.of() : requirement.getValues(), is(values));
+    }
+
+    private static List<String> names(List<API> apis) {
+        return apis.stream().map(api -> api.getMetadata().getName()).collect(Collectors.toList());
+    }
+
+    private static API api(String name, Map<String, String> labels) {
+        return new API(new ObjectMetaBuilder().withName(name).withNamespace("dx-prod").withLabels(labels).build(),
+                       new APISpec(name, name + "-id", "v1"));
+    }
+}
@@ -0,0 +1,161 @@
+package com.oracle.k8sedit;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.NamespaceVisitFromServerGetWatchDeleteRecreateWaitApplicable;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ManifestLoaderTest {
+    private static final String NAMESPACE = "apiVersion: v1\nkind: Namespace\nmetadata:\n  name: dx-prod\n";
+    private static final String CRD = "apiVersion: apiextensions.k8s.io/v1\n"
+                                      + "kind: CustomResourceDefinition\n"
+                                      + "metadata:\n"
+                                      + "  name: apis.k8sedit.oracle.com\n";
+    private static final String DEPLOYMENT = "apiVersion: apps/v1\nkind: Deployment\nmetadata:\n  name: web\n";
+    private static final String WIDGET = "apiVersion: example.com/v1\nkind: Widget\nmetadata:\n  name: w1\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReadSplitsDocuments() throws IOException {
+        Path file = write("api.yml", configMap("a")
+                                     + "---\n"
+                                     + "# only a comment\n"
+                                     + "--- # separator with a comment\n"
+                                     + configMap("b")
+                                     + "---\n");
+        List<String> sources = new ArrayList<>();
+        List<String> documents = new ArrayList<>();
+
+        ManifestLoader.readDocuments(file, (source, document) -> {
+            sources.add(source);
+            documents.add(document);
+        });
+
+        assertThat(sources, contains(file + "#0", file + "#2"));
+        assertThat(documents, contains(configMap("a"), configMap("b")));
+    }
+
+    @Test
+    void testParseExpandsLists() {
+        String list = "apiVersion: v1\n"
+                      + "kind: List\n"
+                      + "items:\n"
+                      + "- apiVersion: v1\n"
+                      + "  kind: ConfigMap\n"
+                      + "  metadata:\n"
+                      + "    name: a\n"
+                      + "- apiVersion: v1\n"
+                      + "  kind: ConfigMap\n"
+                      + "  metadata:\n"
+                      + "    name: b\n";
+
+        List<ManifestLoader.Document> documents = ManifestLoader.parse("list.yml#0", list);
+
+        assertThat(documents.stream().map(ManifestLoader.Document::getSource).collect(Collectors.toList()),
+                   contains("list.yml#0[0]", "list.yml#0[1]"));
+        assertThat(documents.get(1).getResource(), is(instanceOf(ConfigMap.class)));
+        assertThat(documents.get(1).getResource().getMetadata().getName(), is("b"));
+    }
+
+    @Test
+    void testParseRejectsInvalidDocument() {
+        assertThrows(ManifestLoader.ParseException.class, () -> ManifestLoader.parse("broken.yml#0", "items: [a"));
+    }
+
+    @Test
+    void testDocumentsAreGroupedInApplyOrder() {
+        List<ManifestLoader.Document> documents = new ArrayList<>();
+        documents.addAll(ManifestLoader.parse("a.yml#0", WIDGET));
+        documents.addAll(ManifestLoader.parse("a.yml#1", configMap("a")));
+        documents.addAll(ManifestLoader.parse("a.yml#2", CRD));
+        documents.addAll(ManifestLoader.parse("b.yml#0", DEPLOYMENT));
+        documents.addAll(ManifestLoader.parse("b.yml#1", configMap("b")));
+        documents.addAll(ManifestLoader.parse("b.yml#2", NAMESPACE));
+
+        List<List<ManifestLoader.Document>> groups = ManifestLoader.groupByKind(documents);
+
+        assertThat(groups.stream().map(group -> group.get(0).getResource().getKind()).collect(Collectors.toList()),
+                   contains("Namespace", "CustomResourceDefinition", "ConfigMap", "Deployment", "Widget"));
+        assertThat(groups.get(2).stream().map(ManifestLoader.Document::getSource).collect(Collectors.toList()),
+                   contains("a.yml#1", "b.yml#1"));
+    }
+
+    @Test
+    void testResultsAreInSourceOrder() throws IOException {
+        Path first = write("a.yml", configMap("a") + "---\nitems: [a\n---\n" + NAMESPACE + "---\n" + configMap("b"));
+        Path second = write("b.yml", WIDGET);
+        List<String> applied = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<ManifestLoader.DocumentResult> results;
+        try {
+            results = new ManifestLoader(client(applied), executor, 2).apply(List.of(first, second), "dx-prod");
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(results.stream().map(ManifestLoader.DocumentResult::getSource).collect(Collectors.toList()),
+                   contains(first + "#0", first + "#1", first + "#2", first + "#3", second + "#0"));
+        assertThat(results.stream().map(ManifestLoader.DocumentResult::isSuccess).collect(Collectors.toList()),
+                   contains(true, false, true, true, true));
+        assertThat(applied.get(0), is("Namespace"));
+        assertThat(applied.get(applied.size() - 1), is("Widget"));
+    }
+
+    /**
+     * A client that applies resources by returning them, recording their kinds
+     */
+    private static KubernetesClient client(List<String> applied) {
+        return (KubernetesClient) Proxy.newProxyInstance(
+                ManifestLoaderTest.class.getClassLoader(),
+                new Class<?>[] {KubernetesClient.class},
+                (client, clientMethod, clientArgs) -> {
+                    if (!"resource".equals(clientMethod.getName())) {
+                        return null;
+                    }
+                    HasMetadata resource = (HasMetadata) clientArgs[0];
+                    return Proxy.newProxyInstance(
+                            ManifestLoaderTest.class.getClassLoader(),
+                            new Class<?>[] {NamespaceVisitFromServerGetWatchDeleteRecreateWaitApplicable.class},
+                            (operation, method, args) -> {
+                                if ("inNamespace".equals(method.getName())) {
+                                    return operation;
+                                }
+                                if ("createOrReplace".equals(method.getName())) {
+                                    applied.add(resource.getKind());
+                                    return resource;
+                                }
+                                return null;
+                            });
+                });
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content);
+    }
+
+    private static String configMap(String name) {
+        return "apiVersion: v1\nkind: ConfigMap\nmetadata:\n  name: " + name + "\n";
+    }
+}
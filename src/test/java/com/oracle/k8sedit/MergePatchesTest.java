@@ -0,0 +1,117 @@
+
+package com.oracle.k8sedit;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.k8sedit.api.API;
+import com.oracle.k8sedit.api.APISpec;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.api.model.OwnerReferenceBuilder;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+class MergePatchesTest {
+
+    @Test
+    void testUnchangedResourceProducesEmptyPatch() {
+        API cached = api("v1");
+        cached.getMetadata().setResourceVersion("42");
+        cached.getMetadata().setUid("0f6e1b5c");
+
+        assertThat(MergePatches.diff(cached, api("v1")).size(), is(0));
+    }
+
+    @Test
+    void testPatchContainsOnlyChangedFields() {
+        String patch = MergePatches.diff(api("v1"), api("v2")).toString();
+
+        assertThat(patch, is("{\"spec\":{\"api-version\":\"v2\"}}"));
+    }
+
+    @Test
+    void testRemovedLabelIsNulled() {
+        API cached = api("v1");
+        cached.getMetadata().setLabels(Map.of("cxif.owner", "automation"));
+        API desired = api("v1");
+        desired.getMetadata().setLabels(Map.of("test", "hello"));
+
+        String patch = MergePatches.diff(cached, desired).toString();
+
+        assertThat(patch, is("{\"metadata\":{\"labels\":{\"cxif.owner\":null,\"test\":\"hello\"}}}"));
+    }
+
+    @Test
+    void testDiffLeavesControllerManagedMetadata() {
+        API cached = api("v1");
+        cached.getMetadata().setFinalizers(List.of("k8sedit.oracle.com/cleanup"));
+        cached.getMetadata().setOwnerReferences(List.of(new OwnerReferenceBuilder().withKind("Deployment")
+                                                                .withName("gateway")
+                                                                .withUid("6d1c2f0a")
+                                                                .build()));
+        API desired = api("v2");
+        desired.getMetadata().setFinalizers(List.of("k8sedit.oracle.com/other"));
+
+        String patch = MergePatches.diff(cached, desired).toString();
+
+        assertThat(patch, is("{\"spec\":{\"api-version\":\"v2\"}}"));
+        assertThat(MergePatches.contentHash(cached), is(MergePatches.contentHash(api("v1"))));
+    }
+
+    @Test
+    void testDiffSetFieldsKeepsOmittedFields() {
+        API cached = api("v1");
+        cached.getMetadata().setLabels(Map.of("cxif.owner", "automation"));
+        cached.getMetadata().setFinalizers(List.of("k8sedit.oracle.com/cleanup"));
+        cached.getMetadata().setOwnerReferences(List.of(new OwnerReferenceBuilder().withKind("Deployment")
+                                                                .withName("gateway")
+                                                                .withUid("6d1c2f0a")
+                                                                .build()));
+        API desired = api("v2");
+        desired.getMetadata().setFinalizers(List.of());
+
+        String patch = MergePatches.diffSetFields(cached, desired).toString();
+
+        assertThat(patch, is("{\"spec\":{\"api-version\":\"v2\"}}"));
+    }
+
+    @Test
+    void testDiffSetFieldsSetsAddedLabel() {
+        API cached = api("v1");
+        cached.getMetadata().setLabels(Map.of("cxif.owner", "automation"));
+        API desired = api("v1");
+        desired.getMetadata().setLabels(Map.of("test", "hello"));
+
+        String patch = MergePatches.diffSetFields(cached, desired).toString();
+
+        assertThat(patch, is("{\"metadata\":{\"labels\":{\"test\":\"hello\"}}}"));
+    }
+
+    @Test
+    void testContentHashIgnoresServerManagedMetadataAndFieldOrder() {
+        API cached = api("v1");
+        cached.getMetadata().setResourceVersion("42");
+        cached.getMetadata().setLabels(new LinkedHashMap<>(Map.of("a", "1")));
+        cached.getMetadata().getLabels().put("b", "2");
+        API desired = api("v1");
+        desired.getMetadata().setLabels(new LinkedHashMap<>(Map.of("b", "2")));
+        desired.getMetadata().getLabels().put("a", "1");
+
+        assertThat(MergePatches.contentHash(desired), is(MergePatches.contentHash(cached)));
+    }
+
+    @Test
+    void testContentHashChangesWithSpec() {
+        assertThat(MergePatches.contentHash(api("v2")), is(not(MergePatches.contentHash(api("v1")))));
+    }
+
+    private static API api(String apiVersion) {
+        return new API(new ObjectMetaBuilder().withName("custom-api3").withNamespace("dx-prod").build(),
+                       new APISpec("custom-api3", "custom-103", apiVersion));
+    }
+}
@@ -0,0 +1,141 @@
+package com.oracle.k8sedit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import com.oracle.k8sedit.api.API;
+import com.oracle.k8sedit.api.APISpec;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReadYourWritesOverlayTest {
+    private final ReadYourWritesOverlay<API> overlay = new ReadYourWritesOverlay<>();
+
+    @Test
+    void testWriteIsServedUntilInformerCatchesUp() {
+        API written = api("dx-prod", "a", "5", "v2");
+        overlay.recordWrite(written);
+
+        assertThat(overlay.resolve("dx-prod", "a", api("dx-prod", "a", "4", "v1")), is(sameInstance(written)));
+
+        API caughtUp = api("dx-prod", "a", "5", "v2");
+        assertThat(overlay.resolve("dx-prod", "a", caughtUp), is(sameInstance(caughtUp)));
+        assertThat(overlay.isEmpty(), is(true));
+    }
+
+    @Test
+    void testInformerEventEvictsWriteAndReportsLag() {
+        AtomicLong lag = new AtomicLong(-1);
+        overlay.setLagListener(lag::set);
+        overlay.recordWrite(api("dx-prod", "a", "5", "v2"));
+
+        overlay.onUpdate(api("dx-prod", "a", "4", "v1"), api("dx-prod", "a", "6", "v3"));
+
+        assertThat(overlay.isEmpty(), is(true));
+        assertThat(lag.get(), is(greaterThan(-1L)));
+    }
+
+    @Test
+    void testDeleteHidesResourceUntilInformerReportsIt() {
+        API cached = api("dx-prod", "a", "4", "v1");
+        overlay.recordDelete("dx-prod", "a");
+
+        assertThat(overlay.resolve("dx-prod", "a", cached), is(nullValue()));
+        assertThat(overlay.resolve(List.of(cached), "dx-prod").isEmpty(), is(true));
+
+        overlay.onDelete(cached, false);
+        assertThat(overlay.resolve("dx-prod", "a", null), is(nullValue()));
+        assertThat(overlay.isEmpty(), is(true));
+    }
+
+    @Test
+    void testListIsMergedSortedAndUnmodifiable() {
+        List<API> cached = List.of(api("dx-prod", "b", "4", "v1"), api("dx-prod", "d", "4", "v1"));
+        overlay.recordWrite(api("dx-prod", "c", "5", "v1"));
+        overlay.recordWrite(api("dx-prod", "a", "6", "v1"));
+        overlay.recordWrite(api("dx-test", "e", "7", "v1"));
+
+        List<API> resolved = overlay.resolve(cached, "dx-prod");
+
+        assertThat(names(resolved), contains("a", "b", "c", "d"));
+        assertThrows(UnsupportedOperationException.class, () -> resolved.add(api("dx-prod", "f", "1", "v1")));
+        assertThat(names(overlay.resolve(new ArrayList<>(cached), null)), contains("a", "b", "c", "d", "e"));
+    }
+
+    @Test
+    void testListWithoutApplicableEntriesIsReturnedAsIs() {
+        List<API> cached = List.of(api("dx-prod", "b", "4", "v1"));
+        overlay.recordWrite(api("dx-test", "a", "5", "v1"));
+
+        assertThat(overlay.resolve(cached, "dx-prod"), is(sameInstance(cached)));
+    }
+
+    @Test
+    void testQueryResultFollowsWritesMatchingTheQuery() {
+        API unchanged = api("dx-prod", "a", "4", "v1");
+        API before = api("dx-prod", "b", "4", "v1");
+        Map<String, API> cache = Map.of("a", unchanged, "b", before);
+        // b was moved to v2, c was created with v1
+        overlay.recordWrite(api("dx-prod", "b", "5", "v2"));
+        overlay.recordWrite(api("dx-prod", "c", "6", "v1"));
+
+        List<API> v1 = overlay.resolve(List.of(unchanged, before),
+                                       null,
+                                       api -> "v1".equals(api.getSpec().getApiVersion()),
+                                       (namespace, name) -> cache.get(name));
+        List<API> v2 = overlay.resolve(List.of(),
+                                       null,
+                                       api -> "v2".equals(api.getSpec().getApiVersion()),
+                                       (namespace, name) -> cache.get(name));
+
+        assertThat(names(v1), contains("a", "c"));
+        assertThat(names(v2), contains("b"));
+    }
+
+    @Test
+    void testCountDeltaFollowsWritesAndEvictions() {
+        Map<String, API> cache = Map.of("a", api("dx-prod", "a", "4", "v1"), "b", api("dx-prod", "b", "4", "v1"));
+        overlay.setCacheLookup((namespace, name) -> cache.get(name));
+
+        overlay.recordWrite(api("dx-prod", "a", "5", "v2"));
+        overlay.recordWrite(api("dx-prod", "c", "6", "v1"));
+        overlay.recordDelete("dx-prod", "b");
+        assertThat(overlay.getCountDelta(), is(0));
+
+        overlay.recordWrite(api("dx-prod", "d", "7", "v1"));
+        assertThat(overlay.getCountDelta(), is(1));
+        overlay.recordDelete("dx-prod", "d");
+        assertThat(overlay.getCountDelta(), is(0));
+
+        overlay.onAdd(api("dx-prod", "c", "6", "v1"));
+        overlay.onDelete(api("dx-prod", "b", "4", "v1"), false);
+        assertThat(overlay.getCountDelta(), is(0));
+        overlay.onUpdate(api("dx-prod", "a", "4", "v1"), api("dx-prod", "a", "5", "v2"));
+        assertThat(overlay.getCountDelta(), is(0));
+    }
+
+    private static List<String> names(List<API> apis) {
+        return apis.stream().map(api -> api.getMetadata().getName()).collect(Collectors.toList());
+    }
+
+    private static API api(String namespace, String name, String resourceVersion, String apiVersion) {
+        return new API(new ObjectMetaBuilder()
+                               .withName(name)
+                               .withNamespace(namespace)
+                               .withResourceVersion(resourceVersion)
+                               .build(),
+                       new APISpec(name, name + "-id", apiVersion));
+    }
+}
@@ -0,0 +1,33 @@
+package com.oracle.k8sedit;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.oracle.k8sedit.api.API;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+
+/**
+ * Records the events it receives as {@code "<type> <name>"}, e.g. {@code "ADDED custom-api1"}.
+ */
+class RecordingEventHandler implements ResourceEventHandler<API> {
+    private final List<String> events = new CopyOnWriteArrayList<>();
+
+    List<String> events() {
+        return events;
+    }
+
+    @Override
+    public void onAdd(API obj) {
+        events.add("ADDED " + obj.getMetadata().getName());
+    }
+
+    @Override
+    public void onUpdate(API oldObj, API newObj) {
+        events.add("MODIFIED " + newObj.getMetadata().getName());
+    }
+
+    @Override
+    public void onDelete(API obj, boolean deletedFinalStateUnknown) {
+        events.add("DELETED " + obj.getMetadata().getName());
+    }
+}
@@ -0,0 +1,75 @@
+package com.oracle.k8sedit;
+
+import java.time.Duration;
+import java.util.Map;
+
+import io.helidon.config.Config;
+import io.helidon.config.ConfigSources;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecoveryPolicyTest {
+
+    @Test
+    void testBackoffDoublesUpToMaximum() {
+        RecoveryPolicy policy = RecoveryPolicy.of(Duration.ofMillis(100), Duration.ofMillis(1000), 10);
+
+        for (int i = 0; i < 100; i++) {
+            assertBetween(policy.backoffMillis(1), 50, 100);
+            assertBetween(policy.backoffMillis(2), 100, 200);
+            assertBetween(policy.backoffMillis(4), 400, 800);
+            assertBetween(policy.backoffMillis(5), 500, 1000);
+            assertBetween(policy.backoffMillis(50), 500, 1000);
+        }
+    }
+
+    @Test
+    void testBackoffDoesNotOverflow() {
+        RecoveryPolicy policy = RecoveryPolicy.of(Duration.ofMillis(1), Duration.ofMillis(Long.MAX_VALUE), 1000);
+
+        assertThat(policy.backoffMillis(1000) > 0, is(true));
+        assertThat(policy.backoffMillis(Integer.MAX_VALUE) > 0, is(true));
+    }
+
+    @Test
+    void testInvalidBackoffIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> RecoveryPolicy.of(Duration.ZERO, Duration.ofSeconds(1), 1));
+        assertThrows(IllegalArgumentException.class,
+                     () -> RecoveryPolicy.of(Duration.ofSeconds(2), Duration.ofSeconds(1), 1));
+    }
+
+    @Test
+    void testCreateFromConfig() {
+        Config config = Config.builder()
+                .disableEnvironmentVariablesSource()
+                .disableSystemPropertiesSource()
+                .sources(ConfigSources.create(Map.of("initial-backoff-millis", "10",
+                                                     "max-backoff-millis", "20",
+                                                     "max-attempts", "3")))
+                .build();
+
+        RecoveryPolicy policy = RecoveryPolicy.create(config);
+
+        assertThat(policy.getMaxAttempts(), is(3));
+        assertBetween(policy.backoffMillis(5), 10, 20);
+    }
+
+    @Test
+    void testCreateFromEmptyConfigUsesDefaults() {
+        RecoveryPolicy policy = RecoveryPolicy.create(Config.empty());
+
+        assertThat(policy.getMaxAttempts(), is(RecoveryPolicy.DEFAULT_MAX_ATTEMPTS));
+        assertBetween(policy.backoffMillis(1),
+                      RecoveryPolicy.DEFAULT_INITIAL_BACKOFF.toMillis() / 2,
+                      RecoveryPolicy.DEFAULT_INITIAL_BACKOFF.toMillis());
+    }
+
+    private static void assertBetween(long value, long min, long max) {
+        assertThat(value + " in [" + min + ", " + max + "]", value >= min && value <= max, is(true));
+    }
+}
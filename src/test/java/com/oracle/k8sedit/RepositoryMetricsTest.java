@@ -0,0 +1,53 @@
+package com.oracle.k8sedit;
+
+import com.oracle.k8sedit.api.API;
+import io.helidon.metrics.api.RegistryFactory;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+class RepositoryMetricsTest {
+    private final MetricRegistry registry = RegistryFactory.getInstance().getRegistry(MetricRegistry.Type.APPLICATION);
+
+    @Test
+    void testGaugesAreRemovedOnClose() {
+        RepositoryMetrics<API> metrics = new RepositoryMetrics<>("API", "API-close", namespace -> 3);
+        metrics.registerNamespace("dx-prod");
+        MetricID id = cacheSize("API-close", "dx-prod");
+
+        assertThat(registry.getGauge(id).getValue(), is(3));
+
+        metrics.close();
+        assertThat(registry.getGauge(id), is(nullValue()));
+    }
+
+    @Test
+    void testNewerRepositoryTakesOverGauges() {
+        RepositoryMetrics<API> first = new RepositoryMetrics<>("API", "API-takeover", namespace -> 1);
+        first.registerNamespace("dx-prod");
+        RepositoryMetrics<API> second = new RepositoryMetrics<>("API", "API-takeover", namespace -> 2);
+        second.registerNamespace("dx-prod");
+        MetricID id = cacheSize("API-takeover", "dx-prod");
+
+        assertThat(registry.getGauge(id).getValue(), is(2));
+
+        first.close();
+        assertThat(registry.getGauge(id).getValue(), is(2));
+
+        second.close();
+        assertThat(registry.getGauge(id), is(nullValue()));
+    }
+
+    private static MetricID cacheSize(String repository, String namespace) {
+        return new MetricID(RepositoryMetrics.CACHE_SIZE,
+                            new Tag("kind", "API"),
+                            new Tag("repository", repository),
+                            new Tag("namespace", namespace));
+    }
+}
@@ -0,0 +1,108 @@
+package com.oracle.k8sedit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RepositoryRegistryTest {
+    private final RepositoryRegistry registry = RepositoryRegistry.createWithoutReaping(Duration.ofHours(1));
+    private final AtomicInteger created = new AtomicInteger();
+    private final List<String> shutDown = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        registry.close();
+    }
+
+    @Test
+    void testLeasesShareRepository() {
+        RepositoryRegistry.Lease<String> first = acquire("apis");
+        RepositoryRegistry.Lease<String> second = acquire("apis");
+
+        assertThat(second.getRepository(), is(sameInstance(first.getRepository())));
+        assertThat(created.get(), is(1));
+        assertThat(registry.size(), is(1));
+    }
+
+    @Test
+    void testClosedLeaseRejectsAccess() {
+        RepositoryRegistry.Lease<String> lease = acquire("apis");
+        lease.close();
+
+        assertThrows(IllegalStateException.class, lease::getRepository);
+    }
+
+    @Test
+    void testLeasedRepositoryIsNotShutDown() {
+        RepositoryRegistry idleRegistry = RepositoryRegistry.createWithoutReaping(Duration.ZERO);
+        try {
+            RepositoryRegistry.Lease<String> first = acquire(idleRegistry, "apis");
+            RepositoryRegistry.Lease<String> second = acquire(idleRegistry, "apis");
+
+            first.close();
+            // a second close must not release the other lease's reference
+            first.close();
+            idleRegistry.shutdownIdle();
+            assertThat(shutDown, is(empty()));
+            assertThat(idleRegistry.size(), is(1));
+
+            second.close();
+            idleRegistry.shutdownIdle();
+            assertThat(shutDown, contains("apis-1"));
+            assertThat(idleRegistry.size(), is(0));
+        } finally {
+            idleRegistry.close();
+        }
+    }
+
+    @Test
+    void testRepositoryIsKeptUntilIdleTimeout() {
+        acquire("apis").close();
+
+        registry.shutdownIdle();
+        assertThat(shutDown, is(empty()));
+        assertThat(registry.size(), is(1));
+    }
+
+    @Test
+    void testRepositoryIsRecreatedAfterShutdown() {
+        RepositoryRegistry idleRegistry = RepositoryRegistry.createWithoutReaping(Duration.ZERO);
+        try {
+            acquire(idleRegistry, "apis").close();
+            idleRegistry.shutdownIdle();
+
+            assertThat(acquire(idleRegistry, "apis").getRepository(), is("apis-2"));
+        } finally {
+            idleRegistry.close();
+        }
+    }
+
+    @Test
+    void testCloseShutsDownLeasedRepositories() {
+        acquire("apis");
+        acquire("routes");
+
+        registry.close();
+        assertThat(shutDown.size(), is(2));
+        assertThat(registry.size(), is(0));
+    }
+
+    private RepositoryRegistry.Lease<String> acquire(String key) {
+        return acquire(registry, key);
+    }
+
+    private RepositoryRegistry.Lease<String> acquire(RepositoryRegistry target, String key) {
+        return target.acquire(key, () -> key + "-" + created.incrementAndGet(), shutDown::add);
+    }
+}
@@ -0,0 +1,104 @@
+package com.oracle.k8sedit;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ListOptions;
+import io.fabric8.kubernetes.api.model.ManagedFieldsEntry;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.WatcherException;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+class ResourceCompactorTest {
+    @Test
+    void testCompactionLeavesTheReceivedMetadata() {
+        GenericKubernetesResource resource = resource("widget1");
+        ObjectMeta received = resource.getMetadata();
+
+        ResourceCompactor.compacted(resource);
+
+        assertThat(resource.getMetadata(), is(not(sameInstance(received))));
+        assertThat(resource.getMetadata().getManagedFields(), is(empty()));
+        assertThat(resource.getMetadata().getNamespace(), is(sameInstance("dx-prod")));
+        assertThat(resource.getMetadata().getLabels().get("cxif.owner"), is(sameInstance("automation")));
+        assertThat(resource.getMetadata().getName(), is("widget1"));
+        assertThat(received.getManagedFields(), hasSize(1));
+        assertThat(received.getNamespace(), is(not(sameInstance("dx-prod"))));
+    }
+
+    @Test
+    void testListedAndWatchedResourcesAreCompacted() {
+        List<Watcher<GenericKubernetesResource>> watchers = new ArrayList<>();
+        PagingListerWatcher<GenericKubernetesResource, GenericKubernetesResourceList> listerWatcher =
+                new PagingListerWatcher<>(operation(watchers), null, 0, "Widget");
+
+        GenericKubernetesResourceList page = listerWatcher.list(new ListOptions());
+        assertThat(page.getItems().get(0).getMetadata().getManagedFields(), is(empty()));
+
+        List<GenericKubernetesResource> received = new ArrayList<>();
+        listerWatcher.watch(new ListOptions(), new Watcher<>() {
+            @Override
+            public void eventReceived(Action action, GenericKubernetesResource resource) {
+                received.add(resource);
+            }
+
+            @Override
+            public void onClose(WatcherException cause) {
+            }
+        });
+        watchers.get(0).eventReceived(Watcher.Action.MODIFIED, resource("widget2"));
+        assertThat(received.get(0).getMetadata().getManagedFields(), is(empty()));
+        assertThat(received.get(0).getMetadata().getNamespace(), is(sameInstance("dx-prod")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FilterWatchListDeletable<GenericKubernetesResource, GenericKubernetesResourceList> operation(
+            List<Watcher<GenericKubernetesResource>> watchers) {
+        return (FilterWatchListDeletable<GenericKubernetesResource, GenericKubernetesResourceList>)
+                Proxy.newProxyInstance(ResourceCompactorTest.class.getClassLoader(),
+                                       new Class<?>[] {FilterWatchListDeletable.class},
+                                       (proxy, method, args) -> {
+                                           switch (method.getName()) {
+                                               case "list":
+                                                   GenericKubernetesResourceList list =
+                                                           new GenericKubernetesResourceList();
+                                                   list.setItems(new ArrayList<>(List.of(resource("widget1"))));
+                                                   return list;
+                                               case "watch":
+                                                   watchers.add((Watcher<GenericKubernetesResource>) args[1]);
+                                                   return null;
+                                               default:
+                                                   return null;
+                                           }
+                                       });
+    }
+
+    private static GenericKubernetesResource resource(String name) {
+        GenericKubernetesResource resource = new GenericKubernetesResource();
+        resource.setApiVersion("example.com/v1");
+        resource.setKind("Widget");
+        // Built at runtime, like strings deserialized from a response, so they aren't the interned literals
+        resource.setMetadata(new ObjectMetaBuilder()
+                                     .withName(name)
+                                     .withNamespace(new String("dx-prod"))
+                                     .withLabels(Map.of(new String("cxif.owner"), new String("automation")))
+                                     .withManagedFields(new ManagedFieldsEntry())
+                                     .build());
+        return resource;
+    }
+}
@@ -0,0 +1,119 @@
+package com.oracle.k8sedit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.stream.Collectors;
+
+import com.oracle.k8sedit.api.API;
+import com.oracle.k8sedit.api.APISpec;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.helidon.common.http.DataChunk;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+class ResourceEventBroadcasterTest {
+    private final ResourceEventBroadcaster<API> broadcaster = new ResourceEventBroadcaster<>(Runnable::run);
+
+    @Test
+    void testSelectorTransitions() {
+        Recorder recorder = subscribe("dx-prod", "env=prod", 10);
+        recorder.request(Long.MAX_VALUE);
+
+        broadcaster.onAdd(api("a", "dx-prod", "prod", "1"));
+        broadcaster.onAdd(api("b", "dx-dev", "prod", "1"));
+        broadcaster.onUpdate(api("a", "dx-prod", "prod", "1"), api("a", "dx-prod", "staging", "2"));
+        broadcaster.onUpdate(api("a", "dx-prod", "staging", "2"), api("a", "dx-prod", "staging", "3"));
+        broadcaster.onUpdate(api("a", "dx-prod", "staging", "3"), api("a", "dx-prod", "prod", "4"));
+        broadcaster.onUpdate(api("a", "dx-prod", "prod", "4"), api("a", "dx-prod", "prod", "5"));
+        broadcaster.onUpdate(api("a", "dx-prod", "prod", "5"), api("a", "dx-prod", "prod", "5"));
+
+        assertThat(recorder.types(), contains("ADDED", "DELETED", "ADDED", "MODIFIED"));
+    }
+
+    @Test
+    void testPendingEventsAreCoalesced() {
+        Recorder recorder = subscribe(null, null, 10);
+
+        broadcaster.onAdd(api("a", "dx-prod", "prod", "1"));
+        broadcaster.onUpdate(api("a", "dx-prod", "prod", "1"), api("a", "dx-prod", "prod", "2"));
+        broadcaster.onAdd(api("b", "dx-prod", "prod", "1"));
+        broadcaster.onDelete(api("b", "dx-prod", "prod", "1"), false);
+        assertThat(recorder.frames, is(empty()));
+
+        recorder.request(Long.MAX_VALUE);
+        assertThat(recorder.types(), contains("ADDED"));
+        assertThat(recorder.frames.get(0).contains("\"resourceVersion\":\"2\""), is(true));
+    }
+
+    @Test
+    void testOverflowCompletesSubscriber() {
+        Recorder recorder = subscribe(null, null, 2);
+
+        broadcaster.onAdd(api("a", "dx-prod", "prod", "1"));
+        broadcaster.onAdd(api("b", "dx-prod", "prod", "1"));
+        broadcaster.onAdd(api("c", "dx-prod", "prod", "1"));
+        recorder.request(Long.MAX_VALUE);
+
+        assertThat(recorder.types(), contains("OVERFLOW"));
+        assertThat(recorder.completed, is(true));
+        assertThat(broadcaster.getSubscriberCount(), is(0));
+    }
+
+    private Recorder subscribe(String namespace, String selector, int capacity) {
+        Recorder recorder = new Recorder();
+        broadcaster.subscribe(namespace, LabelSelectors.parse(selector), capacity).subscribe(recorder);
+        return recorder;
+    }
+
+    private static API api(String name, String namespace, String env, String resourceVersion) {
+        return new API(new ObjectMetaBuilder().withName(name)
+                               .withNamespace(namespace)
+                               .withLabels(Map.of("env", env))
+                               .withResourceVersion(resourceVersion)
+                               .build(),
+                       new APISpec(name, name + "-id", "v1"));
+    }
+
+    private static final class Recorder implements Flow.Subscriber<DataChunk> {
+        private final List<String> frames = new CopyOnWriteArrayList<>();
+        private Flow.Subscription subscription;
+        private volatile boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(DataChunk item) {
+            frames.add(new String(item.bytes(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        void request(long n) {
+            subscription.request(n);
+        }
+
+        List<String> types() {
+            return frames.stream()
+                    .map(frame -> frame.substring("event: ".length(), frame.indexOf('\n')))
+                    .collect(Collectors.toList());
+        }
+    }
+}
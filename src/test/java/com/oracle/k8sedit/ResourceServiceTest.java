@@ -0,0 +1,230 @@
+package com.oracle.k8sedit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.oracle.k8sedit.api.API;
+import com.oracle.k8sedit.api.APIList;
+import com.oracle.k8sedit.api.APISpec;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.helidon.common.http.MediaType;
+import io.helidon.media.jackson.JacksonSupport;
+import io.helidon.webclient.WebClient;
+import io.helidon.webclient.WebClientRequestBuilder;
+import io.helidon.webclient.WebClientResponse;
+import io.helidon.webserver.Routing;
+import io.helidon.webserver.WebServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+class ResourceServiceTest {
+    private final InMemoryInformer<API> informer = new InMemoryInformer<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private AbstractCRDRepository<APISpec, API, APIList> repository;
+    private WebServer webServer;
+    private WebClient webClient;
+
+    @BeforeEach
+    void setUp() {
+        InformerCustomResourceHandler<API, APIList> handler =
+                new InformerCustomResourceHandler<API, APIList>(API.class, informer.informer()) {
+                };
+        repository = new AbstractCRDRepository<>(API.class, handler) {
+        };
+        informer.add(api("dx-prod", "api1", "automation"));
+        informer.add(api("dx-prod", "api2", "manual"));
+        informer.add(api("dx-prod", "api3", "automation"));
+        informer.add(api("dx-prod", "api4", "automation"));
+        informer.add(api("dx-test", "api5", "automation"));
+        informer.setSynced(true);
+        informer.setWatching(true);
+        handler.checkReadiness();
+        start(() -> executor);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        webServer.shutdown().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        repository.shutdown();
+        executor.shutdown();
+    }
+
+    @Test
+    void testListIsPagedWithContinueTokens() {
+        List<String> names = new ArrayList<>();
+        String continueToken = null;
+        int pages = 0;
+        do {
+            WebClientRequestBuilder request = webClient.get()
+                    .path("/apis")
+                    .queryParam("namespace", "dx-prod")
+                    .queryParam("limit", "3");
+            if (continueToken != null) {
+                request.queryParam("continue", continueToken);
+            }
+            APIList page = list(request.request().await());
+            page.getItems().forEach(api -> names.add(api.getMetadata().getName()));
+            continueToken = page.getMetadata().getContinue();
+            pages++;
+        } while (continueToken != null);
+
+        assertThat(pages, is(2));
+        assertThat(names, contains("api1", "api2", "api3", "api4"));
+    }
+
+    @Test
+    void testLabelSelectorPagesOnlyMatchingResources() {
+        APIList first = list(webClient.get()
+                                     .path("/apis")
+                                     .queryParam("labelSelector", "cxif.owner=automation")
+                                     .queryParam("limit", "2")
+                                     .request()
+                                     .await());
+        assertThat(names(first), contains("api1", "api3"));
+
+        APIList second = list(webClient.get()
+                                      .path("/apis")
+                                      .queryParam("labelSelector", "cxif.owner=automation")
+                                      .queryParam("limit", "2")
+                                      .queryParam("continue", first.getMetadata().getContinue())
+                                      .request()
+                                      .await());
+        assertThat(names(second), contains("api4", "api5"));
+        assertThat(second.getMetadata().getContinue(), is(nullValue()));
+    }
+
+    @Test
+    void testUnchangedListIsNotModified() {
+        WebClientResponse first = webClient.get().path("/apis").request().await();
+        String etag = first.headers().first("ETag").orElseThrow();
+
+        WebClientResponse unchanged = webClient.get()
+                .path("/apis")
+                .addHeader("If-None-Match", etag)
+                .request()
+                .await();
+        assertThat(unchanged.status().code(), is(304));
+
+        API changedApi = api("dx-prod", "api2", "automation");
+        changedApi.getMetadata().setResourceVersion("2");
+        informer.update(changedApi);
+        WebClientResponse changed = webClient.get()
+                .path("/apis")
+                .addHeader("If-None-Match", etag)
+                .request()
+                .await();
+        assertThat(changed.status().code(), is(200));
+        assertThat(changed.headers().first("ETag").orElseThrow(), is(not(etag)));
+    }
+
+    @Test
+    void testNdjsonHasOneResourcePerLine() throws JsonProcessingException {
+        String body = webClient.get()
+                .path("/apis")
+                .queryParam("namespace", "dx-prod")
+                .accept(MediaType.create("application", "x-ndjson"))
+                .request(String.class)
+                .await();
+
+        assertThat(lines(body), contains("api1", "api2", "api3", "api4"));
+    }
+
+    @Test
+    void testNdjsonIsPagedWithContinueHeader() throws JsonProcessingException {
+        WebClientResponse first = webClient.get()
+                .path("/apis")
+                .queryParam("namespace", "dx-prod")
+                .queryParam("limit", "3")
+                .accept(MediaType.create("application", "x-ndjson"))
+                .request()
+                .await();
+        String continueToken = first.headers().first("X-Continue").orElseThrow();
+        assertThat(lines(first.content().as(String.class).await()), contains("api1", "api2", "api3"));
+
+        WebClientResponse second = webClient.get()
+                .path("/apis")
+                .queryParam("namespace", "dx-prod")
+                .queryParam("limit", "3")
+                .queryParam("continue", continueToken)
+                .accept(MediaType.create("application", "x-ndjson"))
+                .request()
+                .await();
+        assertThat(lines(second.content().as(String.class).await()), contains("api4"));
+        assertThat(second.headers().first("X-Continue").isPresent(), is(false));
+    }
+
+    @Test
+    void testRejectedRequestIsUnavailable() throws Exception {
+        webServer.shutdown().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        start(() -> task -> {
+            throw new RejectedExecutionException();
+        });
+
+        WebClientResponse response = webClient.get().path("/apis").request().await();
+        assertThat(response.status().code(), is(503));
+    }
+
+    private void start(Supplier<Executor> executorSupplier) {
+        ResourceService<APISpec, API, APIList> service =
+                new ResourceService<>(() -> repository, APIList::new, executorSupplier);
+        webServer = WebServer.builder(Routing.builder().register("/apis", service).build())
+                .port(0)
+                .addMediaSupport(JacksonSupport.create())
+                .build()
+                .start()
+                .await();
+        webClient = WebClient.builder()
+                .baseUri("http://localhost:" + webServer.port())
+                .build();
+    }
+
+    private static APIList list(WebClientResponse response) {
+        assertThat(response.status().code(), is(200));
+        try {
+            return Serialization.jsonMapper().readValue(response.content().as(String.class).await(), APIList.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<String> lines(String ndjson) throws JsonProcessingException {
+        List<String> names = new ArrayList<>();
+        for (String line : ndjson.split("\n")) {
+            names.add(Serialization.jsonMapper().readValue(line, API.class).getMetadata().getName());
+        }
+        return names;
+    }
+
+    private static List<String> names(APIList list) {
+        List<String> names = new ArrayList<>();
+        list.getItems().forEach(api -> names.add(api.getMetadata().getName()));
+        return names;
+    }
+
+    private static API api(String namespace, String name, String owner) {
+        return new API(new ObjectMetaBuilder()
+                               .withName(name)
+                               .withNamespace(namespace)
+                               .withResourceVersion("1")
+                               .withLabels(Map.of("cxif.owner", owner))
+                               .build(),
+                       new APISpec(name, name + "-id", "v1"));
+    }
+}
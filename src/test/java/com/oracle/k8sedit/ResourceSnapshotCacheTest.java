@@ -0,0 +1,125 @@
+package com.oracle.k8sedit;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.oracle.k8sedit.api.API;
+import com.oracle.k8sedit.api.APISpec;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+class ResourceSnapshotCacheTest {
+    private final Cache<API> cache = new Cache<>();
+    private final ResourceSnapshotCache<API> snapshots = new ResourceSnapshotCache<>(cache);
+
+    @Test
+    void testEventsBeforeStartAreLeftToTheInitialBuild() {
+        add(api("dx-prod", "custom-api2", "1"));
+        add(api("dx-prod", "custom-api1", "1"));
+
+        assertThat(snapshots.get().getResources(), is(empty()));
+        assertThat(names(snapshots.peek().getResources()), contains("dx-prod/custom-api1", "dx-prod/custom-api2"));
+
+        snapshots.start();
+
+        assertThat(names(snapshots.get().getResources()), contains("dx-prod/custom-api1", "dx-prod/custom-api2"));
+    }
+
+    @Test
+    void testEventsPublishOrderedSnapshots() {
+        add(api("dx-prod", "custom-api2", "1"));
+        snapshots.start();
+
+        add(api("dx-test", "custom-api1", "2"));
+        add(api("dx-prod", "custom-api3", "3"));
+        add(api("dx-prod", "custom-api1", "4"));
+
+        ResourceSnapshot<API> snapshot = snapshots.get();
+        assertThat(names(snapshot.getResources()),
+                   contains("dx-prod/custom-api1", "dx-prod/custom-api2", "dx-prod/custom-api3", "dx-test/custom-api1"));
+        assertThat(names(snapshot.getResources("dx-prod")),
+                   contains("dx-prod/custom-api1", "dx-prod/custom-api2", "dx-prod/custom-api3"));
+        assertThat(snapshot.find("dx-test", "custom-api1").isPresent(), is(true));
+    }
+
+    @Test
+    void testReadsShareTheSnapshotUntilTheNextChange() {
+        add(api("dx-prod", "custom-api1", "1"));
+        snapshots.start();
+        ResourceSnapshot<API> first = snapshots.get();
+
+        assertThat(snapshots.get(), sameInstance(first));
+
+        API resynced = api("dx-prod", "custom-api1", "1");
+        cache.put(resynced);
+        snapshots.onUpdate(first.getResources().get(0), resynced);
+        assertThat(snapshots.get(), sameInstance(first));
+
+        API changed = api("dx-prod", "custom-api1", "2");
+        cache.put(changed);
+        snapshots.onUpdate(resynced, changed);
+        ResourceSnapshot<API> second = snapshots.get();
+        assertThat(second, not(sameInstance(first)));
+        assertThat(second.getVersion() > first.getVersion(), is(true));
+        assertThat(second.getResources(), contains(sameInstance(changed)));
+        assertThat(first.getResources().get(0).getMetadata().getResourceVersion(), is("1"));
+    }
+
+    @Test
+    void testDeletesRemoveTheResourceAndItsNamespace() {
+        API api = api("dx-test", "custom-api1", "1");
+        add(api("dx-prod", "custom-api1", "1"));
+        add(api);
+        snapshots.start();
+
+        cache.remove(api);
+        snapshots.onDelete(api, false);
+
+        assertThat(names(snapshots.get().getResources()), contains("dx-prod/custom-api1"));
+        assertThat(snapshots.get().getNamespaces(), contains("dx-prod"));
+        assertThat(snapshots.get().getResources("dx-test"), is(empty()));
+    }
+
+    @Test
+    void testQueuedEventsApplyTheCachedState() {
+        API first = api("dx-prod", "custom-api1", "1");
+        add(first);
+        snapshots.start();
+        API latest = api("dx-prod", "custom-api1", "3");
+        cache.put(latest);
+
+        // the event of an intermediate version arrives after the cache already moved on
+        snapshots.onUpdate(first, api("dx-prod", "custom-api1", "2"));
+
+        assertThat(snapshots.get().getResources(), contains(sameInstance(latest)));
+    }
+
+    private void add(API api) {
+        cache.put(api);
+        snapshots.onAdd(api);
+    }
+
+    private static List<String> names(List<API> apis) {
+        return apis.stream()
+                .map(api -> api.getMetadata().getNamespace() + "/" + api.getMetadata().getName())
+                .collect(Collectors.toList());
+    }
+
+    private static API api(String namespace, String name, String resourceVersion) {
+        return new API(new ObjectMetaBuilder()
+                               .withName(name)
+                               .withNamespace(namespace)
+                               .withResourceVersion(resourceVersion)
+                               .build(),
+                       new APISpec(name, name + "-id", "v1"));
+    }
+}
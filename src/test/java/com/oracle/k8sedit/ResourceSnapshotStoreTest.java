@@ -0,0 +1,90 @@
+package com.oracle.k8sedit;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.k8sedit.api.API;
+import com.oracle.k8sedit.api.APISpec;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+class ResourceSnapshotStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRoundTrip() throws IOException {
+        ResourceSnapshotStore<API> store = new ResourceSnapshotStore<>(directory.resolve("API.snapshot"), API.class);
+        List<API> apis = List.of(api("custom-api1"), api("custom-api2"), api("custom-api3"));
+
+        store.write("4711", apis);
+        ResourceSnapshotStore.Stored<API> stored = store.read().orElseThrow();
+
+        assertThat(stored.getResourceVersion(), is("4711"));
+        assertThat(stored.getResources(), is(apis));
+        assertThat(Files.exists(directory.resolve("API.snapshot.tmp")), is(false));
+    }
+
+    @Test
+    void testRoundTripWithoutResourceVersion() throws IOException {
+        ResourceSnapshotStore<API> store = new ResourceSnapshotStore<>(directory.resolve("API.snapshot"), API.class);
+
+        store.write(null, List.of());
+        ResourceSnapshotStore.Stored<API> stored = store.read().orElseThrow();
+
+        assertThat(stored.getResourceVersion(), is(nullValue()));
+        assertThat(stored.getResources().isEmpty(), is(true));
+    }
+
+    @Test
+    void testMissingFileIsNoSnapshot() {
+        ResourceSnapshotStore<API> store = new ResourceSnapshotStore<>(directory.resolve("API.snapshot"), API.class);
+
+        assertThat(store.read().isPresent(), is(false));
+    }
+
+    @Test
+    void testTruncatedFileIsNoSnapshot() throws IOException {
+        Path file = directory.resolve("API.snapshot");
+        ResourceSnapshotStore<API> store = new ResourceSnapshotStore<>(file, API.class);
+        store.write("4711", List.of(api("custom-api1"), api("custom-api2")));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+
+        assertThat(store.read().isPresent(), is(false));
+    }
+
+    @Test
+    void testScopeIdIgnoresOrder() {
+        RepositoryScope scope = RepositoryScope.namespaces(List.of("dx-prod", "dx-dev"))
+                .withLabelSelector(LabelSelectors.parse("env=prod,tier in (web,backend)"))
+                .withFields(Map.of("metadata.name", "custom-api1"));
+        RepositoryScope reordered = RepositoryScope.namespaces(List.of("dx-dev", "dx-prod"))
+                .withLabelSelector(LabelSelectors.parse("tier in (backend,web),env=prod"))
+                .withFields(Map.of("metadata.name", "custom-api1"));
+
+        assertThat(scope.getId(), is(reordered.getId()));
+        assertThat(scope.getId(), is(not(RepositoryScope.cluster().getId())));
+        assertThat(RepositoryScope.namespaces(List.of("dx-prod")).getId(),
+                   is(not(RepositoryScope.namespaces(List.of("dx-dev")).getId())));
+    }
+
+    private static API api(String name) {
+        return new API(new ObjectMetaBuilder().withName(name).withNamespace("dx-prod").withResourceVersion("1").build(),
+                       new APISpec(name, name + "-id", "v1"));
+    }
+}
@@ -0,0 +1,102 @@
+package com.oracle.k8sedit;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.oracle.k8sedit.api.API;
+import com.oracle.k8sedit.api.APISpec;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.WatcherException;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+class ResumableWatchTest {
+    private final RecordingEventHandler recorder = new RecordingEventHandler();
+    private final AtomicInteger gone = new AtomicInteger();
+    private final ResumableWatch<API> watch = new ResumableWatch<>(
+            "API",
+            List.of(api("custom-api1", "prod", "10"), api("custom-api2", "dev", "11")),
+            "11",
+            LabelSelectors.indexers(),
+            List.of(recorder),
+            gone::incrementAndGet);
+
+    @Test
+    void testBookmarkAdvancesResourceVersion() {
+        long version = watch.getSnapshot().getVersion();
+
+        watch.eventReceived(Watcher.Action.BOOKMARK, api("ignored", "prod", "15"));
+
+        assertThat(watch.getResourceVersion(), is("15"));
+        assertThat(watch.getSnapshot().getVersion(), is(version));
+        assertThat(recorder.events(), is(empty()));
+    }
+
+    @Test
+    void testEventsUpdateResourcesAndIndexes() {
+        watch.eventReceived(Watcher.Action.ADDED, api("custom-api3", "prod", "12"));
+        watch.eventReceived(Watcher.Action.MODIFIED, api("custom-api2", "prod", "13"));
+        watch.eventReceived(Watcher.Action.DELETED, api("custom-api1", "prod", "14"));
+
+        assertThat(recorder.events(), contains("ADDED custom-api3", "MODIFIED custom-api2", "DELETED custom-api1"));
+        assertThat(watch.getResourceVersion(), is("14"));
+        assertThat(names(watch.getSnapshot().getResources()), contains("custom-api2", "custom-api3"));
+        assertThat(names(watch.select(LabelSelectors.parse("env=prod"))),
+                   containsInAnyOrder("custom-api2", "custom-api3"));
+        assertThat(watch.select(LabelSelectors.parse("env=dev")), is(empty()));
+    }
+
+    @Test
+    void testGoneOnStartListsInstead() {
+        boolean resumed = watch.start((options, watcher) -> {
+            throw new KubernetesClientException("Gone", 410, null);
+        });
+
+        assertThat(resumed, is(false));
+        assertThat(gone.get(), is(0));
+    }
+
+    @Test
+    void testCloseCallsOnGoneOnce() {
+        assertThat(watch.start((options, watcher) -> () -> { }), is(true));
+        WatcherException cause = new WatcherException("Gone", new KubernetesClientException("Gone", 410, null));
+
+        watch.onClose(cause);
+        watch.onClose(cause);
+
+        assertThat(gone.get(), is(1));
+    }
+
+    @Test
+    void testStopDoesNotCallOnGone() {
+        assertThat(watch.start((options, watcher) -> () -> { }), is(true));
+
+        watch.stop();
+        watch.onClose(new WatcherException("Closed"));
+
+        assertThat(gone.get(), is(0));
+    }
+
+    private static List<String> names(List<API> apis) {
+        return apis.stream().map(api -> api.getMetadata().getName()).collect(Collectors.toList());
+    }
+
+    static API api(String name, String env, String resourceVersion) {
+        return new API(new ObjectMetaBuilder().withName(name)
+                               .withNamespace("dx-prod")
+                               .withLabels(Map.of("env", env))
+                               .withResourceVersion(resourceVersion)
+                               .build(),
+                       new APISpec(name, name + "-id", "v1"));
+    }
+}
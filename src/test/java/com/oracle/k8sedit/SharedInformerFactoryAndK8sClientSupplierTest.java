@@ -0,0 +1,50 @@
+package com.oracle.k8sedit;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import io.helidon.config.Config;
+import io.helidon.config.ConfigSources;
+import io.helidon.metrics.api.RegistryFactory;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SharedInformerFactoryAndK8sClientSupplierTest {
+    @Test
+    void testBoundedExecutorRejectsOnceTheQueueIsFull() {
+        Config config = Config.builder()
+                .disableEnvironmentVariablesSource()
+                .disableSystemPropertiesSource()
+                .sources(ConfigSources.create(Map.of("mode", "bounded",
+                                                     "max-threads", "1",
+                                                     "queue-size", "1")))
+                .build();
+        long rejectedBefore = rejected();
+        ExecutorService executor = SharedInformerFactoryAndK8sClientSupplier.createExecutorService(config);
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        try {
+            executor.execute(release::join);
+            executor.execute(release::join);
+
+            assertThrows(RejectedExecutionException.class, () -> executor.execute(release::join));
+            assertThat(rejected(), is(rejectedBefore + 1));
+        } finally {
+            release.complete(null);
+            executor.shutdown();
+        }
+    }
+
+    private static long rejected() {
+        return RegistryFactory.getInstance()
+                .getRegistry(MetricRegistry.Type.APPLICATION)
+                .counter("k8s.executor.rejected")
+                .getCount();
+    }
+}